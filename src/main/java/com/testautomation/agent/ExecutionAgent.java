@@ -0,0 +1,259 @@
+package com.testautomation.agent;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testautomation.service.ExecutionEngine;
+import com.testautomation.service.ExecutionHandle;
+import com.testautomation.service.ExecutionRequest;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Agent mode of the application: pulls runs from a coordinator's remote
+ * engine ({@link com.testautomation.service.RemoteExecutionEngine}), runs
+ * them on a local engine and sends the output and Cucumber messages back.
+ *
+ * Output is sent in batches; every batch also renews the lease, so the
+ * coordinator reassigns the run if this agent goes away. A rejected batch
+ * means the lease is gone (expired or cancelled) and the local run is stopped.
+ */
+@Component
+@ConditionalOnProperty(name = "test.execution.agent.enabled", havingValue = "true")
+public class ExecutionAgent {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionAgent.class);
+
+    @Autowired
+    private List<ExecutionEngine> engines;
+
+    @Value("${test.execution.agent.coordinator-url:http://localhost:8080}")
+    private String coordinatorUrl;
+    @Value("${test.execution.agent.id:}")
+    private String agentId;
+    @Value("${test.execution.agent.engine:in-process}")
+    private String engineName;
+    @Value("${test.execution.agent.poll-seconds:2}")
+    private int pollSeconds;
+    @Value("${test.execution.agent.report-millis:1000}")
+    private long reportMillis;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+    private volatile boolean running = true;
+    private Thread poller;
+
+    @PostConstruct
+    public void start() {
+        if (agentId == null || agentId.isBlank()) {
+            agentId = defaultAgentId();
+        }
+        poller = new Thread(this::pollLoop, "execution-agent");
+        poller.setDaemon(true);
+        poller.start();
+        logger.info("Execution agent {} pulling work from {}", agentId, coordinatorUrl);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (poller != null) {
+            poller.interrupt();
+        }
+    }
+
+    private void pollLoop() {
+        while (running) {
+            try {
+                JsonNode lease = post("/api/agents/" + encode(agentId) + "/lease", "application/json",
+                        new byte[0]);
+                if (lease == null) {
+                    Thread.sleep(pollSeconds * 1000L);
+                } else {
+                    runLease(lease);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.warn("Coordinator {} not reachable: {}", coordinatorUrl, e.getMessage());
+                try {
+                    Thread.sleep(pollSeconds * 1000L);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void runLease(JsonNode lease) throws Exception {
+        String leaseId = lease.path("leaseId").asText();
+        String runId = lease.path("runId").asText();
+        logger.info("Running {} (lease={})", runId, leaseId);
+
+        // A directory of its own: on the coordinator's node the run id's directory is in use
+        ExecutionRequest request = new ExecutionRequest("lease-" + leaseId);
+        lease.path("features").forEach(feature -> request.addFeature(feature.asText()));
+        List<String> order = new ArrayList<>();
+        lease.path("scenarioOrder").forEach(location -> order.add(location.asText()));
+        request.setScenarioOrder(order);
+        if (lease.hasNonNull("tagExpression")) {
+            request.setTagExpression(lease.path("tagExpression").asText());
+        }
+        Path messages = request.getOutputDirectory().resolve("messages.ndjson");
+        Files.deleteIfExists(messages);
+        request.addPlugin("message:" + messages);
+
+        // Reports run from the start, since starting may include a compile
+        Queue<String> lines = new ConcurrentLinkedQueue<>();
+        AtomicReference<ExecutionHandle> current = new AtomicReference<>();
+        AtomicBoolean leaseLost = new AtomicBoolean();
+        AtomicBoolean finished = new AtomicBoolean();
+        Thread reporter = Thread.ofVirtual().name("agent-report-" + leaseId).start(() -> {
+            while (!finished.get()) {
+                try {
+                    Thread.sleep(reportMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                if (!finished.get() && !report(leaseId, drain(lines))) {
+                    logger.warn("Lease of {} is no longer valid; stopping the run", runId);
+                    leaseLost.set(true);
+                    ExecutionHandle handle = current.get();
+                    if (handle != null) {
+                        handle.destroy();
+                    }
+                    return;
+                }
+            }
+        });
+
+        int exitCode = -1;
+        try {
+            ExecutionHandle handle = resolveEngine().start(request);
+            current.set(handle);
+            if (leaseLost.get()) {
+                handle.destroy();
+            }
+            try (BufferedReader output = new BufferedReader(new InputStreamReader(handle.getOutput()))) {
+                String line;
+                while ((line = output.readLine()) != null) {
+                    lines.add(line);
+                }
+            } catch (IOException e) {
+                logger.debug("Output of {} ended: {}", runId, e.getMessage());
+            }
+            exitCode = handle.waitFor();
+        } catch (Exception e) {
+            logger.error("Could not run {}", runId, e);
+            lines.add("[agent " + agentId + "] Could not run: " + e.getMessage());
+        } finally {
+            finished.set(true);
+            reporter.join();
+        }
+        if (leaseLost.get()) {
+            return;
+        }
+        report(leaseId, drain(lines));
+        byte[] results = Files.exists(messages) ? Files.readAllBytes(messages) : new byte[0];
+        complete(leaseId, exitCode, results);
+        logger.info("Finished {} with exit code {}", runId, exitCode);
+    }
+
+    private ExecutionEngine resolveEngine() {
+        return engines.stream()
+                .filter(e -> e.getName().equalsIgnoreCase(engineName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown execution engine: " + engineName));
+    }
+
+    /**
+     * Send output lines, renewing the lease. False when the coordinator rejected it.
+     */
+    private boolean report(String leaseId, List<String> lines) {
+        try {
+            return post("/api/agents/leases/" + leaseId + "/output", "application/json",
+                    objectMapper.writeValueAsBytes(lines)) != null;
+        } catch (IOException e) {
+            // Keep running; the lease only expires if the coordinator stays unreachable
+            logger.warn("Could not report to coordinator: {}", e.getMessage());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return true;
+        }
+    }
+
+    private void complete(String leaseId, int exitCode, byte[] messages) throws Exception {
+        if (post("/api/agents/leases/" + leaseId + "/result?exitCode=" + exitCode, "application/x-ndjson",
+                messages) == null) {
+            logger.warn("Coordinator rejected the result of lease {}", leaseId);
+        }
+    }
+
+    /**
+     * POST to the coordinator; null for 204 and 409 (no work, lease gone)
+     */
+    private JsonNode post(String path, String contentType, byte[] body) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(coordinatorUrl + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                .build();
+        HttpResponse<byte[]> response = http.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() == 204 || response.statusCode() == 409) {
+            return null;
+        }
+        if (response.statusCode() >= 300) {
+            throw new IOException("HTTP " + response.statusCode() + " from " + path);
+        }
+        return objectMapper.readTree(response.body());
+    }
+
+    private static List<String> drain(Queue<String> lines) {
+        List<String> batch = new ArrayList<>();
+        String line;
+        while ((line = lines.poll()) != null) {
+            batch.add(line);
+        }
+        return batch;
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    private static String defaultAgentId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (IOException e) {
+            host = "agent";
+        }
+        return host + "-" + ProcessHandle.current().pid();
+    }
+}
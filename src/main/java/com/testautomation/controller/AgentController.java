@@ -0,0 +1,67 @@
+package com.testautomation.controller;
+
+import com.testautomation.service.RemoteExecutionEngine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Coordinator side of remote execution: agents lease runs here, stream
+ * their output and upload the results
+ */
+@RestController
+@RequestMapping("/api/agents")
+public class AgentController {
+
+    @Autowired
+    private RemoteExecutionEngine remoteEngine;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> status() {
+        return ResponseEntity.ok(remoteEngine.getStatus());
+    }
+
+    /**
+     * Next run for the agent; 204 when nothing is queued
+     */
+    @PostMapping("/{agentId}/lease")
+    public ResponseEntity<Map<String, Object>> lease(@PathVariable String agentId) {
+        Map<String, Object> assignment = remoteEngine.lease(agentId);
+        return assignment != null ? ResponseEntity.ok(assignment) : ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Output lines of a leased run; also renews the lease. 409 when the lease
+     * expired or the run was cancelled.
+     */
+    @PostMapping("/leases/{leaseId}/output")
+    public ResponseEntity<Map<String, Object>> output(@PathVariable String leaseId,
+            @RequestBody(required = false) List<String> lines) {
+        return respond(remoteEngine.report(leaseId, lines));
+    }
+
+    /**
+     * Exit code and Cucumber messages (NDJSON) of a finished run
+     */
+    @PostMapping("/leases/{leaseId}/result")
+    public ResponseEntity<Map<String, Object>> result(@PathVariable String leaseId,
+            @RequestParam("exitCode") int exitCode,
+            @RequestBody(required = false) byte[] messages) {
+        return respond(remoteEngine.complete(leaseId, exitCode, messages));
+    }
+
+    private ResponseEntity<Map<String, Object>> respond(boolean accepted) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", accepted);
+        if (!accepted) {
+            response.put("message", "Lease expired or the run was cancelled");
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(response);
+        }
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,43 @@
+package com.testautomation.controller;
+
+import com.testautomation.service.ProgressPublisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.DestinationVariable;
+import org.springframework.messaging.handler.annotation.Header;
+import org.springframework.messaging.simp.annotation.SubscribeMapping;
+import org.springframework.stereotype.Controller;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Replays missed progress events over STOMP. A client subscribes to the
+ * live destination /topic/execution-progress/{id} first, then to
+ * /app/execution-progress/{id} with a {@code fromSequence} header; the
+ * answer to the second subscription holds the events after that sequence,
+ * sent to that client only. Live events the client already got from the
+ * replay are recognised by their sequence number.
+ */
+@Controller
+public class ProgressController {
+
+    @Autowired
+    private ProgressPublisher progressPublisher;
+
+    @SubscribeMapping("/execution-progress/{executionId}")
+    public Map<String, Object> replay(@DestinationVariable String executionId,
+            @Header(name = "fromSequence", required = false) String fromSequence) {
+        long from = fromSequence == null || fromSequence.isBlank() ? 0 : Long.parseLong(fromSequence.trim());
+        return toResponse(executionId, progressPublisher.replay(executionId, from));
+    }
+
+    static Map<String, Object> toResponse(String executionId, ProgressPublisher.Replay replay) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("executionId", executionId);
+        response.put("lastSequence", replay.getLastSequence());
+        // Events after fromSequence were dropped from the ring; fetch the status for the full picture
+        response.put("truncated", replay.isTruncated());
+        response.put("events", replay.getEvents());
+        return response;
+    }
+}
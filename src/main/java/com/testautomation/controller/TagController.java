@@ -1,6 +1,7 @@
 package com.testautomation.controller;
 
 import com.testautomation.model.Tag;
+import com.testautomation.service.ExecutionOptions;
 import com.testautomation.service.FeatureFileService;
 import com.testautomation.service.TagService;
 import com.testautomation.service.TestExecutionService;
@@ -258,40 +259,39 @@ public class TagController {
     public ResponseEntity<Map<String, Object>> executeTestsByTags(
             @RequestBody Map<String, Object> request,
             @RequestParam(value = "executionId", required = false) String executionId) {
-        try {
-            @SuppressWarnings("unchecked")
-            List<String> tags = (List<String>) request.get("tags");
-            String logic = (String) request.getOrDefault("logic", "AND");
+        @SuppressWarnings("unchecked")
+        List<String> tags = (List<String>) request.get("tags");
+        String logic = (String) request.getOrDefault("logic", "AND");
+        String engine = (String) request.get("engine");
 
-            if (tags == null || tags.isEmpty()) {
-                Map<String, Object> response = new HashMap<>();
-                response.put("success", false);
-                response.put("message", "No tags provided");
-                return ResponseEntity.badRequest().body(response);
-            }
+        if (tags == null || tags.isEmpty()) {
+            throw new IllegalArgumentException("No tags provided");
+        }
 
-            if (executionId == null || executionId.isBlank()) {
-                executionId = testExecutionService.createExecutionId();
-            }
-            testExecutionService.runTestsByTagsWithId(tags, logic, executionId);
+        if (executionId == null || executionId.isBlank()) {
+            executionId = testExecutionService.createExecutionId();
+        }
+        ExecutionOptions options = executionOptions(request, engine);
+        testExecutionService.checkOptions(executionId, options);
+        String requestedId = executionId;
+        executionId = testExecutionService.startTestsByTags(tags, logic, executionId, options);
+        boolean coalesced = !executionId.equals(requestedId);
+        if (coalesced) {
+            logger.info("runTestsByTags attached to in-flight executionId={}", executionId);
+        } else {
             logger.info("runTestsByTags started with executionId={}", executionId);
             testExecutionService.notifyExecutionStart(executionId);
+        }
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Test execution started");
-            response.put("tags", tags);
-            response.put("logic", logic);
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", coalesced ? "Attached to identical execution in progress" : "Test execution started");
+        response.put("coalesced", coalesced);
+        response.put("tags", tags);
+        response.put("logic", logic);
 
-            response.put("executionId", executionId);
-            return ResponseEntity.accepted().body(response);
-        } catch (Exception e) {
-            logger.error("Error executing tests by tags", e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", "Failed to execute tests: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-        }
+        response.put("executionId", executionId);
+        return ResponseEntity.accepted().body(response);
     }
 
     /**
@@ -301,41 +301,55 @@ public class TagController {
     public ResponseEntity<Map<String, Object>> executeTestsComplexTags(
             @RequestBody Map<String, Object> request,
             @RequestParam(value = "executionId", required = false) String executionId) {
-        try {
-            @SuppressWarnings("unchecked")
-            List<String> includeTags = (List<String>) request.get("includeTags");
-            @SuppressWarnings("unchecked")
-            List<String> excludeTags = (List<String>) request.get("excludeTags");
-
-            if (includeTags == null || includeTags.isEmpty()) {
-                Map<String, Object> response = new HashMap<>();
-                response.put("success", false);
-                response.put("message", "No include tags provided");
-                return ResponseEntity.badRequest().body(response);
-            }
+        @SuppressWarnings("unchecked")
+        List<String> includeTags = (List<String>) request.get("includeTags");
+        @SuppressWarnings("unchecked")
+        List<String> excludeTags = (List<String>) request.get("excludeTags");
+        String engine = (String) request.get("engine");
+
+        if (includeTags == null || includeTags.isEmpty()) {
+            throw new IllegalArgumentException("No include tags provided");
+        }
 
-            if (executionId == null || executionId.isBlank()) {
-                executionId = testExecutionService.createExecutionId();
-            }
-            testExecutionService.runTestsByComplexTagsWithId(includeTags, excludeTags, executionId);
+        if (executionId == null || executionId.isBlank()) {
+            executionId = testExecutionService.createExecutionId();
+        }
+        ExecutionOptions options = executionOptions(request, engine);
+        testExecutionService.checkOptions(executionId, options);
+        String requestedId = executionId;
+        executionId = testExecutionService.startTestsByComplexTags(includeTags, excludeTags, executionId, options);
+        boolean coalesced = !executionId.equals(requestedId);
+        if (coalesced) {
+            logger.info("runTestsByComplexTags attached to in-flight executionId={}", executionId);
+        } else {
             logger.info("runTestsByComplexTags started with executionId={}", executionId);
             testExecutionService.notifyExecutionStart(executionId);
+        }
 
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", true);
-            response.put("message", "Test execution started");
-            response.put("includeTags", includeTags);
-            response.put("excludeTags", excludeTags);
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("message", coalesced ? "Attached to identical execution in progress" : "Test execution started");
+        response.put("coalesced", coalesced);
+        response.put("includeTags", includeTags);
+        response.put("excludeTags", excludeTags);
 
-            response.put("executionId", executionId);
-            return ResponseEntity.accepted().body(response);
-        } catch (Exception e) {
-            logger.error("Error executing tests with complex tags", e);
-            Map<String, Object> response = new HashMap<>();
-            response.put("success", false);
-            response.put("message", "Failed to execute tests: " + e.getMessage());
-            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
-        }
+        response.put("executionId", executionId);
+        return ResponseEntity.accepted().body(response);
+    }
+
+    /**
+     * Run options from the body of a tag execution request
+     */
+    private ExecutionOptions executionOptions(Map<String, Object> request, String engine) {
+        return new ExecutionOptions()
+                .setEngine(engine)
+                .setParallel(Boolean.TRUE.equals(request.get("parallel")))
+                .setMaxFailures(asInteger(request.get("maxFailures")))
+                .setMaxFailureRate(asInteger(request.get("maxFailureRate")))
+                .setMinScenarios(asInteger(request.get("minScenarios")))
+                .setTimeBudgetSeconds(asInteger(request.get("timeBudgetSeconds")))
+                .setOrder((String) request.get("order"))
+                .setPriority((String) request.get("priority"));
     }
 
     /**
@@ -391,4 +405,21 @@ public class TagController {
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
         }
     }
+
+    /**
+     * Numeric field of a JSON request body; strings are accepted too
+     */
+    private static Integer asInteger(Object value) {
+        if (value instanceof Number number) {
+            return number.intValue();
+        }
+        if (value instanceof String text && !text.isBlank()) {
+            try {
+                return Integer.valueOf(text.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Not a number: " + text);
+            }
+        }
+        return null;
+    }
 }
@@ -1,14 +1,23 @@
 package com.testautomation.controller;
 
+import com.testautomation.service.ExecutionCoalescer;
 import com.testautomation.service.ExecutionHistoryService;
+import com.testautomation.service.ExecutionLogService;
+import com.testautomation.service.ExecutionOptions;
+import com.testautomation.service.ExecutionScheduler;
+import com.testautomation.service.ProgressPublisher;
+import com.testautomation.service.ResourceAdmission;
 import com.testautomation.service.TestExecutionService;
+import com.testautomation.service.WorkerPoolExecutionEngine;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
@@ -20,21 +29,42 @@ public class TestExecutionController {
     private TestExecutionService executionService;
     @Autowired
     private ExecutionHistoryService historyService;
+    @Autowired
+    private WorkerPoolExecutionEngine workerPool;
+    @Autowired
+    private ExecutionScheduler executionScheduler;
+    @Autowired
+    private ExecutionLogService executionLogService;
+    @Autowired
+    private ExecutionCoalescer executionCoalescer;
+    @Autowired
+    private ProgressPublisher progressPublisher;
+    @Autowired
+    private ResourceAdmission resourceAdmission;
 
     @PostMapping("/run/all")
     public ResponseEntity<Map<String, Object>> runAllTests(
-            @RequestParam(value = "executionId", required = false) String executionId) {
+            @RequestParam(value = "executionId", required = false) String executionId,
+            @RequestParam(value = "engine", required = false) String engine,
+            @RequestParam(value = "parallel", defaultValue = "false") boolean parallel,
+            @RequestParam(value = "maxFailures", required = false) Integer maxFailures,
+            @RequestParam(value = "maxFailureRate", required = false) Integer maxFailureRate,
+            @RequestParam(value = "minScenarios", required = false) Integer minScenarios,
+            @RequestParam(value = "timeBudgetSeconds", required = false) Integer timeBudgetSeconds,
+            @RequestParam(value = "order", required = false) String order,
+            @RequestParam(value = "priority", required = false) String priority) {
         Map<String, Object> response = new HashMap<>();
-        if (!executionService.isMavenAvailable()) {
-            response.put("success", false);
-            response.put("message",
-                    "Maven command not found. Configure 'test.execution.maven.command' or add a Maven wrapper.");
-            return ResponseEntity.badRequest().body(response);
-        }
         if (executionId == null || executionId.isBlank()) {
             executionId = executionService.createExecutionId();
         }
-        executionService.runAllTestsWithId(executionId);
+        ExecutionOptions options = new ExecutionOptions().setEngine(engine).setParallel(parallel)
+                .setMaxFailures(maxFailures).setMaxFailureRate(maxFailureRate).setMinScenarios(minScenarios)
+                .setTimeBudgetSeconds(timeBudgetSeconds).setOrder(order).setPriority(priority);
+        executionService.checkOptions(executionId, options);
+        String runId = executionService.startAllTests(executionId, options);
+        if (!runId.equals(executionId)) {
+            return attached(runId, response);
+        }
         logger.info("runAllTests started request with executionId={}", executionId);
         // send an initial notification so clients that establish websockets after call
         // get a start msg
@@ -47,18 +77,26 @@ public class TestExecutionController {
 
     @PostMapping("/run/feature/{fileName}")
     public ResponseEntity<Map<String, Object>> runFeature(@PathVariable String fileName,
-            @RequestParam(value = "executionId", required = false) String executionId) {
+            @RequestParam(value = "executionId", required = false) String executionId,
+            @RequestParam(value = "engine", required = false) String engine,
+            @RequestParam(value = "maxFailures", required = false) Integer maxFailures,
+            @RequestParam(value = "maxFailureRate", required = false) Integer maxFailureRate,
+            @RequestParam(value = "minScenarios", required = false) Integer minScenarios,
+            @RequestParam(value = "timeBudgetSeconds", required = false) Integer timeBudgetSeconds,
+            @RequestParam(value = "order", required = false) String order,
+            @RequestParam(value = "priority", required = false) String priority) {
         Map<String, Object> response = new HashMap<>();
-        if (!executionService.isMavenAvailable()) {
-            response.put("success", false);
-            response.put("message",
-                    "Maven command not found. Configure 'test.execution.maven.command' or add a Maven wrapper.");
-            return ResponseEntity.badRequest().body(response);
-        }
         if (executionId == null || executionId.isBlank()) {
             executionId = executionService.createExecutionId();
         }
-        executionService.runFeatureFileWithId(fileName, executionId);
+        ExecutionOptions options = new ExecutionOptions().setEngine(engine)
+                .setMaxFailures(maxFailures).setMaxFailureRate(maxFailureRate).setMinScenarios(minScenarios)
+                .setTimeBudgetSeconds(timeBudgetSeconds).setOrder(order).setPriority(priority);
+        executionService.checkOptions(executionId, options);
+        String runId = executionService.startFeatureFile(fileName, executionId, options);
+        if (!runId.equals(executionId)) {
+            return attached(runId, response);
+        }
         logger.info("runFeature started for {} with executionId={}", fileName, executionId);
         executionService.notifyExecutionStart(executionId);
         response.put("success", true);
@@ -67,6 +105,44 @@ public class TestExecutionController {
         return ResponseEntity.accepted().body(response);
     }
 
+    @PostMapping("/run/impacted")
+    public ResponseEntity<Map<String, Object>> runImpacted(
+            @RequestParam(value = "executionId", required = false) String executionId,
+            @RequestParam(value = "engine", required = false) String engine,
+            @RequestParam(value = "parallel", defaultValue = "false") boolean parallel,
+            @RequestParam(value = "maxFailures", required = false) Integer maxFailures,
+            @RequestParam(value = "maxFailureRate", required = false) Integer maxFailureRate,
+            @RequestParam(value = "minScenarios", required = false) Integer minScenarios,
+            @RequestParam(value = "timeBudgetSeconds", required = false) Integer timeBudgetSeconds,
+            @RequestParam(value = "order", required = false) String order,
+            @RequestParam(value = "priority", required = false) String priority) throws IOException {
+        Map<String, Object> response = new HashMap<>();
+        if (executionId == null || executionId.isBlank()) {
+            executionId = executionService.createExecutionId();
+        }
+        ExecutionOptions options = new ExecutionOptions().setEngine(engine).setParallel(parallel)
+                .setMaxFailures(maxFailures).setMaxFailureRate(maxFailureRate).setMinScenarios(minScenarios)
+                .setTimeBudgetSeconds(timeBudgetSeconds).setOrder(order).setPriority(priority);
+        executionService.checkOptions(executionId, options);
+        executionService.startImpactedTests(executionId, options);
+        logger.info("runImpacted started with executionId={}", executionId);
+        executionService.notifyExecutionStart(executionId);
+        response.put("success", true);
+        response.put("message", "Execution started");
+        response.put("executionId", executionId);
+        return ResponseEntity.accepted().body(response);
+    }
+
+    @GetMapping("/impacted")
+    public ResponseEntity<Map<String, Object>> impactedFeatures() throws IOException {
+        Map<String, Object> response = new HashMap<>();
+        Map<String, String> impacted = executionService.findImpactedFeatures();
+        response.put("success", true);
+        response.put("count", impacted.size());
+        response.put("features", impacted);
+        return ResponseEntity.ok(response);
+    }
+
     @GetMapping("/maven")
     public ResponseEntity<Map<String, Object>> mavenStatus() {
         Map<String, Object> response = new HashMap<>();
@@ -78,6 +154,26 @@ public class TestExecutionController {
         return ResponseEntity.ok(response);
     }
 
+    @GetMapping("/workers")
+    public ResponseEntity<Map<String, Object>> workerPoolStatus() {
+        return ResponseEntity.ok(workerPool.getPoolStatus());
+    }
+
+    @GetMapping("/queue")
+    public ResponseEntity<Map<String, Object>> queueStatus() {
+        Map<String, Object> status = new LinkedHashMap<>(executionScheduler.getStatus());
+        status.put("attachedRequests", executionCoalescer.getStatus());
+        return ResponseEntity.ok(status);
+    }
+
+    /**
+     * Resource limits, live readings and recent admission decisions
+     */
+    @GetMapping("/admission")
+    public ResponseEntity<Map<String, Object>> admissionStatus() {
+        return ResponseEntity.ok(resourceAdmission.getStatus());
+    }
+
     @GetMapping("/new")
     public ResponseEntity<Map<String, Object>> newExecutionId() {
         Map<String, Object> response = new HashMap<>();
@@ -103,6 +199,13 @@ public class TestExecutionController {
     @GetMapping("/status/{executionId}")
     public ResponseEntity<Map<String, Object>> status(@PathVariable String executionId) {
         Map<String, Object> response = new HashMap<>();
+        Map<String, Object> scheduling = executionScheduler.getExecutionState(executionId);
+        if (scheduling != null) {
+            response.put("success", true);
+            response.put("executionId", executionId);
+            response.putAll(scheduling);
+            return ResponseEntity.ok(response);
+        }
         var exec = historyService.getExecutionById(executionId);
         if (exec == null) {
             response.put("success", false);
@@ -114,4 +217,54 @@ public class TestExecutionController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Progress events of an execution after {@code fromSequence}, the same
+     * replay a STOMP client gets by subscribing to /app/execution-progress/{id}
+     */
+    @GetMapping("/progress/{executionId}")
+    public ResponseEntity<Map<String, Object>> progress(@PathVariable String executionId,
+            @RequestParam(value = "fromSequence", defaultValue = "0") long fromSequence) {
+        return ResponseEntity.ok(ProgressController.toResponse(executionId,
+                progressPublisher.replay(executionId, fromSequence)));
+    }
+
+    /**
+     * Output of an execution: the last {@code tail} lines, or {@code limit}
+     * bytes from {@code offset} when an offset is given
+     */
+    @GetMapping("/log/{executionId}")
+    public ResponseEntity<Map<String, Object>> log(@PathVariable String executionId,
+            @RequestParam(value = "tail", defaultValue = "100") int tail,
+            @RequestParam(value = "offset", required = false) Long offset,
+            @RequestParam(value = "limit", defaultValue = "65536") int limit) throws IOException {
+        Map<String, Object> response = new HashMap<>();
+        response.put("executionId", executionId);
+        if (!executionLogService.exists(executionId)) {
+            response.put("success", false);
+            response.put("message", "No log found for execution");
+            return ResponseEntity.status(404).body(response);
+        }
+        response.put("success", true);
+        response.put("running", executionLogService.isOpen(executionId));
+        response.put("droppedLines", executionLogService.getDroppedLines(executionId));
+        if (offset != null) {
+            response.putAll(executionLogService.readRange(executionId, offset, limit));
+        } else {
+            response.put("lines", executionLogService.tail(executionId, Math.max(1, tail)));
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Response for a request that joined an identical execution already in flight
+     */
+    private ResponseEntity<Map<String, Object>> attached(String executionId, Map<String, Object> response) {
+        logger.info("Request attached to in-flight executionId={}", executionId);
+        response.put("success", true);
+        response.put("message", "Attached to identical execution in progress");
+        response.put("coalesced", true);
+        response.put("executionId", executionId);
+        return ResponseEntity.accepted().body(response);
+    }
+
 }
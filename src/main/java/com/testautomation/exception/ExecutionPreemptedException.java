@@ -0,0 +1,11 @@
+package com.testautomation.exception;
+
+/**
+ * Thrown out of an execution whose processes were stopped to make room for
+ * a higher-priority execution; the scheduler queues it again
+ */
+public class ExecutionPreemptedException extends RuntimeException {
+    public ExecutionPreemptedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.testautomation.exception;
+
+/**
+ * Thrown when the execution scheduler has no free slot or queue space
+ */
+public class ExecutionRejectedException extends RuntimeException {
+    public ExecutionRejectedException(String message) {
+        super(message);
+    }
+}
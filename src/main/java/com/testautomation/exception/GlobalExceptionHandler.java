@@ -29,6 +29,49 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(body);
     }
 
+    @ExceptionHandler(ExecutionRejectedException.class)
+    public ResponseEntity<Map<String, Object>> handleExecutionRejected(ExecutionRejectedException ex,
+            HttpServletRequest request) {
+        logger.warn("Execution rejected: {} - path: {}", ex.getMessage(), request.getRequestURI());
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", Instant.now().toString());
+        body.put("status", HttpStatus.TOO_MANY_REQUESTS.value());
+        body.put("error", HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase());
+        body.put("success", false);
+        body.put("message", ex.getMessage());
+        body.put("path", request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body(body);
+    }
+
+    @ExceptionHandler(StepProblemsException.class)
+    public ResponseEntity<Map<String, Object>> handleStepProblems(StepProblemsException ex,
+            HttpServletRequest request) {
+        logger.warn("Execution rejected: {} - path: {}", ex.getMessage(), request.getRequestURI());
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", Instant.now().toString());
+        body.put("status", HttpStatus.BAD_REQUEST.value());
+        body.put("error", HttpStatus.BAD_REQUEST.getReasonPhrase());
+        body.put("success", false);
+        body.put("message", ex.getMessage());
+        body.put("stepProblems", ex.getProblems());
+        body.put("path", request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, Object>> handleIllegalArgument(IllegalArgumentException ex,
+            HttpServletRequest request) {
+        logger.warn("Bad request: {} - path: {}", ex.getMessage(), request.getRequestURI());
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("timestamp", Instant.now().toString());
+        body.put("status", HttpStatus.BAD_REQUEST.value());
+        body.put("error", HttpStatus.BAD_REQUEST.getReasonPhrase());
+        body.put("success", false);
+        body.put("message", ex.getMessage());
+        body.put("path", request.getRequestURI());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(body);
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<Map<String, Object>> handleGenericException(Exception ex, HttpServletRequest request) {
         logger.error("Unhandled exception for path {}: {}", request.getRequestURI(), ex.getMessage(), ex);
@@ -0,0 +1,22 @@
+package com.testautomation.exception;
+
+import com.testautomation.model.ExecutionHistory;
+
+import java.util.List;
+
+/**
+ * Thrown when a requested execution is rejected before it is queued because
+ * a dry run found undefined or ambiguous steps
+ */
+public class StepProblemsException extends RuntimeException {
+    private final List<ExecutionHistory.StepProblem> problems;
+
+    public StepProblemsException(String message, List<ExecutionHistory.StepProblem> problems) {
+        super(message);
+        this.problems = problems;
+    }
+
+    public List<ExecutionHistory.StepProblem> getProblems() {
+        return problems;
+    }
+}
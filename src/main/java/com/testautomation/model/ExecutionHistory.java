@@ -1,10 +1,13 @@
 package com.testautomation.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Enhanced Execution History with Tag Support
@@ -33,7 +36,7 @@ public class ExecutionHistory {
         private String executionId;
         private String executionType; // ALL, FEATURE, TAG_BASED, COMPLEX_TAG, SUITE
         private String timestamp;
-        private String status; // RUNNING, PASSED, FAILED
+        private String status; // RUNNING, PASSED, FAILED, ABORTED, SKIPPED
         private String duration;
         private String reportPath;
         
@@ -55,10 +58,22 @@ public class ExecutionHistory {
         private Integer failedSteps;
         private Integer skippedSteps;
         private Integer pendingSteps;
+        private List<ScenarioResult> scenarioResults;
+        private Integer retryAttempts;
+        private List<String> passedOnRetry; // feature:line of scenarios that only passed on a retry
+        // Glue classes used per feature file; only needed while recording impact, not persisted
+        @JsonIgnore
+        private Map<String, Set<String>> glueByFeature;
         
         // Additional metadata
         private String environment;
         private String browser;
+        private String engine; // maven, in-process, worker-pool
+        private Integer shardCount;
+        private List<ShardTiming> shardTimings; // planned vs actual time of each shard
+        private Integer timeBudgetSeconds;
+        private List<DeferredScenario> deferredScenarios; // left out to fit the time budget
+        private List<StepProblem> stepProblems; // undefined or ambiguous steps that got the run rejected
         private String triggeredBy;
         private String notes;
 
@@ -240,6 +255,88 @@ public class ExecutionHistory {
             this.browser = browser;
         }
 
+        public String getEngine() {
+            return engine;
+        }
+
+        public void setEngine(String engine) {
+            this.engine = engine;
+        }
+
+        public Integer getShardCount() {
+            return shardCount;
+        }
+
+        public void setShardCount(Integer shardCount) {
+            this.shardCount = shardCount;
+        }
+
+        public List<ShardTiming> getShardTimings() {
+            return shardTimings;
+        }
+
+        public void setShardTimings(List<ShardTiming> shardTimings) {
+            this.shardTimings = shardTimings;
+        }
+
+        public Integer getTimeBudgetSeconds() {
+            return timeBudgetSeconds;
+        }
+
+        public void setTimeBudgetSeconds(Integer timeBudgetSeconds) {
+            this.timeBudgetSeconds = timeBudgetSeconds;
+        }
+
+        public List<DeferredScenario> getDeferredScenarios() {
+            return deferredScenarios;
+        }
+
+        public void setDeferredScenarios(List<DeferredScenario> deferredScenarios) {
+            this.deferredScenarios = deferredScenarios;
+        }
+
+        public List<StepProblem> getStepProblems() {
+            return stepProblems;
+        }
+
+        public void setStepProblems(List<StepProblem> stepProblems) {
+            this.stepProblems = stepProblems;
+        }
+
+        public List<ScenarioResult> getScenarioResults() {
+            return scenarioResults;
+        }
+
+        public void setScenarioResults(List<ScenarioResult> scenarioResults) {
+            this.scenarioResults = scenarioResults;
+        }
+
+        public Integer getRetryAttempts() {
+            return retryAttempts;
+        }
+
+        public void setRetryAttempts(Integer retryAttempts) {
+            this.retryAttempts = retryAttempts;
+        }
+
+        public List<String> getPassedOnRetry() {
+            return passedOnRetry;
+        }
+
+        public void setPassedOnRetry(List<String> passedOnRetry) {
+            this.passedOnRetry = passedOnRetry;
+        }
+
+        @JsonIgnore
+        public Map<String, Set<String>> getGlueByFeature() {
+            return glueByFeature;
+        }
+
+        @JsonIgnore
+        public void setGlueByFeature(Map<String, Set<String>> glueByFeature) {
+            this.glueByFeature = glueByFeature;
+        }
+
         public String getTriggeredBy() {
             return triggeredBy;
         }
@@ -304,4 +401,217 @@ public class ExecutionHistory {
                     '}';
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Outcome and duration of a single scenario (or example row) in an execution
+     */
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public static class ScenarioResult {
+        private String featureFile; // relative to the features directory
+        private Integer line;
+        private String name;
+        private String status; // PASSED, FAILED, SKIPPED, PENDING, UNDEFINED, AMBIGUOUS
+        private Long durationMillis;
+        private Integer attempts; // set when the scenario was retried
+        private Boolean cached; // set when the result was taken from the scenario result cache
+
+        public String getFeatureFile() {
+            return featureFile;
+        }
+
+        public void setFeatureFile(String featureFile) {
+            this.featureFile = featureFile;
+        }
+
+        public Integer getLine() {
+            return line;
+        }
+
+        public void setLine(Integer line) {
+            this.line = line;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+
+        public Long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public void setDurationMillis(Long durationMillis) {
+            this.durationMillis = durationMillis;
+        }
+
+        public Integer getAttempts() {
+            return attempts;
+        }
+
+        public void setAttempts(Integer attempts) {
+            this.attempts = attempts;
+        }
+
+        public Boolean getCached() {
+            return cached;
+        }
+
+        public void setCached(Boolean cached) {
+            this.cached = cached;
+        }
+
+        /**
+         * Location in Cucumber's feature:line form, relative to the features directory
+         */
+        @JsonIgnore
+        public String getLocation() {
+            return featureFile + ":" + line;
+        }
+    }
+
+    /**
+     * What a shard of a parallel run was planned to take and what it took
+     */
+    public static class ShardTiming {
+        private Integer shard;
+        private List<String> features; // feature files, or feature:line when a feature was split
+        private Long plannedMillis;
+        private Long actualMillis;
+
+        public Integer getShard() {
+            return shard;
+        }
+
+        public void setShard(Integer shard) {
+            this.shard = shard;
+        }
+
+        public List<String> getFeatures() {
+            return features;
+        }
+
+        public void setFeatures(List<String> features) {
+            this.features = features;
+        }
+
+        public Long getPlannedMillis() {
+            return plannedMillis;
+        }
+
+        public void setPlannedMillis(Long plannedMillis) {
+            this.plannedMillis = plannedMillis;
+        }
+
+        public Long getActualMillis() {
+            return actualMillis;
+        }
+
+        public void setActualMillis(Long actualMillis) {
+            this.actualMillis = actualMillis;
+        }
+    }
+
+    /**
+     * A scenario a time-budgeted run left out, with the numbers it was judged on
+     */
+    public static class DeferredScenario {
+        private String location; // feature:line
+        private String name;
+        private Long estimatedMillis;
+        private Double failureRate; // recent failure rate, smoothed towards 50% for little history
+        private String reason;
+
+        public String getLocation() {
+            return location;
+        }
+
+        public void setLocation(String location) {
+            this.location = location;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public Long getEstimatedMillis() {
+            return estimatedMillis;
+        }
+
+        public void setEstimatedMillis(Long estimatedMillis) {
+            this.estimatedMillis = estimatedMillis;
+        }
+
+        public Double getFailureRate() {
+            return failureRate;
+        }
+
+        public void setFailureRate(Double failureRate) {
+            this.failureRate = failureRate;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public void setReason(String reason) {
+            this.reason = reason;
+        }
+    }
+
+    /**
+     * A step the pre-flight dry run could not match to exactly one step definition
+     */
+    public static class StepProblem {
+        private String status; // UNDEFINED or AMBIGUOUS
+        private String location; // feature:line of the step
+        private String step;
+        private String message; // suggested snippet, or the matching definitions
+
+        public String getStatus() {
+            return status;
+        }
+
+        public void setStatus(String status) {
+            this.status = status;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        public void setLocation(String location) {
+            this.location = location;
+        }
+
+        public String getStep() {
+            return step;
+        }
+
+        public void setStep(String step) {
+            this.step = step;
+        }
+
+        public String getMessage() {
+            return message;
+        }
+
+        public void setMessage(String message) {
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.testautomation.service;
+
+import com.testautomation.model.ExecutionHistory;
+
+import java.util.function.Consumer;
+
+/**
+ * Stops an execution once its failures make the rest of the run pointless:
+ * after {@code maxFailures} failed scenarios, or when more than
+ * {@code maxFailureRate} percent of the scenarios failed once at least
+ * {@code minScenarios} have finished. Zero disables a limit.
+ *
+ * One policy counts the scenarios of all shards of an execution; it fires
+ * at most once.
+ */
+public class AbortPolicy {
+    private final int maxFailures;
+    private final int maxFailureRate;
+    private final int minScenarios;
+    private final Consumer<String> onAbort;
+
+    private int finished;
+    private int failed;
+    private volatile String reason;
+
+    public AbortPolicy(int maxFailures, int maxFailureRate, int minScenarios, Consumer<String> onAbort) {
+        this.maxFailures = maxFailures;
+        this.maxFailureRate = maxFailureRate;
+        this.minScenarios = Math.max(1, minScenarios);
+        this.onAbort = onAbort;
+    }
+
+    public boolean isActive() {
+        return maxFailures > 0 || maxFailureRate > 0;
+    }
+
+    /**
+     * Count a finished scenario and abort the execution, with the reason, if
+     * a limit is reached. Scenarios that finish after the abort were stopped
+     * part-way or never started, so they are marked SKIPPED.
+     */
+    public void onScenarioFinished(ExecutionHistory.ScenarioResult result) {
+        synchronized (this) {
+            if (reason != null) {
+                result.setStatus("SKIPPED");
+                return;
+            }
+            finished++;
+            if (!"PASSED".equals(result.getStatus()) && !"SKIPPED".equals(result.getStatus())) {
+                failed++;
+            }
+            if (maxFailures > 0 && failed >= maxFailures) {
+                reason = "Aborted after " + failed + " failed scenarios (limit " + maxFailures + ")";
+            } else if (maxFailureRate > 0 && finished >= minScenarios && failed * 100 > maxFailureRate * finished) {
+                reason = "Aborted: " + failed + " of " + finished + " scenarios failed (limit " + maxFailureRate
+                        + "% after " + minScenarios + ")";
+            } else {
+                return;
+            }
+        }
+        onAbort.accept(reason);
+    }
+
+    public boolean isTripped() {
+        return reason != null;
+    }
+
+    /**
+     * Why the execution was aborted, or null if it was not
+     */
+    public String getReason() {
+        return reason;
+    }
+}
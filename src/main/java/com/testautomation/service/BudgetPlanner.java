@@ -0,0 +1,161 @@
+package com.testautomation.service;
+
+import com.testautomation.model.ExecutionHistory;
+import io.cucumber.tagexpressions.Expression;
+import io.cucumber.tagexpressions.TagExpressionParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Picks the scenarios of a time-budgeted run.
+ *
+ * The value of running a scenario is the chance that it fails, i.e. that it
+ * tells us something. That chance and the scenario's duration come from the
+ * recent execution history; a scenario with little history is assumed to
+ * fail half of the time. Scenarios are taken by value per second until the
+ * budget is used up; the rest are deferred with the reason.
+ */
+@Service
+public class BudgetPlanner {
+    private static final Logger logger = LoggerFactory.getLogger(BudgetPlanner.class);
+
+    @Autowired
+    private ScenarioStatistics scenarioStatistics;
+
+    @Value("${test.execution.budget.history-runs:20}")
+    private int historyRuns;
+    @Value("${test.execution.shard.default-scenario-millis:30000}")
+    private long defaultScenarioMillis;
+
+    /**
+     * Scenarios to run (as feature or feature:line:line entries, most
+     * valuable feature first) and the ones deferred
+     */
+    public static class Plan {
+        private final List<String> selected = new ArrayList<>();
+        private final List<ExecutionHistory.DeferredScenario> deferred = new ArrayList<>();
+        private int selectedScenarios;
+        private long plannedMillis;
+
+        public List<String> getSelected() {
+            return selected;
+        }
+
+        public List<ExecutionHistory.DeferredScenario> getDeferred() {
+            return deferred;
+        }
+
+        public int getSelectedScenarios() {
+            return selectedScenarios;
+        }
+
+        public long getPlannedMillis() {
+            return plannedMillis;
+        }
+    }
+
+    /**
+     * Choose the scenarios of the entries that match the tag expression and
+     * fit in {@code budgetMillis}
+     */
+    public Plan plan(List<String> entries, String tagExpression, long budgetMillis) {
+        Expression filter = tagExpression == null || tagExpression.isBlank() ? null
+                : TagExpressionParser.parse(tagExpression);
+        Map<String, ScenarioStatistics.Stats> history = scenarioStatistics.load(historyRuns);
+        Plan plan = new Plan();
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (String entry : entries) {
+            String feature = GherkinScenarios.featureOf(entry);
+            List<Integer> only = GherkinScenarios.linesOf(entry);
+            List<GherkinScenarios.Definition> scenarios;
+            try {
+                scenarios = GherkinScenarios.parse(Paths.get(ExecutionRequest.FEATURES_DIR, feature));
+            } catch (IOException | RuntimeException e) {
+                // Cannot be split into scenarios, so it is planned as a whole
+                logger.debug("Could not parse {} for budget planning: {}", feature, e.getMessage());
+                candidates.add(new Candidate(entry, feature, null, feature, history.get(entry)));
+                continue;
+            }
+            for (GherkinScenarios.Definition scenario : scenarios) {
+                if ((only.isEmpty() || only.contains(scenario.getLine()))
+                        && (filter == null || filter.evaluate(scenario.getTags()))) {
+                    String location = feature + ":" + scenario.getLine();
+                    candidates.add(new Candidate(entry, feature, scenario.getLine(), scenario.getName(),
+                            history.get(location)));
+                }
+            }
+        }
+
+        candidates.sort(Comparator.comparingDouble((Candidate c) -> c.failureRate / Math.max(1, c.estimatedMillis))
+                .reversed()
+                .thenComparing(c -> c.feature)
+                .thenComparing(c -> c.line, Comparator.nullsFirst(Comparator.naturalOrder())));
+        long left = budgetMillis;
+        List<Candidate> selected = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            if (candidate.estimatedMillis <= left) {
+                selected.add(candidate);
+                left -= candidate.estimatedMillis;
+                continue;
+            }
+            ExecutionHistory.DeferredScenario deferred = new ExecutionHistory.DeferredScenario();
+            deferred.setLocation(candidate.line != null ? candidate.feature + ":" + candidate.line : candidate.feature);
+            deferred.setName(candidate.name);
+            deferred.setEstimatedMillis(candidate.estimatedMillis);
+            deferred.setFailureRate(Math.round(candidate.failureRate * 1000) / 1000.0);
+            deferred.setReason(candidate.estimatedMillis > budgetMillis ? "Longer than the whole budget"
+                    : "Lower expected value per second than the selected scenarios; " + (left / 1000)
+                            + "s of budget left");
+            plan.deferred.add(deferred);
+        }
+
+        // Features in order of their most valuable scenario, scenarios in file order
+        Map<String, List<Candidate>> byFeature = new LinkedHashMap<>();
+        for (Candidate candidate : selected) {
+            byFeature.computeIfAbsent(candidate.feature, f -> new ArrayList<>()).add(candidate);
+        }
+        byFeature.forEach((feature, chosen) -> {
+            List<Integer> lines = chosen.stream().map(c -> c.line).filter(l -> l != null).sorted().toList();
+            long available = candidates.stream().filter(c -> c.feature.equals(feature)).count();
+            String entry = chosen.get(0).entry;
+            // A whole feature stays a feature entry, so the run's tag expression still applies
+            plan.selected.add(lines.isEmpty() || (chosen.size() == available && entry.equals(feature)) ? entry
+                    : feature + ":" + lines.stream().map(String::valueOf).collect(Collectors.joining(":")));
+        });
+        plan.selectedScenarios = selected.size();
+        plan.plannedMillis = budgetMillis - left;
+        return plan;
+    }
+
+    private class Candidate {
+        private final String entry;
+        private final String feature;
+        private final Integer line;
+        private final String name;
+        private final long estimatedMillis;
+        private final double failureRate;
+
+        Candidate(String entry, String feature, Integer line, String name, ScenarioStatistics.Stats stats) {
+            this.entry = entry;
+            this.feature = feature;
+            this.line = line;
+            this.name = name;
+            this.estimatedMillis = stats != null && stats.getMeanMillis() != null ? stats.getMeanMillis()
+                    : defaultScenarioMillis;
+            this.failureRate = ScenarioStatistics.failureRate(stats);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.testautomation.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Content hash of everything that affects the compiled test classpath
+ * ({@code src/main}, {@code src/test} and {@code pom.xml}).
+ *
+ * The fingerprint of the last successful compile is kept next to the
+ * classes in {@code target/}, so a {@code clean} invalidates it as well.
+ */
+@Service
+public class BuildFingerprintService {
+    private static final Logger logger = LoggerFactory.getLogger(BuildFingerprintService.class);
+    private static final List<String> INPUTS = List.of("pom.xml", "src/main", "src/test");
+    // Written by the running application (history, reports), not build inputs
+    private static final List<Path> EXCLUDED = List.of(Paths.get("src/main/resources/data"),
+            Paths.get("src/main/resources/reports"));
+    private static final Path FINGERPRINT_FILE = Paths.get("target", ".build-fingerprint");
+    private static final Path TEST_CLASSES = Paths.get("target", "test-classes");
+
+    @Value("${test.execution.build-cache.enabled:true}")
+    private boolean enabled;
+    @Value("${test.execution.build-cache.offline:true}")
+    private boolean offline;
+
+    // Per-file hashes, reused while size and modification time are unchanged
+    private final Map<Path, FileHash> fileHashes = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether Maven may run offline when the build is up to date; the
+     * dependencies were resolved by the build that recorded the fingerprint
+     */
+    public boolean isOffline() {
+        return offline;
+    }
+
+    /**
+     * Hash over the relative path and content hash of every input file
+     */
+    public String computeFingerprint() throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (String input : INPUTS) {
+            Path path = Paths.get(input);
+            if (Files.isRegularFile(path)) {
+                files.add(path);
+            } else if (Files.isDirectory(path)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    walk.filter(Files::isRegularFile)
+                            .filter(file -> EXCLUDED.stream().noneMatch(file::startsWith))
+                            .forEach(files::add);
+                }
+            }
+        }
+        files.sort(null);
+
+        MessageDigest digest = newDigest();
+        try {
+            for (Path file : files) {
+                digest.update(file.toString().replace('\\', '/').getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+                digest.update(hashOf(file).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) '\n');
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * True when the compiled classes in target/ were built from exactly this fingerprint
+     */
+    public boolean isUpToDate(String fingerprint) {
+        try {
+            return Files.isDirectory(TEST_CLASSES) && Files.exists(FINGERPRINT_FILE)
+                    && Files.readString(FINGERPRINT_FILE).trim().equals(fingerprint);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Remember the fingerprint the current target/ was compiled from. Only
+     * recorded when the test classes were actually produced.
+     */
+    public void recordBuild(String fingerprint) {
+        if (!Files.isDirectory(TEST_CLASSES)) {
+            return;
+        }
+        try {
+            Files.writeString(FINGERPRINT_FILE, fingerprint);
+            logger.debug("Recorded build fingerprint {}", fingerprint);
+        } catch (IOException e) {
+            logger.warn("Could not record build fingerprint: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * SHA-256 of a single file's content, cached by size and modification time
+     */
+    public String contentHash(Path file) throws IOException {
+        try {
+            return hashOf(file);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private String hashOf(Path file) {
+        try {
+            long size = Files.size(file);
+            long modified = Files.getLastModifiedTime(file).toMillis();
+            FileHash cached = fileHashes.get(file);
+            if (cached != null && cached.size == size && cached.modified == modified) {
+                return cached.hash;
+            }
+            MessageDigest digest = newDigest();
+            try (InputStream in = Files.newInputStream(file)) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            fileHashes.put(file, new FileHash(size, modified, hash));
+            return hash;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static class FileHash {
+        private final long size;
+        private final long modified;
+        private final String hash;
+
+        FileHash(long size, long modified, String hash) {
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.testautomation.service;
+
+import com.testautomation.model.ExecutionHistory;
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.SnippetsSuggestedEvent;
+import io.cucumber.plugin.event.Status;
+import io.cucumber.plugin.event.TestCaseStarted;
+import io.cucumber.plugin.event.TestStepFinished;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Checks the steps of a planned run before any engine starts: a Cucumber dry
+ * run in the server JVM matches every step against the compiled glue without
+ * running it, so undefined and ambiguous steps are found in well under a
+ * second instead of after compiling, starting browsers and reaching them.
+ */
+@Service
+public class DryRunPreflight {
+    private static final Logger logger = LoggerFactory.getLogger(DryRunPreflight.class);
+
+    @Autowired
+    private InProcessCucumberEngine inProcessEngine;
+
+    @Value("${test.execution.preflight.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Outcome of a dry run: how many scenarios it matched and the steps that
+     * have no or more than one definition
+     */
+    public static class Result {
+        private final int scenarios;
+        private final List<ExecutionHistory.StepProblem> problems;
+        private final long durationMillis;
+
+        Result(int scenarios, List<ExecutionHistory.StepProblem> problems, long durationMillis) {
+            this.scenarios = scenarios;
+            this.problems = problems;
+            this.durationMillis = durationMillis;
+        }
+
+        public int getScenarios() {
+            return scenarios;
+        }
+
+        public List<ExecutionHistory.StepProblem> getProblems() {
+            return problems;
+        }
+
+        public long getDurationMillis() {
+            return durationMillis;
+        }
+    }
+
+    /**
+     * Dry-run the scenarios of the feature (or feature:line:line) entries that
+     * match the tag expression. Returns null when the check is disabled or
+     * could not be made, in which case the run goes ahead unchecked.
+     */
+    public Result check(List<String> entries, String tagExpression) {
+        return check(entries, tagExpression, true);
+    }
+
+    /**
+     * Like {@link #check}, but only against glue that is compiled from the
+     * current sources and not being compiled; null when there is none, so a
+     * request can be checked before it is queued without waiting for a compile.
+     */
+    public Result checkCompiled(List<String> entries, String tagExpression) {
+        return check(entries, tagExpression, false);
+    }
+
+    private Result check(List<String> entries, String tagExpression, boolean compile) {
+        if (!enabled) {
+            return null;
+        }
+        long started = System.currentTimeMillis();
+        StepCollector collector = new StepCollector();
+        try {
+            List<String> features = entries.stream().map(f -> ExecutionRequest.FEATURES_DIR + "/" + f).toList();
+            if (!inProcessEngine.dryRun(features, tagExpression, collector, compile)) {
+                logger.debug("No compiled glue to dry-run against; skipping the pre-flight check");
+                return null;
+            }
+        } catch (Exception e) {
+            logger.warn("Pre-flight dry run failed, running unchecked: {}", e.getMessage());
+            return null;
+        }
+        Result result = new Result(collector.scenarios, collector.getProblems(),
+                System.currentTimeMillis() - started);
+        logger.info("Pre-flight dry run of {} scenario(s) took {} ms: {} step problem(s)", result.getScenarios(),
+                result.getDurationMillis(), result.getProblems().size());
+        return result;
+    }
+
+    /**
+     * Collects undefined and ambiguous steps, once per step location
+     */
+    private static class StepCollector implements ConcurrentEventListener {
+        private final Map<String, ExecutionHistory.StepProblem> problems = new LinkedHashMap<>();
+        private final Map<String, List<String>> snippets = new HashMap<>();
+        private int scenarios;
+
+        @Override
+        public void setEventPublisher(EventPublisher publisher) {
+            publisher.registerHandlerFor(TestCaseStarted.class, event -> onTestCaseStarted());
+            publisher.registerHandlerFor(SnippetsSuggestedEvent.class, this::onSnippetsSuggested);
+            publisher.registerHandlerFor(TestStepFinished.class, this::onTestStepFinished);
+        }
+
+        private synchronized void onTestCaseStarted() {
+            scenarios++;
+        }
+
+        private synchronized void onSnippetsSuggested(SnippetsSuggestedEvent event) {
+            snippets.putIfAbsent(locationOf(event.getUri(), event.getStepLocation().getLine()),
+                    event.getSuggestion().getSnippets());
+        }
+
+        private synchronized void onTestStepFinished(TestStepFinished event) {
+            Status status = event.getResult().getStatus();
+            if ((status != Status.UNDEFINED && status != Status.AMBIGUOUS)
+                    || !(event.getTestStep() instanceof PickleStepTestStep step)) {
+                return;
+            }
+            String location = locationOf(step.getUri(), step.getStep().getLine());
+            problems.computeIfAbsent(location, key -> {
+                ExecutionHistory.StepProblem problem = new ExecutionHistory.StepProblem();
+                problem.setStatus(status.name());
+                problem.setLocation(key);
+                problem.setStep(step.getStep().getKeyword() + step.getStep().getText());
+                if (event.getResult().getError() != null) {
+                    problem.setMessage(event.getResult().getError().getMessage());
+                }
+                return problem;
+            });
+        }
+
+        synchronized List<ExecutionHistory.StepProblem> getProblems() {
+            List<ExecutionHistory.StepProblem> found = new ArrayList<>(problems.values());
+            for (ExecutionHistory.StepProblem problem : found) {
+                List<String> suggested = snippets.get(problem.getLocation());
+                if (problem.getMessage() == null && suggested != null && !suggested.isEmpty()) {
+                    problem.setMessage(String.join("\n", suggested));
+                }
+            }
+            return found;
+        }
+
+        /**
+         * Feature path below the features directory, and line
+         */
+        private static String locationOf(URI uri, int line) {
+            if (!"file".equals(uri.getScheme())) {
+                return uri + ":" + line;
+            }
+            Path path = Paths.get(uri);
+            Path features = Paths.get(ExecutionRequest.FEATURES_DIR).toAbsolutePath();
+            String feature = path.startsWith(features) ? features.relativize(path).toString()
+                    : String.valueOf(path.getFileName());
+            return feature + ":" + line;
+        }
+    }
+}
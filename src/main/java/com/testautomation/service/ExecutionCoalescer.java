@@ -0,0 +1,99 @@
+package com.testautomation.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight for run requests: an identical request (same run key, same
+ * test sources) that arrives while a run is in flight attaches to that run
+ * instead of starting another one.
+ *
+ * Only runs started within {@code test.execution.coalesce-window-seconds}
+ * are joined; a run that has been going for longer is not reused.
+ */
+@Service
+public class ExecutionCoalescer {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionCoalescer.class);
+
+    @Autowired
+    private BuildFingerprintService buildFingerprintService;
+
+    @Value("${test.execution.coalesce-window-seconds:60}")
+    private int windowSeconds;
+
+    // Guarded by itself
+    private final Map<String, InFlight> inFlight = new HashMap<>();
+
+    /**
+     * Start the run, or return the id of an identical run in flight.
+     * Returns the id of the execution the caller should follow.
+     */
+    public String startOrAttach(String runKey, String executionId,
+            Supplier<? extends CompletableFuture<?>> start) {
+        if (windowSeconds <= 0) {
+            start.get();
+            return executionId;
+        }
+        String key;
+        try {
+            key = runKey + "|" + buildFingerprintService.computeFingerprint();
+        } catch (IOException e) {
+            logger.warn("Could not fingerprint test sources, not coalescing: {}", e.getMessage());
+            start.get();
+            return executionId;
+        }
+        synchronized (inFlight) {
+            InFlight existing = inFlight.get(key);
+            long now = System.currentTimeMillis();
+            if (existing != null && !existing.future.isDone() && now - existing.startedAt <= windowSeconds * 1000L) {
+                existing.attached++;
+                logger.info("Request {} attached to in-flight execution {} ({})", executionId, existing.executionId,
+                        runKey);
+                return existing.executionId;
+            }
+            CompletableFuture<?> future = start.get();
+            InFlight started = new InFlight(executionId, now, future);
+            inFlight.put(key, started);
+            future.whenComplete((result, error) -> {
+                synchronized (inFlight) {
+                    inFlight.remove(key, started);
+                }
+            });
+            return executionId;
+        }
+    }
+
+    /**
+     * In-flight runs and how many requests attached to each
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        synchronized (inFlight) {
+            inFlight.values().forEach(run -> status.put(run.executionId, run.attached));
+        }
+        return status;
+    }
+
+    private static class InFlight {
+        private final String executionId;
+        private final long startedAt;
+        private final CompletableFuture<?> future;
+        private int attached;
+
+        InFlight(String executionId, long startedAt, CompletableFuture<?> future) {
+            this.executionId = executionId;
+            this.startedAt = startedAt;
+            this.future = future;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.testautomation.service;
+
+/**
+ * Backend that knows how to launch a Cucumber run.
+ *
+ * Implementations are Spring beans and are looked up by {@link #getName()},
+ * which is the value accepted by the {@code engine} request parameter and the
+ * {@code test.execution.engine} property.
+ */
+public interface ExecutionEngine {
+
+    /**
+     * Unique engine name, e.g. "maven" or "in-process"
+     */
+    String getName();
+
+    /**
+     * Whether the engine can run tests in the current environment
+     */
+    boolean isAvailable();
+
+    /**
+     * Human readable reason shown to clients when {@link #isAvailable()} is false
+     */
+    String getUnavailableMessage();
+
+    /**
+     * Start the run described by the request and return immediately
+     */
+    ExecutionHandle start(ExecutionRequest request) throws Exception;
+}
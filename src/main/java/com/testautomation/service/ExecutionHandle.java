@@ -0,0 +1,63 @@
+package com.testautomation.service;
+
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A run started by an {@link ExecutionEngine}.
+ *
+ * Mirrors the subset of {@link Process} the execution pipeline relies on so
+ * forked and in-process runs can be monitored the same way.
+ */
+public interface ExecutionHandle {
+
+    /**
+     * Combined console output of the run
+     */
+    InputStream getOutput();
+
+    boolean isAlive();
+
+    int waitFor() throws InterruptedException;
+
+    boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * Stop the run as quickly as the engine allows
+     */
+    void destroy();
+
+    /**
+     * Wraps a forked process
+     */
+    static ExecutionHandle of(Process process) {
+        return new ExecutionHandle() {
+            @Override
+            public InputStream getOutput() {
+                return process.getInputStream();
+            }
+
+            @Override
+            public boolean isAlive() {
+                return process.isAlive();
+            }
+
+            @Override
+            public int waitFor() throws InterruptedException {
+                return process.waitFor();
+            }
+
+            @Override
+            public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+                return process.waitFor(timeout, unit);
+            }
+
+            @Override
+            public void destroy() {
+                // Maven forks the test JVM, which would outlive its parent
+                process.descendants().forEach(ProcessHandle::destroyForcibly);
+                process.destroyForcibly();
+            }
+        };
+    }
+}
@@ -0,0 +1,191 @@
+package com.testautomation.service;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Open log file of one execution plus a ring buffer of its latest lines.
+ *
+ * Appended lines go to a bounded queue that the log writer thread of
+ * {@link ExecutionLogService} drains, so the thread reading process output
+ * never waits for the disk. When the queue is full, append waits up to
+ * {@code backpressureMillis} for room and then drops the line and counts it.
+ */
+public class ExecutionLog implements AutoCloseable {
+    private final String executionId;
+    private final Writer writer;
+    private final CountingOutputStream counter;
+    private final BlockingQueue<String> pending;
+    private final long backpressureMillis;
+    private final AtomicLong dropped = new AtomicLong();
+    private final int capacity;
+    private final Deque<String> recent;
+    private final Consumer<ExecutionLog> onClose;
+    private int writers;
+    // Lines written since the last flush; guarded by the queue's drain lock (this)
+    private boolean dirty;
+    private boolean closed;
+
+    /**
+     * @param initialSize uncompressed bytes already in the file, when it is appended to
+     */
+    ExecutionLog(String executionId, Path path, boolean compress, long initialSize, int capacity, int queueCapacity,
+            long backpressureMillis, Consumer<ExecutionLog> onClose) throws IOException {
+        this.executionId = executionId;
+        OutputStream file = Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        // Sync flush, so a running execution's log can be read up to the last flush
+        this.counter = new CountingOutputStream(compress ? new GZIPOutputStream(file, 8192, true) : file,
+                initialSize);
+        this.writer = new BufferedWriter(new OutputStreamWriter(counter, StandardCharsets.UTF_8));
+        this.pending = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.backpressureMillis = backpressureMillis;
+        this.capacity = Math.max(1, capacity);
+        this.recent = new ArrayDeque<>(this.capacity);
+        this.onClose = onClose;
+    }
+
+    public String getExecutionId() {
+        return executionId;
+    }
+
+    public void append(String line) {
+        synchronized (recent) {
+            if (recent.size() == capacity) {
+                recent.removeFirst();
+            }
+            recent.addLast(line);
+        }
+        try {
+            if (!pending.offer(line) && !pending.offer(line, backpressureMillis, TimeUnit.MILLISECONDS)) {
+                dropped.incrementAndGet();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Up to {@code lines} of the most recent lines, oldest first
+     */
+    public List<String> tail(int lines) {
+        synchronized (recent) {
+            List<String> all = new ArrayList<>(recent);
+            return new ArrayList<>(all.subList(Math.max(0, all.size() - lines), all.size()));
+        }
+    }
+
+    /**
+     * Lines that did not fit in the queue and were not written
+     */
+    public long getDroppedLines() {
+        return dropped.get();
+    }
+
+    /**
+     * Uncompressed bytes written to the file so far
+     */
+    synchronized long getSize() {
+        return counter.count;
+    }
+
+    /**
+     * Write the queued lines; returns false once the log is closed
+     */
+    synchronized boolean drain() {
+        if (closed) {
+            return false;
+        }
+        String line;
+        while ((line = pending.poll()) != null) {
+            try {
+                writer.write(line);
+                writer.write('\n');
+                dirty = true;
+            } catch (IOException e) {
+                // keep the in-memory tail even if the disk is full
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Write the queued lines and push them to the file
+     */
+    synchronized void flush() throws IOException {
+        if (drain() && dirty) {
+            writer.flush();
+            dirty = false;
+        }
+    }
+
+    synchronized void retain() {
+        writers++;
+    }
+
+    /**
+     * Drop one writer; returns true when it was the last one and the file is closed
+     */
+    synchronized boolean release() throws IOException {
+        if (--writers > 0) {
+            return false;
+        }
+        drain();
+        if (dropped.get() > 0) {
+            writer.write("[" + dropped.get() + " line(s) dropped: the log writer fell behind]\n");
+        }
+        closed = true;
+        writer.close();
+        return true;
+    }
+
+    /**
+     * Release this writer; the file is closed once the last writer is done
+     */
+    @Override
+    public void close() {
+        onClose.accept(this);
+    }
+
+    /**
+     * Counts the uncompressed bytes on their way to the file
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out, long count) {
+            super(out);
+            this.count = count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package com.testautomation.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Writes the output of each execution to its own log file and keeps only
+ * the most recent lines in memory.
+ *
+ * Shards of one execution share a log, so a log stays open until every
+ * writer has closed it. Lines are written by a single writer thread, gzip
+ * compressed when {@code test.execution.log.compress} is set, and flushed
+ * every {@value #FLUSH_MILLIS} ms so a running execution's log can be read.
+ *
+ * The uncompressed size of a gzip log is only known by inflating it, so the
+ * sizes of logs closed since startup are remembered, and reads of a gzip log
+ * go through a cursor that later reads continue from instead of the start.
+ */
+@Service
+public class ExecutionLogService {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionLogService.class);
+    private static final int MAX_RANGE_BYTES = 1024 * 1024;
+    private static final long FLUSH_MILLIS = 200;
+    private static final long CURSOR_IDLE_MILLIS = 60_000;
+    private static final int MAX_KNOWN_SIZES = 1000;
+
+    @Value("${test.execution.log.dir:logs/executions}")
+    private String logDir;
+    @Value("${test.execution.log.tail-lines:200}")
+    private int tailLines;
+    @Value("${test.execution.log.compress:true}")
+    private boolean compress;
+    @Value("${test.execution.log.queue-capacity:10000}")
+    private int queueCapacity;
+    @Value("${test.execution.log.backpressure-millis:100}")
+    private long backpressureMillis;
+
+    private final Map<String, ExecutionLog> openLogs = new ConcurrentHashMap<>();
+    // Uncompressed bytes of closed gzip logs, by execution id, most recently used last
+    private final Map<String, Long> closedSizes = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                    return size() > MAX_KNOWN_SIZES;
+                }
+            });
+    private final Map<Path, CompressedCursor> cursors = new ConcurrentHashMap<>();
+    private ScheduledExecutorService logWriter;
+
+    @PostConstruct
+    void start() {
+        logWriter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "execution-log-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logWriter.scheduleWithFixedDelay(this::flushAll, FLUSH_MILLIS, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+        logWriter.scheduleWithFixedDelay(this::closeIdleCursors, CURSOR_IDLE_MILLIS, CURSOR_IDLE_MILLIS,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        logWriter.shutdownNow();
+        flushAll();
+        cursors.values().forEach(CompressedCursor::close);
+        cursors.clear();
+    }
+
+    private void flushAll() {
+        for (ExecutionLog log : openLogs.values()) {
+            try {
+                log.flush();
+            } catch (IOException e) {
+                logger.warn("Could not write log of {}: {}", log.getExecutionId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Open (or join) the log of an execution. Every call must be paired with
+     * {@link ExecutionLog#close()}.
+     */
+    public ExecutionLog open(String executionId) throws IOException {
+        Files.createDirectories(Paths.get(logDir));
+        try {
+            // Only opening and closing the same execution's log are serialized
+            return openLogs.compute(executionId, (id, log) -> {
+                if (log == null) {
+                    try {
+                        Path path = compress ? compressedPath(id) : plainPath(id);
+                        log = new ExecutionLog(id, path, compress, sizeOf(id, path), tailLines, queueCapacity,
+                                backpressureMillis, this::release);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                log.retain();
+                return log;
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void release(ExecutionLog log) {
+        openLogs.computeIfPresent(log.getExecutionId(), (id, current) -> {
+            if (current != log) {
+                return current;
+            }
+            try {
+                if (!log.release()) {
+                    return log;
+                }
+                closedSizes.put(id, log.getSize());
+            } catch (IOException e) {
+                logger.warn("Could not close log of {}: {}", id, e.getMessage());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Uncompressed bytes already in a log file; only inflates a gzip log that
+     * was not closed since startup
+     */
+    private long sizeOf(String executionId, Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return 0;
+        }
+        if (!isCompressed(path)) {
+            return Files.size(path);
+        }
+        Long known = closedSizes.get(executionId);
+        if (known == null) {
+            known = uncompressedSize(path);
+            closedSizes.put(executionId, known);
+        }
+        return known;
+    }
+
+    public boolean exists(String executionId) {
+        return openLogs.containsKey(executionId) || Files.exists(logPath(executionId));
+    }
+
+    public boolean isOpen(String executionId) {
+        return openLogs.containsKey(executionId);
+    }
+
+    /**
+     * Lines of a running execution that were dropped because the log writer fell behind
+     */
+    public long getDroppedLines(String executionId) {
+        ExecutionLog open = openLogs.get(executionId);
+        return open != null ? open.getDroppedLines() : 0;
+    }
+
+    /**
+     * Last lines of the log, served from memory while the execution is running
+     */
+    public List<String> tail(String executionId, int lines) throws IOException {
+        ExecutionLog open = openLogs.get(executionId);
+        if (open != null && lines <= tailLines) {
+            return open.tail(lines);
+        }
+        if (open != null) {
+            open.flush();
+        }
+        Path path = logPath(executionId);
+        return isCompressed(path) ? readLastCompressedLines(path, lines) : readLastLines(path, lines);
+    }
+
+    /**
+     * Up to {@code limit} bytes of the log starting at {@code offset}, for
+     * incremental polling of a running execution
+     */
+    public Map<String, Object> readRange(String executionId, long offset, int limit) throws IOException {
+        ExecutionLog open = openLogs.get(executionId);
+        if (open != null) {
+            open.flush();
+        }
+        Path path = logPath(executionId);
+        if (isCompressed(path)) {
+            return readCompressedRange(path, open != null ? open.getSize() : sizeOf(executionId, path), offset,
+                    limit);
+        }
+        Map<String, Object> range = new LinkedHashMap<>();
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "r")) {
+            long size = file.length();
+            long start = Math.max(0, Math.min(offset, size));
+            int length = (int) Math.min(Math.min(limit, MAX_RANGE_BYTES), size - start);
+            byte[] buffer = new byte[Math.max(0, length)];
+            file.seek(start);
+            file.readFully(buffer);
+            range.put("offset", start);
+            range.put("nextOffset", start + buffer.length);
+            range.put("size", size);
+            range.put("content", new String(buffer, StandardCharsets.UTF_8));
+        }
+        return range;
+    }
+
+    /**
+     * Uncompressed range of a gzip log. Offsets count uncompressed bytes. The
+     * log's cursor is reused when the range starts at or after it, so polling
+     * a log as it grows inflates every byte once.
+     */
+    private Map<String, Object> readCompressedRange(Path path, long size, long offset, int limit)
+            throws IOException {
+        int length = (int) Math.min(Math.max(0, limit), MAX_RANGE_BYTES);
+        CompressedCursor cursor = cursors.computeIfAbsent(path, CompressedCursor::new);
+        Map<String, Object> range = new LinkedHashMap<>();
+        synchronized (cursor) {
+            byte[] buffer = cursor.read(offset, length);
+            if (buffer.length < length && cursor.position < size) {
+                // The cursor stopped at the end of a gzip member that was appended to since
+                cursor.close();
+                buffer = cursor.read(offset, length);
+            }
+            long start = cursor.position - buffer.length;
+            range.put("offset", start);
+            range.put("nextOffset", cursor.position);
+            range.put("size", size);
+            range.put("content", new String(buffer, StandardCharsets.UTF_8));
+        }
+        return range;
+    }
+
+    private void closeIdleCursors() {
+        long idleSince = System.currentTimeMillis() - CURSOR_IDLE_MILLIS;
+        cursors.values().removeIf(cursor -> {
+            synchronized (cursor) {
+                if (cursor.lastUsed > idleSince) {
+                    return false;
+                }
+                cursor.close();
+                return true;
+            }
+        });
+    }
+
+    private List<String> readLastCompressedLines(Path path, int lines) throws IOException {
+        Deque<String> last = new ArrayDeque<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(openCompressed(path),
+                StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                last.addLast(line);
+                if (last.size() > lines) {
+                    last.removeFirst();
+                }
+            }
+        }
+        return new ArrayList<>(last);
+    }
+
+    private long uncompressedSize(Path path) throws IOException {
+        try (InputStream in = openCompressed(path)) {
+            return in.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+
+    /**
+     * Gzip stream of a log that may still be written; the end of the last
+     * flush counts as the end of the log
+     */
+    private InputStream openCompressed(Path path) throws IOException {
+        return new FilterInputStream(new GZIPInputStream(Files.newInputStream(path))) {
+            @Override
+            public int read() throws IOException {
+                try {
+                    return super.read();
+                } catch (EOFException e) {
+                    return -1;
+                }
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                try {
+                    return super.read(b, off, len);
+                } catch (EOFException e) {
+                    return -1;
+                }
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                try {
+                    return super.skip(n);
+                } catch (EOFException e) {
+                    return 0;
+                }
+            }
+        };
+    }
+
+    /**
+     * Open gzip stream of a log and the uncompressed offset it has been read to
+     */
+    private class CompressedCursor {
+        private final Path path;
+        private InputStream in;
+        private long position;
+        private long lastUsed;
+
+        CompressedCursor(Path path) {
+            this.path = path;
+        }
+
+        /**
+         * Up to {@code length} bytes from {@code offset}, or from the end of the
+         * log when it is shorter
+         */
+        byte[] read(long offset, int length) throws IOException {
+            lastUsed = System.currentTimeMillis();
+            if (in == null || offset < position) {
+                close();
+                in = openCompressed(path);
+            }
+            while (position < offset) {
+                long skipped = in.skip(offset - position);
+                if (skipped <= 0) {
+                    break;
+                }
+                position += skipped;
+            }
+            byte[] buffer = in.readNBytes(length);
+            position += buffer.length;
+            return buffer;
+        }
+
+        void close() {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException ignored) {
+                }
+            }
+            in = null;
+            position = 0;
+        }
+    }
+
+    /**
+     * Log of the execution, compressed or (written before compression was on) plain
+     */
+    private Path logPath(String executionId) {
+        Path compressed = compressedPath(executionId);
+        return Files.exists(compressed) || (compress && !Files.exists(plainPath(executionId)))
+                ? compressed : plainPath(executionId);
+    }
+
+    private Path plainPath(String executionId) {
+        return Paths.get(logDir, executionId.replaceAll("[^A-Za-z0-9_.-]", "_") + ".log");
+    }
+
+    private Path compressedPath(String executionId) {
+        return Paths.get(logDir, executionId.replaceAll("[^A-Za-z0-9_.-]", "_") + ".log.gz");
+    }
+
+    private static boolean isCompressed(Path path) {
+        return path.getFileName().toString().endsWith(".gz");
+    }
+
+    /**
+     * Read backwards from the end of the file until enough line breaks are found
+     */
+    private List<String> readLastLines(Path path, int lines) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path.toFile(), "r")) {
+            long length = file.length();
+            long position = length;
+            int newlines = 0;
+            byte[] block = new byte[8192];
+            while (position > 0 && newlines <= lines) {
+                int read = (int) Math.min(block.length, position);
+                position -= read;
+                file.seek(position);
+                file.readFully(block, 0, read);
+                for (int i = 0; i < read; i++) {
+                    if (block[i] == '\n') {
+                        newlines++;
+                    }
+                }
+            }
+            byte[] tail = new byte[(int) (length - position)];
+            file.seek(position);
+            file.readFully(tail);
+            List<String> all = List.of(new String(tail, StandardCharsets.UTF_8).split("\\R"));
+            // The first line may be cut off when reading did not reach the start of the file
+            int from = Math.max(position > 0 ? 1 : 0, all.size() - lines);
+            return new ArrayList<>(all.subList(Math.min(from, all.size()), all.size()));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.testautomation.service;
+
+/**
+ * Per-request knobs for how an execution is run, as opposed to what is run
+ */
+public class ExecutionOptions {
+    public static final String ORDER_FILE = "file";
+    public static final String ORDER_RISK = "risk";
+
+    private String engine;
+    private boolean parallel;
+    // Abort policy; null means the configured default
+    private Integer maxFailures;
+    private Integer maxFailureRate;
+    private Integer minScenarios;
+    private Integer timeBudgetSeconds;
+    // Scenario order; null means the configured default
+    private String order;
+    private String priority;
+    // Set once the steps passed the dry run made before the request was queued
+    private boolean stepsChecked;
+
+    public String getEngine() {
+        return engine;
+    }
+
+    public ExecutionOptions setEngine(String engine) {
+        this.engine = engine;
+        return this;
+    }
+
+    /**
+     * Split the run into shards executed concurrently
+     */
+    public boolean isParallel() {
+        return parallel;
+    }
+
+    public ExecutionOptions setParallel(boolean parallel) {
+        this.parallel = parallel;
+        return this;
+    }
+
+    /**
+     * Abort the execution after this many failed scenarios
+     */
+    public Integer getMaxFailures() {
+        return maxFailures;
+    }
+
+    public ExecutionOptions setMaxFailures(Integer maxFailures) {
+        this.maxFailures = maxFailures;
+        return this;
+    }
+
+    /**
+     * Abort the execution when more than this percentage of scenarios failed
+     */
+    public Integer getMaxFailureRate() {
+        return maxFailureRate;
+    }
+
+    public ExecutionOptions setMaxFailureRate(Integer maxFailureRate) {
+        this.maxFailureRate = maxFailureRate;
+        return this;
+    }
+
+    /**
+     * Scenarios that must have finished before the failure rate is checked
+     */
+    public Integer getMinScenarios() {
+        return minScenarios;
+    }
+
+    public ExecutionOptions setMinScenarios(Integer minScenarios) {
+        this.minScenarios = minScenarios;
+        return this;
+    }
+
+    /**
+     * Run only the scenarios with the most expected value that fit in this
+     * many seconds
+     */
+    public Integer getTimeBudgetSeconds() {
+        return timeBudgetSeconds;
+    }
+
+    public ExecutionOptions setTimeBudgetSeconds(Integer timeBudgetSeconds) {
+        this.timeBudgetSeconds = timeBudgetSeconds;
+        return this;
+    }
+
+    /**
+     * Order of the scenarios within the run: {@value #ORDER_FILE} or
+     * {@value #ORDER_RISK} (likely failures first)
+     */
+    public String getOrder() {
+        return order;
+    }
+
+    public ExecutionOptions setOrder(String order) {
+        this.order = order;
+        return this;
+    }
+
+    /**
+     * Priority class (low, normal or high); null means normal
+     */
+    public String getPriority() {
+        return priority;
+    }
+
+    public ExecutionOptions setPriority(String priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    boolean isStepsChecked() {
+        return stepsChecked;
+    }
+
+    ExecutionOptions setStepsChecked(boolean stepsChecked) {
+        this.stepsChecked = stepsChecked;
+        return this;
+    }
+}
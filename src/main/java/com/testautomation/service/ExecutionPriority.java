@@ -0,0 +1,26 @@
+package com.testautomation.service;
+
+import java.util.Arrays;
+
+/**
+ * Priority class of an execution. Queued executions of a higher class start
+ * first, and may preempt running executions of a lower class.
+ */
+public enum ExecutionPriority {
+    LOW, NORMAL, HIGH;
+
+    /**
+     * Parse a priority class by name, case-insensitively; blank means {@link #NORMAL}
+     */
+    public static ExecutionPriority parse(String name) {
+        if (name == null || name.isBlank()) {
+            return NORMAL;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown priority: " + name + ". Available: "
+                    + Arrays.toString(values()).toLowerCase());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.testautomation.service;
+
+import io.cucumber.core.backend.DefaultObjectFactory;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Engine-neutral description of a single Cucumber run
+ */
+public class ExecutionRequest {
+    public static final String FEATURES_DIR = "src/test/resources/features";
+    public static final String GLUE_PACKAGE = "com.testautomation.stepdefinitions";
+    // Each run writes its messages and reports below its own directory here
+    public static final String OUTPUT_ROOT = "target/executions";
+    // Execution ids name files and directories, so they may not contain path separators or start with a dot
+    private static final Pattern EXECUTION_ID = Pattern.compile("[A-Za-z0-9][A-Za-z0-9_.-]*");
+    public static final int MAX_EXECUTION_ID_LENGTH = 100;
+
+    private final String executionId;
+    // Feature paths (optionally with :line suffixes); empty means the whole features directory
+    private final List<String> features = new ArrayList<>();
+    private final List<String> plugins = new ArrayList<>();
+    // Feature:line locations to run first, in this order; empty means Cucumber's file order
+    private final List<String> scenarioOrder = new ArrayList<>();
+    private String tagExpression;
+    private boolean clean;
+
+    public ExecutionRequest(String executionId) {
+        if (executionId == null || !EXECUTION_ID.matcher(executionId).matches()) {
+            throw new IllegalArgumentException("Invalid executionId: " + executionId);
+        }
+        this.executionId = executionId;
+    }
+
+    /**
+     * Throws IllegalArgumentException unless a client-supplied execution id is
+     * safe to use in file names
+     */
+    public static void checkExecutionId(String executionId) {
+        if (executionId == null || executionId.length() > MAX_EXECUTION_ID_LENGTH
+                || !EXECUTION_ID.matcher(executionId).matches()) {
+            throw new IllegalArgumentException("Invalid executionId: use up to " + MAX_EXECUTION_ID_LENGTH
+                    + " letters, digits, '_', '.' or '-', starting with a letter or digit");
+        }
+    }
+
+    public String getExecutionId() {
+        return executionId;
+    }
+
+    /**
+     * Directory for this run's own output, so concurrent runs never share files
+     */
+    public Path getOutputDirectory() {
+        return Paths.get(OUTPUT_ROOT, executionId);
+    }
+
+    public List<String> getFeatures() {
+        return features;
+    }
+
+    /**
+     * Replace the features, e.g. to leave out scenarios that need not run
+     */
+    public ExecutionRequest setFeatures(List<String> featurePaths) {
+        this.features.clear();
+        this.features.addAll(featurePaths);
+        return this;
+    }
+
+    public ExecutionRequest addFeature(String featurePath) {
+        this.features.add(featurePath);
+        return this;
+    }
+
+    public List<String> getPlugins() {
+        return plugins;
+    }
+
+    public ExecutionRequest addPlugin(String plugin) {
+        this.plugins.add(plugin);
+        return this;
+    }
+
+    public List<String> getScenarioOrder() {
+        return scenarioOrder;
+    }
+
+    public ExecutionRequest setScenarioOrder(List<String> locations) {
+        this.scenarioOrder.clear();
+        this.scenarioOrder.addAll(locations);
+        return this;
+    }
+
+    public String getTagExpression() {
+        return tagExpression;
+    }
+
+    public ExecutionRequest setTagExpression(String tagExpression) {
+        this.tagExpression = tagExpression;
+        return this;
+    }
+
+    public boolean isClean() {
+        return clean;
+    }
+
+    public ExecutionRequest setClean(boolean clean) {
+        this.clean = clean;
+        return this;
+    }
+
+    /**
+     * Features to pass to Cucumber, defaulting to the features directory
+     */
+    public List<String> getFeaturesOrDefault() {
+        return features.isEmpty() ? List.of(FEATURES_DIR) : features;
+    }
+
+    public boolean hasTagExpression() {
+        return tagExpression != null && !tagExpression.isBlank();
+    }
+
+    /**
+     * Command line for io.cucumber.core.cli.Main, used by engines that run the
+     * Cucumber runtime directly instead of through Maven
+     */
+    public List<String> toCucumberArguments() {
+        List<String> argv = new ArrayList<>();
+        argv.add("--glue");
+        argv.add(GLUE_PACKAGE);
+        // The glue has no Spring context configuration, so bypass cucumber-spring
+        argv.add("--object-factory");
+        argv.add(DefaultObjectFactory.class.getName());
+        argv.add("--plugin");
+        argv.add(InProcessConsolePlugin.class.getName() + ":" + executionId);
+        for (String plugin : plugins) {
+            argv.add("--plugin");
+            argv.add(plugin);
+        }
+        if (hasTagExpression()) {
+            argv.add("--tags");
+            argv.add(tagExpression);
+        }
+        argv.addAll(getFeaturesOrDefault());
+        return argv;
+    }
+}
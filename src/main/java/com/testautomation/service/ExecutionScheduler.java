@@ -0,0 +1,303 @@
+package com.testautomation.service;
+
+import com.testautomation.exception.ExecutionPreemptedException;
+import com.testautomation.exception.ExecutionRejectedException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs executions on a fixed number of slots with a bounded wait queue.
+ *
+ * Executions block on test output for minutes, so they get dedicated
+ * threads instead of the common ForkJoinPool. Submissions beyond the slots
+ * and the queue are rejected with {@link ExecutionRejectedException}.
+ *
+ * Queued executions start by priority class, then in submission order.
+ * When every slot is busy, a submission preempts the lowest-priority running
+ * execution below its own class: the preemption handler stops its processes,
+ * the execution ends with {@link ExecutionPreemptedException} and is queued
+ * again ahead of later executions of its class. An execution is preempted at
+ * most {@code test.execution.scheduler.max-preemptions} times.
+ */
+@Service
+public class ExecutionScheduler {
+    private static final Logger logger = LoggerFactory.getLogger(ExecutionScheduler.class);
+
+    @Value("${test.execution.scheduler.max-concurrent:2}")
+    private int maxConcurrent;
+    @Value("${test.execution.scheduler.queue-capacity:10}")
+    private int queueCapacity;
+    @Value("${test.execution.scheduler.preemption-enabled:true}")
+    private boolean preemptionEnabled;
+    @Value("${test.execution.scheduler.max-preemptions:3}")
+    private int maxPreemptions;
+
+    private ThreadPoolExecutor executor;
+    // Queued and running executions by executionId
+    private final Map<String, ScheduledExecution> executions = new ConcurrentHashMap<>();
+    // Breaks ties between executions queued in the same millisecond
+    private final AtomicInteger submissions = new AtomicInteger();
+    private final AtomicInteger preemptions = new AtomicInteger();
+    // Stops the processes of a preempted execution, by executionId
+    private volatile Consumer<String> preemptionHandler;
+    // Forgets a preemption that came too late to stop a finished execution, by executionId
+    private volatile Consumer<String> completionHandler;
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadIds = new AtomicInteger();
+        // Unbounded so requeued executions always fit; submit enforces the capacity
+        executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new PriorityBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "test-execution-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        logger.info("Execution scheduler started with {} slots and a queue of {}", maxConcurrent, queueCapacity);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Register what stops the processes of an execution chosen for preemption,
+     * and what clears that request once the execution has finished anyway
+     */
+    public void setPreemptionHandler(Consumer<String> preemptionHandler, Consumer<String> completionHandler) {
+        this.preemptionHandler = preemptionHandler;
+        this.completionHandler = completionHandler;
+    }
+
+    /**
+     * Queue the execution with normal priority and return a future for its result
+     *
+     * @throws ExecutionRejectedException when all slots are busy and the queue is full
+     * @throws IllegalArgumentException when an execution with the id is already queued or running
+     */
+    public <T> CompletableFuture<T> submit(String executionId, Supplier<T> task) {
+        return submit(executionId, ExecutionPriority.NORMAL, task);
+    }
+
+    /**
+     * Queue the execution and return a future for its result. The task may
+     * throw {@link ExecutionPreemptedException} to be queued again.
+     *
+     * @throws ExecutionRejectedException when all slots are busy and the queue is full
+     * @throws IllegalArgumentException when an execution with the id is already queued or running
+     */
+    public <T> CompletableFuture<T> submit(String executionId, ExecutionPriority priority, Supplier<T> task) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        ScheduledExecution scheduled = new ScheduledExecution(executionId, priority,
+                () -> future.complete(task.get()), future);
+        synchronized (this) {
+            if (executor.getQueue().size() >= Math.max(1, queueCapacity)) {
+                logger.warn("Rejected execution {}: {} running, {} queued", executionId, executor.getActiveCount(),
+                        executor.getQueue().size());
+                throw new ExecutionRejectedException("Execution capacity reached (" + maxConcurrent + " running, "
+                        + queueCapacity + " queued). Try again later.");
+            }
+            if (executions.putIfAbsent(executionId, scheduled) != null) {
+                throw new IllegalArgumentException("Execution " + executionId + " is already queued or running");
+            }
+            try {
+                executor.execute(scheduled);
+            } catch (RejectedExecutionException e) {
+                executions.remove(executionId);
+                throw new ExecutionRejectedException("Execution scheduler is shut down");
+            }
+            preemptFor(scheduled);
+        }
+        return future;
+    }
+
+    /**
+     * Make room for a queued execution by preempting the lowest-priority,
+     * most recently started execution below its class, if every slot is busy
+     */
+    private void preemptFor(ScheduledExecution waiting) {
+        Consumer<String> handler = preemptionHandler;
+        if (!preemptionEnabled || handler == null || !executor.getQueue().contains(waiting)) {
+            return;
+        }
+        List<ScheduledExecution> running = executions.values().stream().filter(e -> e.startedAt > 0).toList();
+        if (running.size() < maxConcurrent) {
+            return;
+        }
+        ScheduledExecution victim = running.stream()
+                .filter(e -> !e.preempting && e.preemptions < maxPreemptions
+                        && e.priority.compareTo(waiting.priority) < 0)
+                .min(Comparator.comparing((ScheduledExecution e) -> e.priority)
+                        .thenComparing(e -> -e.startedAt))
+                .orElse(null);
+        if (victim == null) {
+            return;
+        }
+        victim.preempting = true;
+        logger.info("Preempting {} execution {} for {} execution {}", victim.priority, victim.executionId,
+                waiting.priority, waiting.executionId);
+        try {
+            handler.accept(victim.executionId);
+        } catch (RuntimeException e) {
+            victim.preempting = false;
+            logger.warn("Could not preempt execution {}: {}", victim.executionId, e.getMessage());
+        }
+    }
+
+    /**
+     * Queue a preempted execution again, keeping its place among its class
+     */
+    private synchronized void requeue(ScheduledExecution scheduled, ExecutionPreemptedException cause) {
+        scheduled.preemptions++;
+        scheduled.preempting = false;
+        scheduled.startedAt = 0;
+        preemptions.incrementAndGet();
+        try {
+            executor.execute(scheduled);
+            logger.info("Execution {} requeued after preemption {} of {}", scheduled.executionId,
+                    scheduled.preemptions, maxPreemptions);
+        } catch (RejectedExecutionException e) {
+            scheduled.complete();
+            scheduled.future.completeExceptionally(cause);
+        }
+    }
+
+    /**
+     * Remove an execution that has not started yet. Returns true if it was queued.
+     */
+    public boolean cancelQueued(String executionId) {
+        ScheduledExecution scheduled = executions.get(executionId);
+        if (scheduled == null || scheduled.startedAt > 0 || !executor.remove(scheduled)) {
+            return false;
+        }
+        executions.remove(executionId);
+        scheduled.future.cancel(false);
+        return true;
+    }
+
+    /**
+     * Scheduling state of a queued or running execution, or null once it has finished
+     */
+    public Map<String, Object> getExecutionState(String executionId) {
+        ScheduledExecution scheduled = executions.get(executionId);
+        if (scheduled == null) {
+            return null;
+        }
+        Map<String, Object> state = new LinkedHashMap<>();
+        long now = System.currentTimeMillis();
+        if (scheduled.startedAt > 0) {
+            state.put("state", "RUNNING");
+            state.put("waitMillis", scheduled.startedAt - scheduled.queuedAt);
+        } else {
+            int position = 1;
+            for (Runnable queued : executor.getQueue()) {
+                if (queued != scheduled && ((ScheduledExecution) queued).compareTo(scheduled) < 0) {
+                    position++;
+                }
+            }
+            state.put("state", "QUEUED");
+            state.put("queuePosition", position);
+            state.put("waitMillis", now - scheduled.queuedAt);
+        }
+        state.put("priority", scheduled.priority.name().toLowerCase());
+        state.put("preemptions", scheduled.preemptions);
+        return state;
+    }
+
+    /**
+     * Slot and queue usage for the status endpoint
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("maxConcurrent", maxConcurrent);
+        status.put("running", executor.getActiveCount());
+        status.put("queueCapacity", queueCapacity);
+        status.put("queued", executor.getQueue().size());
+        status.put("preemptionEnabled", preemptionEnabled);
+        status.put("preemptions", preemptions.get());
+        return status;
+    }
+
+    /**
+     * A submitted execution, its priority and the times it was queued and started
+     */
+    private class ScheduledExecution implements Runnable, Comparable<ScheduledExecution> {
+        private final String executionId;
+        private final ExecutionPriority priority;
+        private final Runnable body;
+        private final CompletableFuture<?> future;
+        // Kept when requeued, so a preempted execution goes first among its class
+        private final long queuedAt = System.currentTimeMillis();
+        private final int sequence = submissions.incrementAndGet();
+        private volatile long startedAt;
+        private volatile boolean preempting;
+        private volatile int preemptions;
+
+        ScheduledExecution(String executionId, ExecutionPriority priority, Runnable body,
+                CompletableFuture<?> future) {
+            this.executionId = executionId;
+            this.priority = priority;
+            this.body = body;
+            this.future = future;
+        }
+
+        @Override
+        public void run() {
+            startedAt = System.currentTimeMillis();
+            logger.debug("Execution {} started after {} ms in queue", executionId, startedAt - queuedAt);
+            try {
+                body.run();
+            } catch (ExecutionPreemptedException e) {
+                requeue(this, e);
+                return;
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+            complete();
+        }
+
+        /**
+         * Forget the finished execution. Under the scheduler's lock, so it can
+         * no longer be chosen for preemption once this returns.
+         */
+        void complete() {
+            synchronized (ExecutionScheduler.this) {
+                executions.remove(executionId, this);
+                preempting = false;
+            }
+            Consumer<String> handler = completionHandler;
+            if (handler != null) {
+                handler.accept(executionId);
+            }
+        }
+
+        @Override
+        public int compareTo(ScheduledExecution other) {
+            int byPriority = other.priority.compareTo(priority);
+            if (byPriority != 0) {
+                return byPriority;
+            }
+            return queuedAt != other.queuedAt ? Long.compare(queuedAt, other.queuedAt)
+                    : Integer.compare(sequence, other.sequence);
+        }
+    }
+}
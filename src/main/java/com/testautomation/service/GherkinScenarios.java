@@ -0,0 +1,147 @@
+package com.testautomation.service;
+
+import io.cucumber.gherkin.GherkinParser;
+import io.cucumber.messages.types.Envelope;
+import io.cucumber.messages.types.Examples;
+import io.cucumber.messages.types.FeatureChild;
+import io.cucumber.messages.types.GherkinDocument;
+import io.cucumber.messages.types.Pickle;
+import io.cucumber.messages.types.PickleStep;
+import io.cucumber.messages.types.PickleTableCell;
+import io.cucumber.messages.types.PickleTableRow;
+import io.cucumber.messages.types.PickleTag;
+import io.cucumber.messages.types.RuleChild;
+import io.cucumber.messages.types.Scenario;
+import io.cucumber.messages.types.TableRow;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Reads the scenarios (and example rows) Cucumber would run for a feature
+ * file, with the line Cucumber reports for each of them
+ */
+final class GherkinScenarios {
+    private static final GherkinParser PARSER = GherkinParser.builder()
+            .includeSource(false)
+            .includeGherkinDocument(true)
+            .includePickles(true)
+            .build();
+
+    private GherkinScenarios() {
+    }
+
+    /**
+     * A runnable scenario: its line, tags (inherited ones included) and its
+     * text with background steps, arguments and example values filled in
+     */
+    static class Definition {
+        private final int line;
+        private final String name;
+        private final List<String> tags;
+        private final String text;
+
+        Definition(int line, String name, List<String> tags, String text) {
+            this.line = line;
+            this.name = name;
+            this.tags = tags;
+            this.text = text;
+        }
+
+        int getLine() {
+            return line;
+        }
+
+        String getName() {
+            return name;
+        }
+
+        List<String> getTags() {
+            return tags;
+        }
+
+        String getText() {
+            return text;
+        }
+    }
+
+    static List<Definition> parse(Path featureFile) throws IOException {
+        Map<String, Integer> nodeLines = new HashMap<>();
+        List<Definition> definitions = new ArrayList<>();
+        try (Stream<Envelope> envelopes = PARSER.parse(featureFile)) {
+            envelopes.forEach(envelope -> {
+                envelope.getGherkinDocument().flatMap(GherkinDocument::getFeature)
+                        .ifPresent(f -> collectLines(f.getChildren(), nodeLines));
+                envelope.getPickle().ifPresent(pickle -> {
+                    List<String> astNodeIds = pickle.getAstNodeIds();
+                    Integer line = nodeLines.get(astNodeIds.get(astNodeIds.size() - 1));
+                    if (line != null) {
+                        definitions.add(new Definition(line, pickle.getName(),
+                                pickle.getTags().stream().map(PickleTag::getName).toList(), textOf(pickle)));
+                    }
+                });
+            });
+        }
+        return definitions;
+    }
+
+    /**
+     * Feature file of a feature or Cucumber feature:line:line entry
+     */
+    static String featureOf(String entry) {
+        int lines = entry.indexOf(':', entry.lastIndexOf(".feature"));
+        return lines < 0 ? entry : entry.substring(0, lines);
+    }
+
+    /**
+     * Lines of a feature:line:line entry; empty for a whole feature
+     */
+    static List<Integer> linesOf(String entry) {
+        String feature = featureOf(entry);
+        if (feature.length() == entry.length()) {
+            return List.of();
+        }
+        return Stream.of(entry.substring(feature.length() + 1).split(":")).map(Integer::valueOf).toList();
+    }
+
+    private static String textOf(Pickle pickle) {
+        StringBuilder text = new StringBuilder(pickle.getName()).append('\n');
+        for (PickleStep step : pickle.getSteps()) {
+            text.append(step.getText()).append('\n');
+            step.getArgument().ifPresent(argument -> {
+                argument.getDocString().ifPresent(docString -> text.append(docString.getContent()).append('\n'));
+                argument.getDataTable().ifPresent(table -> {
+                    for (PickleTableRow row : table.getRows()) {
+                        row.getCells().stream().map(PickleTableCell::getValue)
+                                .forEach(value -> text.append('|').append(value));
+                        text.append('\n');
+                    }
+                });
+            });
+        }
+        return text.toString();
+    }
+
+    private static void collectLines(List<FeatureChild> children, Map<String, Integer> nodeLines) {
+        for (FeatureChild child : children) {
+            child.getScenario().ifPresent(scenario -> collectLines(scenario, nodeLines));
+            child.getRule().ifPresent(rule -> rule.getChildren().stream()
+                    .map(RuleChild::getScenario)
+                    .forEach(scenario -> scenario.ifPresent(s -> collectLines(s, nodeLines))));
+        }
+    }
+
+    private static void collectLines(Scenario scenario, Map<String, Integer> nodeLines) {
+        nodeLines.put(scenario.getId(), scenario.getLocation().getLine().intValue());
+        for (Examples examples : scenario.getExamples()) {
+            for (TableRow row : examples.getTableBody()) {
+                nodeLines.put(row.getId(), row.getLocation().getLine().intValue());
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.testautomation.service;
+
+import io.cucumber.plugin.ConcurrentEventListener;
+import io.cucumber.plugin.event.EventPublisher;
+import io.cucumber.plugin.event.PickleStepTestStep;
+import io.cucumber.plugin.event.Status;
+import io.cucumber.plugin.event.TestCaseFinished;
+import io.cucumber.plugin.event.TestCaseStarted;
+import io.cucumber.plugin.event.TestRunFinished;
+import io.cucumber.plugin.event.TestStepFinished;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cucumber plugin that writes console lines for an in-process run to the
+ * stream registered for its execution id.
+ *
+ * Cucumber instantiates plugins by class name, so the output stream is handed
+ * over through a static registry keyed by the plugin argument.
+ *
+ * It is also how an in-process run is stopped: once its execution id is
+ * cancelled, every scenario that starts fails before its first step.
+ */
+public class InProcessConsolePlugin implements ConcurrentEventListener {
+    private static final Map<String, OutputStream> SINKS = new ConcurrentHashMap<>();
+    private static final Set<String> CANCELLED = ConcurrentHashMap.newKeySet();
+
+    private final String executionId;
+
+    private final OutputStream sink;
+    private int scenarios;
+    private int passedScenarios;
+    private int failedScenarios;
+    private int steps;
+    private int passedSteps;
+    private int failedSteps;
+
+    public InProcessConsolePlugin(String executionId) {
+        this.executionId = executionId;
+        this.sink = SINKS.getOrDefault(executionId, OutputStream.nullOutputStream());
+    }
+
+    public static void register(String executionId, OutputStream sink) {
+        SINKS.put(executionId, sink);
+    }
+
+    public static void unregister(String executionId) {
+        SINKS.remove(executionId);
+        CANCELLED.remove(executionId);
+    }
+
+    /**
+     * Stop the run before its next scenario; Cucumber has no other way to stop
+     */
+    public static void cancel(String executionId) {
+        if (SINKS.containsKey(executionId)) {
+            CANCELLED.add(executionId);
+        }
+    }
+
+    @Override
+    public void setEventPublisher(EventPublisher publisher) {
+        publisher.registerHandlerFor(TestCaseStarted.class, this::onTestCaseStarted);
+        publisher.registerHandlerFor(TestStepFinished.class, this::onTestStepFinished);
+        publisher.registerHandlerFor(TestCaseFinished.class, this::onTestCaseFinished);
+        publisher.registerHandlerFor(TestRunFinished.class, this::onTestRunFinished);
+    }
+
+    private void onTestCaseStarted(TestCaseStarted event) {
+        if (CANCELLED.contains(executionId)) {
+            throw new CancellationException("Run " + executionId + " was stopped");
+        }
+        write("Scenario: " + event.getTestCase().getName() + " # " + event.getTestCase().getUri() + ":"
+                + event.getTestCase().getLocation().getLine());
+    }
+
+    private void onTestStepFinished(TestStepFinished event) {
+        if (!(event.getTestStep() instanceof PickleStepTestStep step)) {
+            return;
+        }
+        Status status = event.getResult().getStatus();
+        steps++;
+        if (status == Status.PASSED) {
+            passedSteps++;
+        } else if (status == Status.FAILED) {
+            failedSteps++;
+        }
+        write("  " + status + " " + step.getStep().getKeyword() + step.getStep().getText());
+        if (event.getResult().getError() != null) {
+            write("    " + event.getResult().getError());
+        }
+    }
+
+    private void onTestCaseFinished(TestCaseFinished event) {
+        scenarios++;
+        if (event.getResult().getStatus() == Status.PASSED) {
+            passedScenarios++;
+        } else if (event.getResult().getStatus() == Status.FAILED) {
+            failedScenarios++;
+        }
+    }
+
+    private void onTestRunFinished(TestRunFinished event) {
+        Duration duration = event.getResult().getDuration();
+        write("");
+        write(scenarios + " Scenarios (" + passedScenarios + " passed, " + failedScenarios + " failed)");
+        write(steps + " Steps (" + passedSteps + " passed, " + failedSteps + " failed)");
+        write(String.format("%dm %d.%03ds", duration.toMinutes(), duration.toSecondsPart(), duration.toMillisPart()));
+    }
+
+    private synchronized void write(String line) {
+        try {
+            sink.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+            sink.flush();
+        } catch (IOException ignored) {
+            // reader went away, e.g. the execution was cancelled
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package com.testautomation.service;
+
+import io.cucumber.core.backend.DefaultObjectFactory;
+import io.cucumber.core.options.CommandlineOptionsParser;
+import io.cucumber.core.options.RuntimeOptions;
+import io.cucumber.core.runtime.Runtime;
+import io.cucumber.plugin.Plugin;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the Cucumber runtime inside the server JVM against the already compiled
+ * glue in {@code target/test-classes}, skipping Maven start-up and compilation.
+ *
+ * Each run gets its own class loader so static state in step definitions
+ * (e.g. the shared WebDriver) does not leak between concurrent runs.
+ */
+@Service
+public class InProcessCucumberEngine implements ExecutionEngine {
+    private static final Logger logger = LoggerFactory.getLogger(InProcessCucumberEngine.class);
+    public static final String NAME = "in-process";
+
+    @Autowired
+    private MavenExecutionEngine mavenEngine;
+
+    @Autowired
+    private BuildFingerprintService buildCache;
+
+    @Value("${test.execution.in-process.test-classes:target/test-classes}")
+    private String testClassesDir;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return getGlueDirectory().isDirectory();
+    }
+
+    @Override
+    public String getUnavailableMessage() {
+        return "Compiled step definitions not found in '" + getGlueDirectory().getPath()
+                + "'. Run 'mvn test-compile' before using the in-process engine.";
+    }
+
+    @Override
+    public ExecutionHandle start(ExecutionRequest request) throws Exception {
+        MavenExecutionEngine.CompiledClasses classes = acquireClasses();
+        String executionId = request.getExecutionId();
+        PipedInputStream output;
+        PipedOutputStream sink;
+        URLClassLoader classLoader;
+        try {
+            if (!isAvailable()) {
+                throw new IllegalStateException(getUnavailableMessage());
+            }
+            Files.createDirectories(request.getOutputDirectory());
+            output = new PipedInputStream(64 * 1024);
+            sink = new PipedOutputStream(output);
+            classLoader = new URLClassLoader(new URL[] { testClassesOf(classes).toURI().toURL() },
+                    getClass().getClassLoader());
+        } catch (Exception e) {
+            classes.release();
+            throw e;
+        }
+        InProcessConsolePlugin.register(executionId, sink);
+        String[] argv = request.toCucumberArguments().toArray(new String[0]);
+        List<String> order = List.copyOf(request.getScenarioOrder());
+
+        InProcessHandle handle = new InProcessHandle(executionId, output);
+        Thread runner = new Thread(() -> {
+            int exitCode = 1;
+            try {
+                logger.info("Starting in-process Cucumber run: {}", String.join(" ", argv));
+                exitCode = ScenarioOrder.run(argv, order, classLoader);
+            } catch (Throwable t) {
+                logger.error("In-process run failed (executionId={})", executionId, t);
+                writeQuietly(sink, "In-process run failed: " + t.getMessage() + "\n");
+            } finally {
+                InProcessConsolePlugin.unregister(executionId);
+                writeQuietly(sink, "Cucumber exited with status " + exitCode + "\n");
+                closeQuietly(sink);
+                closeQuietly(classLoader);
+                classes.release();
+                handle.finish(exitCode);
+            }
+        }, "in-process-" + executionId);
+        runner.setContextClassLoader(classLoader);
+        runner.setDaemon(true);
+        handle.runner = runner;
+        runner.start();
+        return handle;
+    }
+
+    /**
+     * Match the steps of the features against the compiled glue without
+     * running them (Cucumber's dry run), on the calling thread, reporting to
+     * the plugin. Without {@code compile}, only glue compiled from the current
+     * sources is used, as it is. Returns false when there is no compiled glue
+     * to match against.
+     */
+    boolean dryRun(List<String> features, String tagExpression, Plugin plugin, boolean compile)
+            throws Exception {
+        MavenExecutionEngine.CompiledClasses classes = compile ? acquireClasses() : mavenEngine.tryHoldClasses();
+        if (classes == null) {
+            return false;
+        }
+        Thread thread = Thread.currentThread();
+        ClassLoader previous = thread.getContextClassLoader();
+        try (URLClassLoader classLoader = new URLClassLoader(new URL[] { testClassesOf(classes).toURI().toURL() },
+                getClass().getClassLoader())) {
+            if (!isAvailable()) {
+                return false;
+            }
+            List<String> argv = new ArrayList<>(List.of("--dry-run", "--glue", ExecutionRequest.GLUE_PACKAGE,
+                    "--object-factory", DefaultObjectFactory.class.getName()));
+            if (tagExpression != null && !tagExpression.isBlank()) {
+                argv.add("--tags");
+                argv.add(tagExpression);
+            }
+            argv.addAll(features);
+            RuntimeOptions runtimeOptions = new CommandlineOptionsParser(System.out)
+                    .parse(argv.toArray(new String[0]))
+                    .build();
+            thread.setContextClassLoader(classLoader);
+            Runtime.builder()
+                    .withRuntimeOptions(runtimeOptions)
+                    .withClassLoader(() -> classLoader)
+                    .withAdditionalPlugins(plugin)
+                    .build()
+                    .run();
+            return true;
+        } finally {
+            thread.setContextClassLoader(previous);
+            classes.release();
+        }
+    }
+
+    /**
+     * Recompile the glue when the sources changed since the last build, so runs
+     * never execute stale step definitions, and keep the classes from being
+     * recompiled while this run uses them
+     */
+    private MavenExecutionEngine.CompiledClasses acquireClasses() throws Exception {
+        if (!buildCache.isEnabled()) {
+            return mavenEngine.lockClasses();
+        }
+        try {
+            return mavenEngine.prepareClasses(false);
+        } catch (IOException e) {
+            logger.warn("Could not check or compile test sources; using existing classes: {}", e.getMessage());
+            return mavenEngine.lockClasses();
+        }
+    }
+
+    /**
+     * The configured test classes, or those of the separate build the run holds
+     */
+    private File testClassesOf(MavenExecutionEngine.CompiledClasses classes) {
+        Path separate = classes.getSeparateDirectory();
+        return separate == null ? new File(testClassesDir) : separate.resolve("test-classes").toFile();
+    }
+
+    private File getGlueDirectory() {
+        return new File(testClassesDir, ExecutionRequest.GLUE_PACKAGE.replace('.', '/'));
+    }
+
+    private static void writeQuietly(PipedOutputStream sink, String text) {
+        try {
+            sink.write(text.getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception ignored) {
+        }
+    }
+
+    /**
+     * Handle backed by the runner thread instead of an OS process
+     */
+    private static class InProcessHandle implements ExecutionHandle {
+        private final String executionId;
+        private final InputStream output;
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile int exitCode = -1;
+        private volatile Thread runner;
+
+        InProcessHandle(String executionId, InputStream output) {
+            this.executionId = executionId;
+            this.output = output;
+        }
+
+        void finish(int exitCode) {
+            this.exitCode = exitCode;
+            finished.countDown();
+        }
+
+        @Override
+        public InputStream getOutput() {
+            return output;
+        }
+
+        @Override
+        public boolean isAlive() {
+            return finished.getCount() > 0;
+        }
+
+        @Override
+        public int waitFor() throws InterruptedException {
+            finished.await();
+            return exitCode;
+        }
+
+        @Override
+        public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+            return finished.await(timeout, unit);
+        }
+
+        @Override
+        public void destroy() {
+            // Remaining scenarios fail on start; interrupting the runner only
+            // unblocks sleeps and waits inside the current step definition
+            InProcessConsolePlugin.cancel(executionId);
+            Thread thread = runner;
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+}
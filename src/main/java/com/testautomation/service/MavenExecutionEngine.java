@@ -0,0 +1,504 @@
+package com.testautomation.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Runs tests by forking Maven; the original execution backend.
+ *
+ * Test classes are compiled once into the shared {@code target/} and then
+ * only read by runs ({@code mvn surefire:test}), while every run writes its
+ * reports to its own {@link ExecutionRequest#getOutputDirectory()}. Sources
+ * changed while runs use {@code target/} are compiled into a directory below
+ * {@value #SEPARATE_BUILDS} instead ({@code -Dbuild.dir}).
+ */
+@Service
+public class MavenExecutionEngine implements ExecutionEngine {
+    private static final Logger logger = LoggerFactory.getLogger(MavenExecutionEngine.class);
+    public static final String NAME = "maven";
+    private static final int COMPILE_ERROR_LINES = 20;
+    private static final List<String> COMPILED_CLASSES = List.of("target/classes", "target/test-classes");
+    private static final String SEPARATE_BUILDS = "target/builds";
+
+    @Autowired
+    private BuildFingerprintService buildCache;
+
+    @Value("${maven.home:}")
+    private String mavenHome;
+
+    @Value("${test.execution.maven.command:mvn}")
+    private String configuredMavenCommand;
+
+    // Guards the shared target/ classes: runs hold a read stamp while they use
+    // them, compiling into target/ takes the write stamp, but only when no run
+    // holds a read stamp. A StampedLock because a run's stamp is released from
+    // another thread when its process exits.
+    private final StampedLock classesLock = new StampedLock();
+    // Only one compile at a time, whether into target/ or a separate directory
+    private final Object compileMutex = new Object();
+    // Builds compiled next to target/ while it was in use, by fingerprint (or run
+    // number without the build cache); deleted when their last run releases them
+    private final Map<String, Build> separateBuilds = new HashMap<>();
+    private final AtomicLong buildNumber = new AtomicLong();
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        try {
+            validateMavenCommandAvailable();
+            return true;
+        } catch (IllegalStateException e) {
+            logger.warn("Maven not available: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public String getUnavailableMessage() {
+        return "Maven command not found. Configure 'test.execution.maven.command' or add a Maven wrapper.";
+    }
+
+    @Override
+    public ExecutionHandle start(ExecutionRequest request) throws Exception {
+        CompiledClasses classes = prepareClasses(request.isClean());
+        try {
+            Files.createDirectories(request.getOutputDirectory());
+            Process process = executeMavenCommand(buildArguments(request, classes));
+            process.onExit().thenRun(classes::release);
+            return ExecutionHandle.of(process);
+        } catch (Exception e) {
+            classes.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Make sure the compiled classes are current and hold them for a run.
+     * Compiles one at a time, and never while a run uses target/: when the
+     * sources changed while runs still hold target/, they are compiled into
+     * a separate build directory that later runs with the same sources share,
+     * and that is moved into target/ once target/ and the build are both free.
+     * Without the build cache the classes are recompiled for every run.
+     * Release the returned classes when the run is done.
+     */
+    public CompiledClasses prepareClasses(boolean clean) throws Exception {
+        String fingerprint = buildCache.isEnabled() ? buildCache.computeFingerprint() : null;
+        CompiledClasses current = holdIfUpToDate(fingerprint);
+        if (current != null) {
+            return current;
+        }
+        synchronized (compileMutex) {
+            // Another run may have compiled the same sources while this one waited
+            current = holdIfUpToDate(fingerprint);
+            if (current != null) {
+                return current;
+            }
+            String key = fingerprint != null ? fingerprint.substring(0, 16) : null;
+            Build built;
+            synchronized (separateBuilds) {
+                discardIdleBuilds(key);
+                built = key != null ? separateBuilds.get(key) : null;
+                if (built != null && built.runs > 0) {
+                    built.runs++;
+                    return new CompiledClasses(this, 0, built);
+                }
+            }
+            long stamp = classesLock.tryWriteLock();
+            if (stamp != 0) {
+                try {
+                    if (built == null || !moveIntoTarget(built, fingerprint)) {
+                        compile(clean, null, fingerprint);
+                    }
+                    return new CompiledClasses(this, classesLock.tryConvertToReadLock(stamp), null);
+                } catch (Exception e) {
+                    classesLock.unlockWrite(stamp);
+                    throw e;
+                }
+            }
+            if (built == null) {
+                built = new Build(key, Paths.get(SEPARATE_BUILDS, key != null ? key
+                        : "run-" + buildNumber.incrementAndGet()).toAbsolutePath());
+                logger.info("Compiled classes in target/ are in use; compiling into {}", built.directory);
+                try {
+                    FileSystemUtils.deleteRecursively(built.directory);
+                    compile(false, built.directory, null);
+                } catch (Exception e) {
+                    FileSystemUtils.deleteRecursively(built.directory);
+                    throw e;
+                }
+            }
+            synchronized (separateBuilds) {
+                built.runs++;
+                if (key != null) {
+                    separateBuilds.put(key, built);
+                }
+            }
+            return new CompiledClasses(this, 0, built);
+        }
+    }
+
+    /**
+     * Hold the compiled classes as they are, without checking or compiling them
+     */
+    public CompiledClasses lockClasses() {
+        return new CompiledClasses(this, classesLock.readLock(), null);
+    }
+
+    /**
+     * Hold target/ without compiling or waiting: null while it is being
+     * compiled, or when it was compiled from other sources than the current ones
+     */
+    public CompiledClasses tryHoldClasses() throws IOException {
+        String fingerprint = buildCache.isEnabled() ? buildCache.computeFingerprint() : null;
+        long stamp = classesLock.tryReadLock();
+        if (stamp == 0) {
+            return null;
+        }
+        if (fingerprint == null || buildCache.isUpToDate(fingerprint)) {
+            return new CompiledClasses(this, stamp, null);
+        }
+        classesLock.unlockRead(stamp);
+        return null;
+    }
+
+    /**
+     * Hold target/ when it was compiled from the fingerprint; null otherwise
+     */
+    private CompiledClasses holdIfUpToDate(String fingerprint) {
+        if (fingerprint == null) {
+            return null;
+        }
+        long stamp = classesLock.readLock();
+        if (buildCache.isUpToDate(fingerprint)) {
+            return new CompiledClasses(this, stamp, null);
+        }
+        classesLock.unlockRead(stamp);
+        return null;
+    }
+
+    /**
+     * Replace the classes in target/ with those of an unused separate build.
+     * Called with the write stamp held; false when the move failed and
+     * target/ has to be compiled instead.
+     */
+    private boolean moveIntoTarget(Build build, String fingerprint) {
+        synchronized (separateBuilds) {
+            separateBuilds.remove(build.key, build);
+        }
+        try {
+            for (String classes : COMPILED_CLASSES) {
+                Path target = Paths.get(classes);
+                FileSystemUtils.deleteRecursively(target);
+                Files.move(build.directory.resolve(target.getFileName()), target);
+            }
+            buildCache.recordBuild(fingerprint);
+            logger.info("Moved the classes compiled in {} into target/", build.directory);
+            return true;
+        } catch (IOException e) {
+            logger.warn("Could not move {} into target/, compiling instead: {}", build.directory, e.getMessage());
+            return false;
+        } finally {
+            deleteQuietly(build.directory);
+        }
+    }
+
+    /**
+     * Delete the separate builds no run uses, except the one of the current
+     * sources. Called holding the separateBuilds lock.
+     */
+    private void discardIdleBuilds(String currentKey) {
+        separateBuilds.values().removeIf(build -> {
+            if (build.runs > 0 || build.key.equals(currentKey)) {
+                return false;
+            }
+            deleteQuietly(build.directory);
+            return true;
+        });
+    }
+
+    private void release(long stamp, Build build) {
+        if (build == null) {
+            classesLock.unlockRead(stamp);
+            return;
+        }
+        synchronized (separateBuilds) {
+            // Builds of the current sources stay until they are moved into target/
+            if (--build.runs > 0 || build.key != null) {
+                return;
+            }
+        }
+        deleteQuietly(build.directory);
+    }
+
+    private static void deleteQuietly(Path directory) {
+        try {
+            FileSystemUtils.deleteRecursively(directory);
+        } catch (IOException e) {
+            logger.warn("Could not delete build directory {}: {}", directory, e.getMessage());
+        }
+    }
+
+    /**
+     * Compiled classes held by a run: the shared target/, or a separate build
+     * directory. Released once; releasing again has no effect.
+     */
+    public static class CompiledClasses {
+        private final MavenExecutionEngine engine;
+        private final long stamp;
+        private final Build build;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        CompiledClasses(MavenExecutionEngine engine, long stamp, Build build) {
+            this.engine = engine;
+            this.stamp = stamp;
+            this.build = build;
+        }
+
+        /**
+         * Build directory holding classes/ and test-classes/, or null for target/
+         */
+        public Path getSeparateDirectory() {
+            return build == null ? null : build.directory;
+        }
+
+        public void release() {
+            if (released.compareAndSet(false, true)) {
+                engine.release(stamp, build);
+            }
+        }
+    }
+
+    private static class Build {
+        private final String key;
+        private final Path directory;
+        private int runs;
+
+        Build(String key, Path directory) {
+            this.key = key;
+            this.directory = directory;
+        }
+    }
+
+    /**
+     * Compile into target/, or into the build directory when one is given
+     */
+    private void compile(boolean clean, Path buildDirectory, String fingerprint) throws Exception {
+        logger.info("Test sources changed since the last build; compiling");
+        if (clean) {
+            // Not 'mvn clean', which would also delete the output of other runs
+            for (String classes : COMPILED_CLASSES) {
+                FileSystemUtils.deleteRecursively(Paths.get(classes));
+            }
+        }
+        List<String> arguments = new ArrayList<>(List.of("-q", "test-compile"));
+        if (buildDirectory != null) {
+            arguments.add("-Dbuild.dir=" + buildDirectory);
+        }
+        Process process = executeMavenCommand(arguments);
+        Deque<String> lastLines = new ArrayDeque<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            // Only the tail goes into the failure message; the full output is for debugging
+            while ((line = reader.readLine()) != null) {
+                logger.debug("[compile] {}", line);
+                lastLines.addLast(line);
+                if (lastLines.size() > COMPILE_ERROR_LINES) {
+                    lastLines.removeFirst();
+                }
+            }
+        }
+        if (process.waitFor() != 0) {
+            throw new IllegalStateException("Compiling the test sources failed:\n" + String.join("\n", lastLines));
+        }
+        if (fingerprint != null) {
+            buildCache.recordBuild(fingerprint);
+        }
+    }
+
+    List<String> buildArguments(ExecutionRequest request, CompiledClasses classes) {
+        List<String> arguments = new ArrayList<>();
+        // The classes were just checked or compiled, so dependencies are resolved
+        if (buildCache.isEnabled() && buildCache.isOffline()) {
+            arguments.add("-o");
+        }
+        // Run the tests only; compiling is done once by prepareClasses
+        arguments.add("surefire:test");
+        // Only the Cucumber runner; -Dtest also overrides the pom's exclusion of it
+        arguments.add("-Dtest=TestRunner");
+        if (classes.getSeparateDirectory() != null) {
+            arguments.add("-Dbuild.dir=" + classes.getSeparateDirectory());
+        }
+        Path outputDirectory = request.getOutputDirectory();
+        arguments.add("-Dsurefire.reports.dir=" + outputDirectory.resolve("surefire-reports"));
+        arguments.add("-Dcucumber.reports.dir=" + outputDirectory.resolve("cucumber-reports"));
+        if (!request.getFeatures().isEmpty()) {
+            arguments.add("-Dcucumber.features=" + String.join(",", request.getFeatures()));
+        }
+        if (request.hasTagExpression()) {
+            arguments.add("-Dcucumber.filter.tags=" + request.getTagExpression());
+        }
+        if (!request.getScenarioOrder().isEmpty()) {
+            // The JUnit runner only knows Cucumber's built-in orders
+            logger.info("Scenario order of {} is not supported by the maven engine; running in file order",
+                    request.getExecutionId());
+        }
+        if (!request.getPlugins().isEmpty()) {
+            // Replaces the pom's default plugins, so keep the console output
+            arguments.add("-Dcucumber.plugin=pretty," + String.join(",", request.getPlugins()));
+        }
+        return arguments;
+    }
+
+    /**
+     * Execute Maven command using ProcessBuilder
+     */
+    private Process executeMavenCommand(List<String> arguments) throws Exception {
+        ProcessBuilder processBuilder = new ProcessBuilder();
+
+        List<String> command = new ArrayList<>();
+        command.add(getMavenCommand());
+        command.addAll(arguments);
+
+        processBuilder.command(command);
+        processBuilder.directory(new File(System.getProperty("user.dir")));
+        processBuilder.redirectErrorStream(true);
+
+        logger.info("Executing command: {}", String.join(" ", command));
+
+        return processBuilder.start();
+    }
+
+    /**
+     * Returns the maven command to use (prefer mvnw wrapper if present)
+     */
+    public String getMavenCommand() {
+        try {
+            String cwd = System.getProperty("user.dir");
+            java.io.File mvnwCmd = new java.io.File(cwd, "mvnw.cmd");
+            if (mvnwCmd.exists() && mvnwCmd.canExecute()) {
+                return mvnwCmd.getAbsolutePath();
+            }
+            java.io.File mvnw = new java.io.File(cwd, "mvnw");
+            if (mvnw.exists() && mvnw.canExecute()) {
+                return mvnw.getAbsolutePath();
+            }
+        } catch (Exception ignored) {
+        }
+        // Try to detect mvn on PATH
+        try {
+            String detected = detectMavenFromPath();
+            if (detected != null)
+                return detected;
+        } catch (Exception ignored) {
+        }
+
+        // Check environment variable M2_HOME or MAVEN_HOME
+        String m2 = System.getenv("M2_HOME");
+        if (m2 != null && !m2.isBlank()) {
+            java.io.File f = new java.io.File(m2, "bin/mvn.cmd");
+            if (f.exists())
+                return f.getAbsolutePath();
+            f = new java.io.File(m2, "bin/mvn");
+            if (f.exists())
+                return f.getAbsolutePath();
+        }
+        String mvHome = System.getenv("MAVEN_HOME");
+        if (mvHome != null && !mvHome.isBlank()) {
+            java.io.File f = new java.io.File(mvHome, "bin/mvn.cmd");
+            if (f.exists())
+                return f.getAbsolutePath();
+            f = new java.io.File(mvHome, "bin/mvn");
+            if (f.exists())
+                return f.getAbsolutePath();
+        }
+
+        // Try common installation locations (Windows)
+        String pf = System.getenv("ProgramFiles");
+        String pf86 = System.getenv("ProgramFiles(x86)");
+        String[] candidates = new String[] { pf, pf86, "C:\\Program Files", "C:\\Program Files (x86)" };
+        for (String base : candidates) {
+            if (base == null)
+                continue;
+            java.io.File baseDir = new java.io.File(base);
+            java.io.File[] dirs = baseDir
+                    .listFiles((f) -> f.isDirectory() && f.getName().toLowerCase().contains("maven"));
+            if (dirs != null) {
+                for (java.io.File d : dirs) {
+                    java.io.File mvnCmd = new java.io.File(d, "bin\\mvn.cmd");
+                    if (mvnCmd.exists())
+                        return mvnCmd.getAbsolutePath();
+                    java.io.File mvn = new java.io.File(d, "bin/mvn");
+                    if (mvn.exists())
+                        return mvn.getAbsolutePath();
+                }
+            }
+        }
+
+        // fallback to configured command (default: mvn)
+        return configuredMavenCommand != null && !configuredMavenCommand.isBlank() ? configuredMavenCommand : "mvn";
+    }
+
+    private String detectMavenFromPath() {
+        boolean isWindows = System.getProperty("os.name").toLowerCase().contains("win");
+        ProcessBuilder pb = isWindows ? new ProcessBuilder("cmd", "/c", "where mvn")
+                : new ProcessBuilder("sh", "-c", "which mvn");
+        try {
+            pb.redirectErrorStream(true);
+            Process p = pb.start();
+            java.io.BufferedReader r = new java.io.BufferedReader(new java.io.InputStreamReader(p.getInputStream()));
+            String line = r.readLine();
+            if (line != null && !line.isBlank()) {
+                // Trim trailing spaces and return
+                return line.trim();
+            }
+        } catch (Exception ignored) {
+        }
+        return null;
+    }
+
+    /**
+     * Validates that the configured maven command is available on the current
+     * environment; otherwise throws an exception
+     */
+    private void validateMavenCommandAvailable() {
+        String cmd = getMavenCommand();
+        try {
+            ProcessBuilder pb = new ProcessBuilder(cmd, "-v");
+            pb.redirectErrorStream(true);
+            Process proc = pb.start();
+            boolean finished = proc.waitFor(3, java.util.concurrent.TimeUnit.SECONDS);
+            if (!finished || proc.exitValue() != 0) {
+                throw new IllegalStateException("Maven command not available or returned non-zero: " + cmd);
+            }
+        } catch (Exception e) {
+            throw new IllegalStateException("Maven command not found: '" + cmd
+                    + "'. Configure 'test.execution.maven.command' in application.properties or use a maven wrapper (mvnw/mvnw.cmd) in the project root.",
+                    e);
+        }
+    }
+}
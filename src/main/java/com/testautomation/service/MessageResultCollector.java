@@ -0,0 +1,298 @@
+package com.testautomation.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testautomation.model.ExecutionHistory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Follows the Cucumber message (NDJSON) file of a run while it is being
+ * written and turns it into scenario and step results, one envelope at a
+ * time. Only the envelopes needed for results are parsed; sources and
+ * attachments are skipped without being deserialized.
+ */
+public class MessageResultCollector {
+    private static final Logger logger = LoggerFactory.getLogger(MessageResultCollector.class);
+    private static final long POLL_MILLIS = 250;
+    // Worst status wins when a scenario has several steps
+    private static final List<String> STATUS_ORDER = List.of("UNKNOWN", "PASSED", "SKIPPED", "PENDING",
+            "UNDEFINED", "AMBIGUOUS", "FAILED");
+    private static final String FEATURES_PREFIX = ExecutionRequest.FEATURES_DIR + "/";
+
+    private final Path messageFile;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Consumer<ExecutionHistory.ScenarioResult> onScenarioFinished;
+
+    // Gherkin node id -> line, so example rows report their own line
+    private final Map<String, Integer> nodeLines = new HashMap<>();
+    private final Map<String, JsonNode> pickles = new HashMap<>();
+    private final Map<String, String> testCasePickles = new HashMap<>();
+    private final Set<String> hookSteps = new HashSet<>();
+    // Step definition / hook id -> declaring glue class
+    private final Map<String, String> glueClasses = new HashMap<>();
+    private final Map<String, Set<String>> testCaseGlue = new HashMap<>();
+    private final Map<String, Set<String>> glueByFeature = new HashMap<>();
+    private final Map<String, RunningScenario> running = new HashMap<>();
+    private final List<ExecutionHistory.ScenarioResult> scenarios = new ArrayList<>();
+
+    private int passedScenarios, failedScenarios, skippedScenarios;
+    private int passedSteps, failedSteps, skippedSteps, pendingSteps;
+
+    private volatile boolean stopRequested;
+    private Thread follower;
+
+    public MessageResultCollector(Path messageFile, Consumer<ExecutionHistory.ScenarioResult> onScenarioFinished) {
+        this.messageFile = messageFile;
+        this.onScenarioFinished = onScenarioFinished;
+    }
+
+    /**
+     * Start following the file on a virtual thread; the file may not exist yet
+     */
+    public void start() {
+        follower = Thread.ofVirtual().name("messages-" + messageFile.getFileName()).start(this::follow);
+    }
+
+    /**
+     * Read whatever is left in the file and wait for the follower to finish.
+     * Call once the run has exited.
+     */
+    public void finish() throws InterruptedException {
+        stopRequested = true;
+        if (follower != null) {
+            follower.join();
+        }
+    }
+
+    /**
+     * Copy the collected counters, scenario results and the glue classes each
+     * feature used onto the execution
+     */
+    public synchronized void applyTo(ExecutionHistory.Execution execution) {
+        execution.setTotalScenarios(scenarios.size());
+        execution.setPassedScenarios(passedScenarios);
+        execution.setFailedScenarios(failedScenarios);
+        execution.setSkippedScenarios(skippedScenarios);
+        execution.setTotalSteps(passedSteps + failedSteps + skippedSteps + pendingSteps);
+        execution.setPassedSteps(passedSteps);
+        execution.setFailedSteps(failedSteps);
+        execution.setSkippedSteps(skippedSteps);
+        execution.setPendingSteps(pendingSteps);
+        execution.setScenarioResults(new ArrayList<>(scenarios));
+        Map<String, Set<String>> glue = new HashMap<>();
+        glueByFeature.forEach((feature, classes) -> glue.put(feature, new HashSet<>(classes)));
+        execution.setGlueByFeature(glue);
+    }
+
+    private void follow() {
+        ByteArrayOutputStream partial = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        FileChannel channel = null;
+        try {
+            while (true) {
+                boolean lastPass = stopRequested;
+                if (channel == null && Files.exists(messageFile)) {
+                    channel = FileChannel.open(messageFile, StandardOpenOption.READ);
+                }
+                int read = 0;
+                if (channel != null) {
+                    buffer.clear();
+                    read = channel.read(buffer);
+                    if (read > 0) {
+                        consume(buffer.array(), read, partial);
+                    }
+                }
+                if (read <= 0) {
+                    if (lastPass) {
+                        break;
+                    }
+                    Thread.sleep(POLL_MILLIS);
+                }
+            }
+            if (partial.size() > 0) {
+                handleLine(partial.toString(StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            logger.warn("Stopped reading {}: {}", messageFile, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            if (channel != null) {
+                try {
+                    channel.close();
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    private void consume(byte[] bytes, int length, ByteArrayOutputStream partial) {
+        int lineStart = 0;
+        for (int i = 0; i < length; i++) {
+            if (bytes[i] == '\n') {
+                partial.write(bytes, lineStart, i - lineStart);
+                handleLine(partial.toString(StandardCharsets.UTF_8));
+                partial.reset();
+                lineStart = i + 1;
+            }
+        }
+        partial.write(bytes, lineStart, length - lineStart);
+    }
+
+    private synchronized void handleLine(String line) {
+        try {
+            if (line.startsWith("{\"gherkinDocument\"")) {
+                collectLines(objectMapper.readTree(line).path("gherkinDocument").path("feature"));
+            } else if (line.startsWith("{\"pickle\"")) {
+                JsonNode pickle = objectMapper.readTree(line).path("pickle");
+                pickles.put(pickle.path("id").asText(), pickle);
+            } else if (line.startsWith("{\"stepDefinition\"") || line.startsWith("{\"hook\"")) {
+                JsonNode glue = objectMapper.readTree(line).elements().next();
+                String className = glue.path("sourceReference").path("javaMethod").path("className").asText(null);
+                if (className != null) {
+                    glueClasses.put(glue.path("id").asText(), className);
+                }
+            } else if (line.startsWith("{\"testCase\"")) {
+                JsonNode testCase = objectMapper.readTree(line).path("testCase");
+                String testCaseId = testCase.path("id").asText();
+                testCasePickles.put(testCaseId, testCase.path("pickleId").asText());
+                Set<String> glue = new HashSet<>();
+                for (JsonNode step : testCase.path("testSteps")) {
+                    if (step.has("hookId")) {
+                        hookSteps.add(step.path("id").asText());
+                        addGlue(glue, step.path("hookId").asText());
+                    }
+                    for (JsonNode stepDefinitionId : step.path("stepDefinitionIds")) {
+                        addGlue(glue, stepDefinitionId.asText());
+                    }
+                }
+                testCaseGlue.put(testCaseId, glue);
+            } else if (line.startsWith("{\"testCaseStarted\"")) {
+                JsonNode started = objectMapper.readTree(line).path("testCaseStarted");
+                running.put(started.path("id").asText(), new RunningScenario(
+                        started.path("testCaseId").asText(), toMillis(started.path("timestamp"))));
+            } else if (line.startsWith("{\"testStepFinished\"")) {
+                onStepFinished(objectMapper.readTree(line).path("testStepFinished"));
+            } else if (line.startsWith("{\"testCaseFinished\"")) {
+                onTestCaseFinished(objectMapper.readTree(line).path("testCaseFinished"));
+            }
+        } catch (IOException e) {
+            logger.debug("Skipping unreadable message in {}: {}", messageFile, e.getMessage());
+        }
+    }
+
+    private void addGlue(Set<String> glue, String glueId) {
+        String className = glueClasses.get(glueId);
+        if (className != null) {
+            glue.add(className);
+        }
+    }
+
+    private void collectLines(JsonNode node) {
+        if (node.isObject()) {
+            if (node.has("id") && node.has("location")) {
+                nodeLines.put(node.path("id").asText(), node.path("location").path("line").asInt());
+            }
+            node.forEach(this::collectLines);
+        } else if (node.isArray()) {
+            node.forEach(this::collectLines);
+        }
+    }
+
+    private void onStepFinished(JsonNode finished) {
+        RunningScenario scenario = running.get(finished.path("testCaseStartedId").asText());
+        String status = finished.path("testStepResult").path("status").asText("UNKNOWN");
+        if (scenario == null) {
+            return;
+        }
+        if (STATUS_ORDER.indexOf(status) > STATUS_ORDER.indexOf(scenario.status)) {
+            scenario.status = status;
+        }
+        if (!hookSteps.contains(finished.path("testStepId").asText())) {
+            scenario.stepStatuses.add(status);
+        }
+    }
+
+    private void onTestCaseFinished(JsonNode finished) {
+        RunningScenario scenario = running.remove(finished.path("testCaseStartedId").asText());
+        if (scenario == null || finished.path("willBeRetried").asBoolean(false)) {
+            return;
+        }
+        for (String status : scenario.stepStatuses) {
+            switch (status) {
+                case "PASSED" -> passedSteps++;
+                case "SKIPPED" -> skippedSteps++;
+                case "PENDING" -> pendingSteps++;
+                default -> failedSteps++;
+            }
+        }
+        switch (scenario.status) {
+            case "PASSED" -> passedScenarios++;
+            case "SKIPPED", "UNKNOWN" -> skippedScenarios++;
+            default -> failedScenarios++;
+        }
+
+        ExecutionHistory.ScenarioResult result = new ExecutionHistory.ScenarioResult();
+        JsonNode pickle = pickles.get(testCasePickles.get(scenario.testCaseId));
+        if (pickle != null) {
+            result.setName(pickle.path("name").asText());
+            result.setFeatureFile(toFeatureFile(pickle.path("uri").asText()));
+            JsonNode astNodeIds = pickle.path("astNodeIds");
+            if (astNodeIds.size() > 0) {
+                result.setLine(nodeLines.get(astNodeIds.get(astNodeIds.size() - 1).asText()));
+            }
+        }
+        if (result.getFeatureFile() != null) {
+            glueByFeature.computeIfAbsent(result.getFeatureFile(), f -> new HashSet<>())
+                    .addAll(testCaseGlue.getOrDefault(scenario.testCaseId, Set.of()));
+        }
+        result.setStatus("UNKNOWN".equals(scenario.status) ? "SKIPPED" : scenario.status);
+        result.setDurationMillis(Math.max(0, toMillis(finished.path("timestamp")) - scenario.startedAt));
+        scenarios.add(result);
+        if (onScenarioFinished != null) {
+            onScenarioFinished.accept(result);
+        }
+    }
+
+    /**
+     * Feature path relative to the features directory, as used by the run APIs
+     */
+    private static String toFeatureFile(String uri) {
+        String path = uri.replace('\\', '/');
+        int index = path.indexOf(FEATURES_PREFIX);
+        return index >= 0 ? path.substring(index + FEATURES_PREFIX.length()) : path;
+    }
+
+    private static long toMillis(JsonNode timestamp) {
+        return timestamp.path("seconds").asLong() * 1000 + timestamp.path("nanos").asLong() / 1_000_000;
+    }
+
+    private static class RunningScenario {
+        private final String testCaseId;
+        private final long startedAt;
+        private final List<String> stepStatuses = new ArrayList<>();
+        private String status = "UNKNOWN";
+
+        RunningScenario(String testCaseId, long startedAt) {
+            this.testCaseId = testCaseId;
+            this.startedAt = startedAt;
+        }
+    }
+}
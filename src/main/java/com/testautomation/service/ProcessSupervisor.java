@@ -0,0 +1,111 @@
+package com.testautomation.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Watches every running execution handle from a single scheduler thread:
+ * sends periodic heartbeats, enforces the execution timeout and forgets
+ * handles once they have exited.
+ */
+@Service
+public class ProcessSupervisor {
+    private static final Logger logger = LoggerFactory.getLogger(ProcessSupervisor.class);
+    private static final long TICK_MILLIS = 1000;
+
+    @Value("${test.execution.timeout.seconds:900}")
+    private int executionTimeoutSeconds;
+    @Value("${test.execution.heartbeat.seconds:10}")
+    private int heartbeatSeconds;
+
+    private final Map<String, Supervised> supervised = new ConcurrentHashMap<>();
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Callbacks for a supervised handle; both run on the supervisor thread
+     * and must not block
+     */
+    public interface Listener {
+        void onHeartbeat();
+
+        void onTimeout(int timeoutSeconds);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "process-supervisor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Start supervising the handle under the given key until it exits or
+     * {@link #release(String)} is called
+     */
+    public void supervise(String key, ExecutionHandle handle, Listener listener) {
+        supervised.put(key, new Supervised(handle, listener, System.currentTimeMillis()));
+    }
+
+    public void release(String key) {
+        supervised.remove(key);
+    }
+
+    public int getSupervisedCount() {
+        return supervised.size();
+    }
+
+    private void tick() {
+        long now = System.currentTimeMillis();
+        long timeoutMillis = TimeUnit.SECONDS.toMillis(executionTimeoutSeconds);
+        long heartbeatMillis = TimeUnit.SECONDS.toMillis(heartbeatSeconds);
+        supervised.forEach((key, entry) -> {
+            try {
+                if (!entry.handle.isAlive()) {
+                    supervised.remove(key);
+                } else if (now - entry.startedAt > timeoutMillis) {
+                    logger.warn("Execution {} exceeded timeout ({}s); destroying", key, executionTimeoutSeconds);
+                    supervised.remove(key);
+                    entry.handle.destroy();
+                    entry.listener.onTimeout(executionTimeoutSeconds);
+                } else if (now - entry.lastHeartbeat >= heartbeatMillis) {
+                    entry.lastHeartbeat = now;
+                    entry.listener.onHeartbeat();
+                }
+            } catch (RuntimeException e) {
+                logger.warn("Supervision of {} failed: {}", key, e.getMessage());
+            }
+        });
+    }
+
+    private static class Supervised {
+        private final ExecutionHandle handle;
+        private final Listener listener;
+        private final long startedAt;
+        private long lastHeartbeat;
+
+        Supervised(ExecutionHandle handle, Listener listener, long startedAt) {
+            this.handle = handle;
+            this.listener = listener;
+            this.startedAt = startedAt;
+            this.lastHeartbeat = startedAt;
+        }
+    }
+}
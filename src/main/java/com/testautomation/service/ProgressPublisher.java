@@ -0,0 +1,226 @@
+package com.testautomation.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Service;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes execution progress over STOMP.
+ *
+ * Each execution has its own destination, {@value #TOPIC}/{executionId};
+ * {@value #TOPIC} itself still receives every execution's updates for
+ * dashboards. Updates are coalesced: only the latest one per execution is
+ * sent, at most {@code test.execution.progress.max-frames-per-second} times
+ * a second. Final updates (progress 100 or -1) are sent at once. Nothing is
+ * sent to a destination nobody subscribed to.
+ *
+ * Every update gets the next {@code sequence} number of its execution and is
+ * kept, coalesced or not, in a ring of the last
+ * {@code test.execution.progress.replay-size} events, so a client that
+ * subscribes late or reconnects can have the events it missed replayed.
+ * Rings of the last {@code test.execution.progress.replay-executions}
+ * executions are kept.
+ */
+@Service
+public class ProgressPublisher {
+    private static final Logger logger = LoggerFactory.getLogger(ProgressPublisher.class);
+    public static final String TOPIC = "/topic/execution-progress";
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Value("${test.execution.progress.max-frames-per-second:4}")
+    private int maxFramesPerSecond;
+    @Value("${test.execution.progress.replay-size:500}")
+    private int replaySize;
+    @Value("${test.execution.progress.replay-executions:100}")
+    private int replayExecutions;
+
+    // Latest unsent update per execution; also guards the event logs
+    private final Map<String, Map<String, Object>> pending = new LinkedHashMap<>();
+    // Recent events per execution, least recently updated execution first
+    private final Map<String, EventLog> eventLogs = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, EventLog> eldest) {
+            return size() > Math.max(1, replayExecutions);
+        }
+    };
+    // sessionId/subscriptionId -> destination
+    private final Map<String, String> subscriptions = new ConcurrentHashMap<>();
+    private final AntPathMatcher destinationMatcher = new AntPathMatcher();
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    void start() {
+        if (maxFramesPerSecond <= 0) {
+            return;
+        }
+        long intervalMillis = Math.max(1, 1000 / maxFramesPerSecond);
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "progress-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleAtFixedRate(this::flush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+    }
+
+    /**
+     * Events of an execution replayed for a client: the ones after
+     * {@code fromSequence} that are still kept, and whether older ones after
+     * it were already dropped from the ring
+     */
+    public static class Replay {
+        private final List<Map<String, Object>> events;
+        private final long lastSequence;
+        private final boolean truncated;
+
+        Replay(List<Map<String, Object>> events, long lastSequence, boolean truncated) {
+            this.events = events;
+            this.lastSequence = lastSequence;
+            this.truncated = truncated;
+        }
+
+        public List<Map<String, Object>> getEvents() {
+            return events;
+        }
+
+        public long getLastSequence() {
+            return lastSequence;
+        }
+
+        public boolean isTruncated() {
+            return truncated;
+        }
+    }
+
+    /**
+     * Events of the execution with a sequence number above {@code fromSequence}
+     */
+    public Replay replay(String executionId, long fromSequence) {
+        synchronized (pending) {
+            EventLog log = eventLogs.get(executionId);
+            if (log == null) {
+                return new Replay(List.of(), 0, false);
+            }
+            List<Map<String, Object>> events = new ArrayList<>();
+            for (Map<String, Object> event : log.events) {
+                if ((Long) event.get("sequence") > fromSequence) {
+                    events.add(event);
+                }
+            }
+            long firstKept = log.events.isEmpty() ? log.sequence + 1 : (Long) log.events.peekFirst().get("sequence");
+            return new Replay(events, log.sequence, firstKept > fromSequence + 1);
+        }
+    }
+
+    /**
+     * Number the update, keep it for replay and queue it, replacing an
+     * update of the execution not sent yet
+     */
+    public void publish(String executionId, Map<String, Object> update) {
+        Object progress = update.get("progress");
+        boolean last = progress instanceof Integer value && (value < 0 || value >= 100);
+        synchronized (pending) {
+            EventLog log = eventLogs.computeIfAbsent(executionId, id -> new EventLog());
+            update.put("sequence", ++log.sequence);
+            log.events.addLast(update);
+            while (log.events.size() > Math.max(1, replaySize)) {
+                log.events.removeFirst();
+            }
+            if (flusher == null || last) {
+                // Drop the older update so it cannot arrive after the final one
+                pending.remove(executionId);
+                send(executionId, update);
+            } else {
+                pending.put(executionId, update);
+            }
+        }
+    }
+
+    private void flush() {
+        synchronized (pending) {
+            try {
+                pending.forEach(this::send);
+            } finally {
+                pending.clear();
+            }
+        }
+    }
+
+    private void send(String executionId, Map<String, Object> update) {
+        try {
+            String destination = TOPIC + "/" + executionId;
+            if (hasSubscribers(destination)) {
+                messagingTemplate.convertAndSend(destination, update);
+            }
+            if (hasSubscribers(TOPIC)) {
+                messagingTemplate.convertAndSend(TOPIC, update);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to send progress update", e);
+        }
+    }
+
+    private boolean hasSubscribers(String destination) {
+        for (String subscribed : subscriptions.values()) {
+            if (subscribed.equals(destination) || destinationMatcher.match(subscribed, destination)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static class EventLog {
+        private final Deque<Map<String, Object>> events = new ArrayDeque<>();
+        private long sequence;
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        StompHeaderAccessor headers = StompHeaderAccessor.wrap(event.getMessage());
+        if (headers.getDestination() != null) {
+            subscriptions.put(headers.getSessionId() + "/" + headers.getSubscriptionId(), headers.getDestination());
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        StompHeaderAccessor headers = StompHeaderAccessor.wrap(event.getMessage());
+        subscriptions.remove(headers.getSessionId() + "/" + headers.getSubscriptionId());
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        String prefix = event.getSessionId() + "/";
+        subscriptions.keySet().removeIf(key -> key.startsWith(prefix));
+    }
+}
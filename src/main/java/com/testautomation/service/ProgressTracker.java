@@ -0,0 +1,124 @@
+package com.testautomation.service;
+
+import com.testautomation.model.ExecutionHistory;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Progress of an execution measured against its plan: the scenarios it is
+ * expected to run with their historical durations, spread over
+ * {@code lanes} concurrent shards.
+ *
+ * Progress is the share of the estimated work that is done, mapped onto
+ * {@code fromPercent}..{@code toPercent}. The ETA is the estimated work left,
+ * scaled by how fast the finished scenarios ran compared to their estimates.
+ * One tracker counts the scenarios of all shards of an execution.
+ */
+public class ProgressTracker {
+    private final Map<String, Long> estimates;
+    private final long plannedMillis;
+    private final int lanes;
+    private final int fromPercent;
+    private final int toPercent;
+    // Set when the first scenario starts, so start-up time does not count against throughput
+    private long startedAt;
+
+    private final Set<String> finished = new HashSet<>();
+    private int finishedScenarios;
+    private long finishedEstimateMillis;
+    private long finishedActualMillis;
+
+    /**
+     * @param estimates expected duration of every planned scenario by feature:line
+     */
+    public ProgressTracker(Map<String, Long> estimates, int lanes, int fromPercent, int toPercent) {
+        this.estimates = new HashMap<>(estimates);
+        this.plannedMillis = estimates.values().stream().mapToLong(Long::longValue).sum();
+        this.lanes = Math.max(1, lanes);
+        this.fromPercent = fromPercent;
+        this.toPercent = toPercent;
+    }
+
+    public synchronized void onScenarioStarted() {
+        if (startedAt == 0) {
+            startedAt = System.currentTimeMillis();
+        }
+    }
+
+    public synchronized void onScenarioFinished(ExecutionHistory.ScenarioResult result) {
+        finishedScenarios++;
+        Long estimate = estimates.get(result.getLocation());
+        if (estimate != null && finished.add(result.getLocation())) {
+            finishedEstimateMillis += estimate;
+            if (result.getDurationMillis() != null) {
+                finishedActualMillis += result.getDurationMillis();
+            } else {
+                finishedActualMillis += estimate;
+            }
+        }
+    }
+
+    /**
+     * Scenarios expected to run; grows if more finish than were planned
+     */
+    public synchronized int getPlannedScenarios() {
+        return Math.max(estimates.size(), finishedScenarios);
+    }
+
+    public synchronized int getFinishedScenarios() {
+        return finishedScenarios;
+    }
+
+    public synchronized int getProgress() {
+        double done;
+        if (plannedMillis > 0) {
+            done = (double) finishedEstimateMillis / plannedMillis;
+        } else {
+            done = getPlannedScenarios() > 0 ? (double) finishedScenarios / getPlannedScenarios() : 0;
+        }
+        return fromPercent + (int) Math.round(Math.min(1, done) * (toPercent - fromPercent));
+    }
+
+    /**
+     * Estimated time until the planned scenarios are done
+     */
+    public synchronized long getEtaMillis() {
+        double pace = finishedEstimateMillis > 0 ? (double) finishedActualMillis / finishedEstimateMillis : 1;
+        long remaining = Math.max(0, plannedMillis - finishedEstimateMillis);
+        return Math.round(remaining * pace / lanes);
+    }
+
+    /**
+     * Finished scenarios per minute of wall-clock time so far
+     */
+    public synchronized double getScenariosPerMinute() {
+        long elapsed = startedAt > 0 ? System.currentTimeMillis() - startedAt : 0;
+        return elapsed > 0 ? finishedScenarios * 60_000.0 / elapsed : 0;
+    }
+
+    /**
+     * Figures added to every progress message of the execution
+     */
+    public synchronized Map<String, Object> toMap() {
+        Map<String, Object> figures = new LinkedHashMap<>();
+        figures.put("plannedScenarios", getPlannedScenarios());
+        figures.put("finishedScenarios", finishedScenarios);
+        figures.put("etaSeconds", getEtaMillis() / 1000);
+        figures.put("scenariosPerMinute", Math.round(getScenariosPerMinute() * 10) / 10.0);
+        return figures;
+    }
+
+    /**
+     * Human-readable summary, e.g. "3/10 scenarios, 4.5/min, ETA 1m 20s"
+     */
+    public synchronized String describe() {
+        long etaSeconds = getEtaMillis() / 1000;
+        return finishedScenarios + "/" + getPlannedScenarios() + " scenarios, "
+                + Math.round(getScenariosPerMinute() * 10) / 10.0 + "/min, ETA "
+                + (etaSeconds / 60) + "m " + (etaSeconds % 60) + "s";
+    }
+}
@@ -0,0 +1,381 @@
+package com.testautomation.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hands runs out to execution agents on other nodes
+ * ({@link com.testautomation.agent.ExecutionAgent}) instead of running them here.
+ *
+ * Agents pull runs over HTTP and hold each one under a lease that every
+ * output upload renews. When a lease expires because its agent stopped
+ * reporting, the run goes back to the front of the queue for the next agent.
+ * The Cucumber messages an agent uploads are written where the request
+ * expects them, so results and reports are collected as for a local run.
+ */
+@Service
+public class RemoteExecutionEngine implements ExecutionEngine {
+    private static final Logger logger = LoggerFactory.getLogger(RemoteExecutionEngine.class);
+    public static final String NAME = "remote";
+    private static final String MESSAGE_PLUGIN = "message:";
+    private static final String HTML_PLUGIN = "html:";
+
+    @Autowired
+    private ReportMergeService reportMergeService;
+
+    @Value("${test.execution.remote.enabled:false}")
+    private boolean enabled;
+    @Value("${test.execution.remote.lease-seconds:30}")
+    private int leaseSeconds;
+    @Value("${test.execution.remote.max-reassignments:2}")
+    private int maxReassignments;
+
+    private final BlockingDeque<RemoteJob> pending = new LinkedBlockingDeque<>();
+    private final Map<String, RemoteJob> leased = new ConcurrentHashMap<>();
+    private final Map<String, Agent> agents = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService reaper = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "remote-lease-reaper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PostConstruct
+    public void startReaper() {
+        if (enabled) {
+            reaper.scheduleWithFixedDelay(this::expireLeases, 1, 1, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stopReaper() {
+        reaper.shutdownNow();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        long cutoff = System.currentTimeMillis() - leaseSeconds * 1000L;
+        return enabled && agents.values().stream().anyMatch(agent -> agent.lastSeen >= cutoff);
+    }
+
+    @Override
+    public String getUnavailableMessage() {
+        return enabled ? "No execution agent checked in during the last " + leaseSeconds
+                + "s. Start one with '--spring.profiles.active=agent'."
+                : "Remote execution is disabled. Set 'test.execution.remote.enabled=true'.";
+    }
+
+    @Override
+    public ExecutionHandle start(ExecutionRequest request) {
+        if (!enabled) {
+            throw new IllegalStateException(getUnavailableMessage());
+        }
+        RemoteJob job = new RemoteJob(request);
+        job.write("[coordinator] Waiting for an execution agent");
+        pending.offer(job);
+        return job;
+    }
+
+    /**
+     * Lease the next queued run to the agent, or null when there is none
+     */
+    public synchronized Map<String, Object> lease(String agentId) {
+        Agent agent = agents.computeIfAbsent(agentId, Agent::new);
+        agent.lastSeen = System.currentTimeMillis();
+        RemoteJob job = pending.poll();
+        if (job == null) {
+            return null;
+        }
+        job.attempts++;
+        job.leaseId = UUID.randomUUID().toString();
+        job.agentId = agentId;
+        job.leaseExpires = System.currentTimeMillis() + leaseSeconds * 1000L;
+        leased.put(job.leaseId, job);
+        agent.leaseId = job.leaseId;
+        job.write("[coordinator] Leased to agent " + agentId
+                + (job.attempts > 1 ? " (attempt " + job.attempts + ")" : ""));
+        logger.info("Leased {} to agent {} (lease={})", job.request.getExecutionId(), agentId, job.leaseId);
+
+        Map<String, Object> assignment = new LinkedHashMap<>();
+        assignment.put("leaseId", job.leaseId);
+        assignment.put("runId", job.request.getExecutionId());
+        assignment.put("features", job.request.getFeatures());
+        assignment.put("tagExpression", job.request.getTagExpression());
+        assignment.put("scenarioOrder", job.request.getScenarioOrder());
+        assignment.put("leaseSeconds", leaseSeconds);
+        return assignment;
+    }
+
+    /**
+     * Append output of a leased run and renew its lease. False when the lease
+     * is no longer valid, i.e. it expired or the run was cancelled.
+     */
+    public boolean report(String leaseId, List<String> lines) {
+        RemoteJob job = leased.get(leaseId);
+        if (job == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        job.leaseExpires = now + leaseSeconds * 1000L;
+        Agent agent = agents.get(job.agentId);
+        if (agent != null) {
+            agent.lastSeen = now;
+        }
+        if (lines != null) {
+            lines.forEach(job::write);
+        }
+        return true;
+    }
+
+    /**
+     * Finish a leased run with the agent's exit code and Cucumber messages.
+     * False when the lease is no longer valid.
+     */
+    public boolean complete(String leaseId, int exitCode, byte[] messages) {
+        RemoteJob job;
+        synchronized (this) {
+            job = leased.remove(leaseId);
+            if (job == null) {
+                return false;
+            }
+            Agent agent = agents.get(job.agentId);
+            if (agent != null) {
+                agent.lastSeen = System.currentTimeMillis();
+                agent.leaseId = null;
+                agent.completed++;
+            }
+        }
+        try {
+            if (job.messageFile != null && messages != null && messages.length > 0) {
+                Files.createDirectories(job.messageFile.toAbsolutePath().getParent());
+                Files.write(job.messageFile, messages);
+                if (job.htmlReport != null) {
+                    reportMergeService.mergeToHtml(List.of(job.messageFile), job.htmlReport);
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not store the results of {}: {}", job.request.getExecutionId(), e.getMessage());
+            job.write("[coordinator] Could not store results: " + e.getMessage());
+        }
+        job.write("[coordinator] Agent " + job.agentId + " finished with exit code " + exitCode);
+        job.finish(exitCode);
+        return true;
+    }
+
+    /**
+     * Agents and queue state for the status endpoint
+     */
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("queued", pending.size());
+        status.put("leased", leased.size());
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> details = new ArrayList<>();
+        for (Agent agent : agents.values()) {
+            Map<String, Object> detail = new LinkedHashMap<>();
+            detail.put("id", agent.id);
+            detail.put("lastSeenSecondsAgo", (now - agent.lastSeen) / 1000);
+            detail.put("alive", now - agent.lastSeen < leaseSeconds * 1000L);
+            RemoteJob job = agent.leaseId != null ? leased.get(agent.leaseId) : null;
+            detail.put("running", job != null ? job.request.getExecutionId() : null);
+            detail.put("completed", agent.completed);
+            details.add(detail);
+        }
+        status.put("agents", details);
+        return status;
+    }
+
+    /**
+     * Requeue runs whose agent stopped reporting, or fail them once they
+     * have been reassigned max-reassignments times
+     */
+    private synchronized void expireLeases() {
+        long now = System.currentTimeMillis();
+        for (RemoteJob job : new ArrayList<>(leased.values())) {
+            if (job.leaseExpires > now) {
+                continue;
+            }
+            leased.remove(job.leaseId);
+            Agent agent = agents.get(job.agentId);
+            if (agent != null && job.leaseId.equals(agent.leaseId)) {
+                agent.leaseId = null;
+            }
+            logger.warn("Lease of {} on agent {} expired", job.request.getExecutionId(), job.agentId);
+            job.leaseId = null;
+            if (job.attempts > maxReassignments) {
+                job.write("[coordinator] Agent " + job.agentId + " stopped reporting; giving up after "
+                        + job.attempts + " attempts");
+                job.finish(-1);
+            } else {
+                job.write("[coordinator] Agent " + job.agentId + " stopped reporting; reassigning");
+                pending.offerFirst(job);
+            }
+        }
+    }
+
+    private static Path pluginPath(ExecutionRequest request, String prefix) {
+        return request.getPlugins().stream()
+                .filter(p -> p.startsWith(prefix))
+                .map(p -> Paths.get(p.substring(prefix.length())))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static class Agent {
+        private final String id;
+        private volatile long lastSeen;
+        private volatile String leaseId;
+        private volatile int completed;
+
+        Agent(String id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * A run waiting for or leased to an agent. Output arrives in HTTP
+     * requests, so it is queued instead of piped from a single writer thread.
+     */
+    private class RemoteJob implements ExecutionHandle {
+        private static final byte[] EOF = new byte[0];
+
+        private final ExecutionRequest request;
+        private final Path messageFile;
+        private final Path htmlReport;
+        private final BlockingQueue<byte[]> chunks = new LinkedBlockingQueue<>();
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private final AtomicBoolean done = new AtomicBoolean();
+        private final InputStream output = new ChunkInputStream();
+        private volatile int exitCode = -1;
+        private volatile String leaseId;
+        private volatile String agentId;
+        private volatile long leaseExpires;
+        private int attempts;
+
+        RemoteJob(ExecutionRequest request) {
+            this.request = request;
+            this.messageFile = pluginPath(request, MESSAGE_PLUGIN);
+            this.htmlReport = pluginPath(request, HTML_PLUGIN);
+        }
+
+        void write(String line) {
+            if (!done.get()) {
+                chunks.offer((line + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+        }
+
+        void finish(int exitCode) {
+            if (done.compareAndSet(false, true)) {
+                this.exitCode = exitCode;
+                chunks.offer(EOF);
+                finished.countDown();
+            }
+        }
+
+        @Override
+        public InputStream getOutput() {
+            return output;
+        }
+
+        @Override
+        public boolean isAlive() {
+            return finished.getCount() > 0;
+        }
+
+        @Override
+        public int waitFor() throws InterruptedException {
+            finished.await();
+            return exitCode;
+        }
+
+        @Override
+        public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+            return finished.await(timeout, unit);
+        }
+
+        @Override
+        public void destroy() {
+            // The agent learns about it from the rejected output of its next report
+            synchronized (RemoteExecutionEngine.this) {
+                pending.remove(this);
+                if (leaseId != null) {
+                    leased.remove(leaseId);
+                }
+            }
+            finish(-1);
+        }
+
+        private class ChunkInputStream extends InputStream {
+            private byte[] current;
+            private int position;
+
+            @Override
+            public int read() throws IOException {
+                return fill() ? current[position++] & 0xff : -1;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (length == 0) {
+                    return 0;
+                }
+                if (!fill()) {
+                    return -1;
+                }
+                int count = Math.min(length, current.length - position);
+                System.arraycopy(current, position, buffer, offset, count);
+                position += count;
+                return count;
+            }
+
+            private boolean fill() throws IOException {
+                while (current == null || position >= current.length) {
+                    if (current == EOF) {
+                        return false;
+                    }
+                    try {
+                        current = chunks.take();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException();
+                    }
+                    position = 0;
+                }
+                return true;
+            }
+        }
+    }
+}
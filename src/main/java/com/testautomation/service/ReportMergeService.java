@@ -0,0 +1,85 @@
+package com.testautomation.service;
+
+import io.cucumber.htmlformatter.MessagesToHtmlWriter;
+import io.cucumber.messages.types.Envelope;
+import io.cucumber.messages.types.TestRunStarted;
+import io.cucumber.messages.types.Timestamp;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Combines the Cucumber message (NDJSON) output of several shards into a
+ * single HTML report
+ */
+@Service
+public class ReportMergeService {
+    private static final Logger logger = LoggerFactory.getLogger(ReportMergeService.class);
+
+    // MessagesToHtmlWriter only needs an envelope to hand back to the serializer,
+    // which writes the original JSON line instead of re-serializing it
+    private static final Envelope PLACEHOLDER = Envelope.of(new TestRunStarted(new Timestamp(0L, 0L)));
+
+    /**
+     * Write one HTML report containing every shard. Only the first meta and
+     * testRunStarted messages are kept, and the per-shard testRunFinished
+     * messages are replaced by a single one.
+     */
+    public void mergeToHtml(List<Path> messageFiles, Path htmlReport) throws IOException {
+        Files.createDirectories(htmlReport.toAbsolutePath().getParent());
+        String[] current = new String[1];
+        boolean success = true;
+        boolean metaWritten = false;
+        boolean runStartedWritten = false;
+
+        try (OutputStream out = Files.newOutputStream(htmlReport);
+                MessagesToHtmlWriter writer = new MessagesToHtmlWriter(out,
+                        (w, envelope) -> w.write(current[0]))) {
+            for (Path messageFile : messageFiles) {
+                if (!Files.exists(messageFile)) {
+                    logger.warn("Shard messages not found: {}", messageFile.toAbsolutePath());
+                    success = false;
+                    continue;
+                }
+                try (BufferedReader reader = Files.newBufferedReader(messageFile, StandardCharsets.UTF_8)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isBlank()) {
+                            continue;
+                        }
+                        if (line.startsWith("{\"meta\"")) {
+                            if (metaWritten) {
+                                continue;
+                            }
+                            metaWritten = true;
+                        } else if (line.startsWith("{\"testRunStarted\"")) {
+                            if (runStartedWritten) {
+                                continue;
+                            }
+                            runStartedWritten = true;
+                        } else if (line.startsWith("{\"testRunFinished\"")) {
+                            success &= line.contains("\"success\":true");
+                            continue;
+                        }
+                        current[0] = line;
+                        writer.write(PLACEHOLDER);
+                    }
+                }
+            }
+            Instant now = Instant.now();
+            current[0] = "{\"testRunFinished\":{\"success\":" + success + ",\"timestamp\":{\"seconds\":"
+                    + now.getEpochSecond() + ",\"nanos\":" + now.getNano() + "}}}";
+            writer.write(PLACEHOLDER);
+        }
+        logger.info("Merged {} shard reports into {}", messageFiles.size(), htmlReport);
+    }
+}
@@ -0,0 +1,445 @@
+package com.testautomation.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.management.OperatingSystemMXBean;
+import io.cucumber.tagexpressions.Expression;
+import io.cucumber.tagexpressions.TagExpressionParser;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admits runs while the machine has room for them, on top of the fixed
+ * scheduler slots.
+ *
+ * A run's memory cost comes from the tags of its scenarios
+ * ({@code test.execution.admission.tag-memory-mb}, e.g. a browser for @ui)
+ * until runs of the same engine and tag have been measured: the drop in
+ * free memory while such a run had the machine to itself is then used,
+ * smoothed over runs. Only runs that finished scenarios over at least
+ * {@code min-learn-seconds} are measured, and a learned cost never goes
+ * below {@code min-learned-ratio} of the configured one. A run is admitted while the system CPU load is at most
+ * {@code max-cpu-load} and free memory, less the cost of runs admitted in the
+ * last {@code warmup-seconds} that may not have allocated it yet, covers its
+ * cost plus {@code min-free-memory-mb}. A run is always admitted when no
+ * other run is, so work cannot stall behind load from elsewhere.
+ */
+@Service
+public class ResourceAdmission {
+    private static final Logger logger = LoggerFactory.getLogger(ResourceAdmission.class);
+    private static final String PROFILES_FILE = "src/main/resources/data/resource-profiles.json";
+    private static final String DEFAULT_TAG = "default";
+    // Weight of the latest measurement in the learned costs
+    private static final double SMOOTHING = 0.5;
+    private static final long SAMPLE_MILLIS = 2000;
+    private static final int RECENT_DECISIONS = 50;
+    private static final long MB = 1024 * 1024;
+
+    @Value("${test.execution.admission.enabled:true}")
+    private boolean enabled;
+    @Value("${test.execution.admission.max-cpu-load:0.9}")
+    private double maxCpuLoad;
+    @Value("${test.execution.admission.min-free-memory-mb:512}")
+    private long minFreeMemoryMb;
+    @Value("${test.execution.admission.default-memory-mb:256}")
+    private long defaultMemoryMb;
+    @Value("${test.execution.admission.tag-memory-mb:@ui=1024,@web=1024,@api=128}")
+    private String tagMemoryMb;
+    @Value("${test.execution.admission.warmup-seconds:30}")
+    private int warmupSeconds;
+    @Value("${test.execution.admission.min-learn-seconds:30}")
+    private int minLearnSeconds;
+    @Value("${test.execution.admission.min-learned-ratio:0.5}")
+    private double minLearnedRatio;
+
+    private final OperatingSystemMXBean os = ManagementFactory.getPlatformMXBean(OperatingSystemMXBean.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Configured cost by lower-case tag
+    private final Map<String, Long> tagCosts = new LinkedHashMap<>();
+    // Measured cost by engine:tag profile
+    private Map<String, Long> learnedCosts;
+    private final Map<String, Ticket> admitted = new LinkedHashMap<>();
+    private final Map<String, Waiting> waiting = new LinkedHashMap<>();
+    private final Deque<Map<String, Object>> decisions = new ArrayDeque<>();
+    private long admittedAtOnce;
+    private long admittedAfterWait;
+    private long admittedAlone;
+    private long deferred;
+    private long totalWaitMillis;
+    private volatile double cpuLoad = -1;
+    private volatile long freeMemoryMb;
+    private ScheduledExecutorService sampler;
+
+    @PostConstruct
+    void start() {
+        for (String entry : tagMemoryMb.split(",")) {
+            String[] parts = entry.split("=");
+            if (parts.length == 2 && !parts[0].isBlank()) {
+                tagCosts.put(parts[0].trim().toLowerCase(), Long.parseLong(parts[1].trim()));
+            }
+        }
+        learnedCosts = loadProfiles();
+        freeMemoryMb = os.getFreeMemorySize() / MB;
+        sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "resource-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleWithFixedDelay(this::sample, 0, SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void stop() {
+        sampler.shutdownNow();
+    }
+
+    /**
+     * Expected memory of a run and the profile it was taken from
+     */
+    public static class Cost {
+        private final String profile;
+        private final long memoryMb;
+        private final int lanes;
+
+        Cost(String profile, long memoryMb, int lanes) {
+            this.profile = profile;
+            this.memoryMb = memoryMb;
+            this.lanes = lanes;
+        }
+
+        public String getProfile() {
+            return profile;
+        }
+
+        public long getMemoryMb() {
+            return memoryMb;
+        }
+    }
+
+    /**
+     * An admitted run; give it back with {@link #release(Ticket)} when the run is over
+     */
+    public static class Ticket {
+        private final String executionId;
+        private final Cost cost;
+        private final long admittedAt;
+        private final long waitedMillis;
+        private final long freeMemoryAtAdmissionMb;
+        private long lowestFreeMemoryMb;
+        private int samples;
+        // Whether no other run was admitted while this one ran
+        private boolean alone;
+
+        Ticket(String executionId, Cost cost, long admittedAt, long waitedMillis, long freeMemoryMb) {
+            this.executionId = executionId;
+            this.cost = cost;
+            this.admittedAt = admittedAt;
+            this.waitedMillis = waitedMillis;
+            this.freeMemoryAtAdmissionMb = freeMemoryMb;
+            this.lowestFreeMemoryMb = freeMemoryMb;
+        }
+
+        public Cost getCost() {
+            return cost;
+        }
+
+        public long getWaitedMillis() {
+            return waitedMillis;
+        }
+    }
+
+    private static class Waiting {
+        private final Cost cost;
+        private final long since;
+        private String reason;
+
+        Waiting(Cost cost, long since) {
+            this.cost = cost;
+            this.since = since;
+        }
+    }
+
+    /**
+     * Cost of running the scenarios of the feature (or feature:line:line)
+     * entries that match the tag expression on the engine, in {@code lanes}
+     * concurrent shards. The run is as costly as its costliest scenario.
+     */
+    public Cost estimate(List<String> entries, String tagExpression, String engineName, int lanes) {
+        Expression filter = tagExpression == null || tagExpression.isBlank() ? null
+                : TagExpressionParser.parse(tagExpression);
+        String costliestTag = DEFAULT_TAG;
+        long costliest = costOf(engineName, DEFAULT_TAG);
+        for (String entry : entries) {
+            String feature = GherkinScenarios.featureOf(entry);
+            List<Integer> only = GherkinScenarios.linesOf(entry);
+            List<GherkinScenarios.Definition> scenarios;
+            try {
+                scenarios = GherkinScenarios.parse(Paths.get(ExecutionRequest.FEATURES_DIR, feature));
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Could not read the tags of {}: {}", feature, e.getMessage());
+                continue;
+            }
+            for (GherkinScenarios.Definition scenario : scenarios) {
+                if ((!only.isEmpty() && !only.contains(scenario.getLine()))
+                        || (filter != null && !filter.evaluate(scenario.getTags()))) {
+                    continue;
+                }
+                for (String tag : scenario.getTags()) {
+                    String key = tag.toLowerCase();
+                    if (tagCosts.containsKey(key) && costOf(engineName, key) > costliest) {
+                        costliestTag = key;
+                        costliest = costOf(engineName, key);
+                    }
+                }
+            }
+        }
+        int shards = Math.max(1, lanes);
+        return new Cost(engineName + ":" + costliestTag, costliest * shards, shards);
+    }
+
+    private synchronized long costOf(String engineName, String tag) {
+        long configured = tagCosts.getOrDefault(tag, defaultMemoryMb);
+        Long learned = learnedCosts.get(engineName + ":" + tag);
+        return learned != null ? Math.max(learned, minimumCost(configured)) : configured;
+    }
+
+    /**
+     * Lowest cost a measurement may bring a profile down to
+     */
+    private long minimumCost(long configuredMb) {
+        return Math.round(configuredMb * Math.max(0, Math.min(1, minLearnedRatio)));
+    }
+
+    /**
+     * Admit the run if the machine has room for it, or return null and keep
+     * it in the waiting list; call again until it is admitted or
+     * {@link #stopWaiting(String)}
+     */
+    public synchronized Ticket tryAdmit(String executionId, Cost cost) {
+        long now = System.currentTimeMillis();
+        Waiting wait = waiting.get(executionId);
+        String refusal = enabled ? refusal(cost, now) : null;
+        if (refusal != null && !admitted.isEmpty()) {
+            if (wait == null) {
+                wait = new Waiting(cost, now);
+                waiting.put(executionId, wait);
+                deferred++;
+            }
+            if (!refusal.equals(wait.reason)) {
+                wait.reason = refusal;
+                record(executionId, "DEFERRED", refusal, cost);
+            }
+            return null;
+        }
+        waiting.remove(executionId);
+        long waited = wait == null ? 0 : now - wait.since;
+        Ticket ticket = new Ticket(executionId, cost, now, waited, freeMemoryMb);
+        ticket.alone = admitted.isEmpty();
+        admitted.values().forEach(other -> other.alone = false);
+        admitted.put(executionId, ticket);
+        totalWaitMillis += waited;
+        if (refusal != null) {
+            admittedAlone++;
+            record(executionId, "ADMITTED", refusal + ", but no other run is active", cost);
+        } else if (waited > 0) {
+            admittedAfterWait++;
+            record(executionId, "ADMITTED", "within limits after " + waited / 1000 + "s", cost);
+        } else {
+            admittedAtOnce++;
+            record(executionId, "ADMITTED", "within limits", cost);
+        }
+        return ticket;
+    }
+
+    /**
+     * Why a waiting run is not admitted yet, or null if it is not waiting
+     */
+    public synchronized String getWaitReason(String executionId) {
+        Waiting wait = waiting.get(executionId);
+        return wait != null ? wait.reason : null;
+    }
+
+    public synchronized boolean isWaiting(String executionId) {
+        return waiting.containsKey(executionId);
+    }
+
+    /**
+     * Drop a run that gave up waiting
+     */
+    public synchronized void stopWaiting(String executionId) {
+        if (waiting.remove(executionId) != null) {
+            record(executionId, "WITHDRAWN", "stopped waiting", null);
+        }
+    }
+
+    /**
+     * Free the resources of a finished run. A run that had the machine to
+     * itself and finished scenarios over at least {@code min-learn-seconds}
+     * updates the learned cost of its profile; a run that failed early says
+     * nothing about what its scenarios need.
+     */
+    public synchronized void release(Ticket ticket, int finishedScenarios) {
+        if (admitted.remove(ticket.executionId) != ticket) {
+            return;
+        }
+        long ranMillis = System.currentTimeMillis() - ticket.admittedAt;
+        if (!ticket.alone || ticket.samples == 0 || finishedScenarios == 0
+                || ranMillis < TimeUnit.SECONDS.toMillis(minLearnSeconds)) {
+            return;
+        }
+        String tag = ticket.cost.profile.substring(ticket.cost.profile.indexOf(':') + 1);
+        long floor = minimumCost(tagCosts.getOrDefault(tag, defaultMemoryMb));
+        long used = Math.max(0, ticket.freeMemoryAtAdmissionMb - ticket.lowestFreeMemoryMb) / ticket.cost.lanes;
+        Long previous = learnedCosts.get(ticket.cost.profile);
+        long learned = Math.max(floor,
+                previous == null ? used : Math.round(SMOOTHING * used + (1 - SMOOTHING) * previous));
+        learnedCosts.put(ticket.cost.profile, learned);
+        logger.debug("Run {} used {} MB; {} now costs {} MB", ticket.executionId, used, ticket.cost.profile, learned);
+        saveProfiles();
+    }
+
+    /**
+     * Why the run does not fit right now, or null if it does
+     */
+    private String refusal(Cost cost, long now) {
+        double load = cpuLoad;
+        if (load > maxCpuLoad) {
+            return "CPU load " + Math.round(load * 100) + "% is above " + Math.round(maxCpuLoad * 100) + "%";
+        }
+        long reserved = reservedMemoryMb(now);
+        long headroom = os.getFreeMemorySize() / MB - reserved - minFreeMemoryMb;
+        if (cost.memoryMb > headroom) {
+            return "needs " + cost.memoryMb + " MB, " + Math.max(0, headroom) + " MB free above the "
+                    + minFreeMemoryMb + " MB reserve (" + reserved + " MB held for starting runs)";
+        }
+        return null;
+    }
+
+    /**
+     * Memory of runs admitted too recently to have allocated it
+     */
+    private long reservedMemoryMb(long now) {
+        long warmupMillis = TimeUnit.SECONDS.toMillis(warmupSeconds);
+        return admitted.values().stream()
+                .filter(ticket -> now - ticket.admittedAt < warmupMillis)
+                .mapToLong(ticket -> ticket.cost.memoryMb)
+                .sum();
+    }
+
+    private void sample() {
+        try {
+            double load = os.getCpuLoad();
+            if (load < 0 && os.getSystemLoadAverage() >= 0) {
+                load = os.getSystemLoadAverage() / os.getAvailableProcessors();
+            }
+            cpuLoad = load;
+            freeMemoryMb = os.getFreeMemorySize() / MB;
+            synchronized (this) {
+                for (Ticket ticket : admitted.values()) {
+                    ticket.lowestFreeMemoryMb = Math.min(ticket.lowestFreeMemoryMb, freeMemoryMb);
+                    ticket.samples++;
+                }
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Could not sample system resources: {}", e.getMessage());
+        }
+    }
+
+    private void record(String executionId, String decision, String reason, Cost cost) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("time", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+        entry.put("executionId", executionId);
+        entry.put("decision", decision);
+        entry.put("reason", reason);
+        if (cost != null) {
+            entry.put("profile", cost.profile);
+            entry.put("memoryMb", cost.memoryMb);
+        }
+        entry.put("cpuLoadPercent", Math.round(cpuLoad * 100));
+        entry.put("freeMemoryMb", freeMemoryMb);
+        decisions.addFirst(entry);
+        while (decisions.size() > RECENT_DECISIONS) {
+            decisions.removeLast();
+        }
+        logger.info("Admission {} {}: {}", decision.toLowerCase(), executionId, reason);
+    }
+
+    /**
+     * Limits, live readings, counters and recent decisions for the admission endpoint
+     */
+    public synchronized Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("maxCpuLoadPercent", Math.round(maxCpuLoad * 100));
+        status.put("minFreeMemoryMb", minFreeMemoryMb);
+        status.put("cpuLoadPercent", Math.round(cpuLoad * 100));
+        status.put("freeMemoryMb", freeMemoryMb);
+        status.put("reservedMemoryMb", reservedMemoryMb(System.currentTimeMillis()));
+        status.put("admittedAtOnce", admittedAtOnce);
+        status.put("admittedAfterWait", admittedAfterWait);
+        status.put("admittedAlone", admittedAlone);
+        status.put("deferred", deferred);
+        status.put("totalWaitSeconds", totalWaitMillis / 1000);
+
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> running = new ArrayList<>();
+        admitted.values().forEach(ticket -> running.add(Map.of("executionId", ticket.executionId,
+                "profile", ticket.cost.profile, "memoryMb", ticket.cost.memoryMb)));
+        status.put("admitted", running);
+        List<Map<String, Object>> queued = new ArrayList<>();
+        waiting.forEach((executionId, wait) -> queued.add(Map.of("executionId", executionId,
+                "profile", wait.cost.profile, "memoryMb", wait.cost.memoryMb,
+                "waitingSeconds", (now - wait.since) / 1000,
+                "reason", wait.reason == null ? "" : wait.reason)));
+        status.put("waiting", queued);
+        status.put("configuredMemoryMb", tagCosts);
+        status.put("learnedMemoryMb", new TreeMap<>(learnedCosts));
+        status.put("recentDecisions", new ArrayList<>(decisions));
+        return status;
+    }
+
+    private Map<String, Long> loadProfiles() {
+        File file = new File(PROFILES_FILE);
+        if (!file.exists()) {
+            return new TreeMap<>();
+        }
+        try {
+            return objectMapper.readValue(file, new TypeReference<TreeMap<String, Long>>() {
+            });
+        } catch (IOException e) {
+            logger.warn("Could not read resource profiles, using the configured costs", e);
+            return new TreeMap<>();
+        }
+    }
+
+    private void saveProfiles() {
+        try {
+            File file = new File(PROFILES_FILE);
+            file.getParentFile().mkdirs();
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, learnedCosts);
+        } catch (IOException e) {
+            logger.error("Error saving resource profiles", e);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.testautomation.service;
+
+import io.cucumber.tagexpressions.Expression;
+import io.cucumber.tagexpressions.TagExpressionParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Orders the scenarios of a run so the likely failures come first.
+ *
+ * A scenario's risk combines its recent failure rate with how recently its
+ * feature file changed: an edit made just now counts as a coin flip and
+ * halves in weight every {@code test.execution.risk-order.change-half-life-hours}.
+ * The two are treated as independent causes of failure.
+ */
+@Service
+public class RiskOrderPlanner {
+    private static final Logger logger = LoggerFactory.getLogger(RiskOrderPlanner.class);
+
+    @Autowired
+    private ScenarioStatistics scenarioStatistics;
+
+    @Value("${test.execution.risk-order.history-runs:20}")
+    private int historyRuns;
+    @Value("${test.execution.risk-order.change-half-life-hours:24}")
+    private double changeHalfLifeHours;
+
+    /**
+     * A scenario and the chance that it fails
+     */
+    public static class RankedScenario {
+        private final String location;
+        private final String name;
+        private final double risk;
+
+        RankedScenario(String location, String name, double risk) {
+            this.location = location;
+            this.name = name;
+            this.risk = risk;
+        }
+
+        public String getLocation() {
+            return location;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getRisk() {
+            return risk;
+        }
+    }
+
+    /**
+     * Scenarios of the feature (or feature:line:line) entries that match the
+     * tag expression, riskiest first
+     */
+    public List<RankedScenario> rank(List<String> entries, String tagExpression) {
+        Expression filter = tagExpression == null || tagExpression.isBlank() ? null
+                : TagExpressionParser.parse(tagExpression);
+        Map<String, ScenarioStatistics.Stats> history = scenarioStatistics.load(historyRuns);
+        long now = System.currentTimeMillis();
+
+        List<RankedScenario> ranked = new ArrayList<>();
+        for (String entry : entries) {
+            String feature = GherkinScenarios.featureOf(entry);
+            List<Integer> only = GherkinScenarios.linesOf(entry);
+            Path path = Paths.get(ExecutionRequest.FEATURES_DIR, feature);
+            List<GherkinScenarios.Definition> scenarios;
+            double changeRisk;
+            try {
+                scenarios = GherkinScenarios.parse(path);
+                double ageHours = Math.max(0, now - Files.getLastModifiedTime(path).toMillis()) / 3_600_000.0;
+                changeRisk = changeHalfLifeHours > 0 ? 0.5 * Math.pow(0.5, ageHours / changeHalfLifeHours) : 0;
+            } catch (IOException | RuntimeException e) {
+                // Unknown scenarios keep their file order after the ranked ones
+                logger.debug("Could not rank the scenarios of {}: {}", feature, e.getMessage());
+                continue;
+            }
+            for (GherkinScenarios.Definition scenario : scenarios) {
+                if ((only.isEmpty() || only.contains(scenario.getLine()))
+                        && (filter == null || filter.evaluate(scenario.getTags()))) {
+                    String location = feature + ":" + scenario.getLine();
+                    double failureRate = ScenarioStatistics.failureRate(history.get(location));
+                    double risk = 1 - (1 - failureRate) * (1 - changeRisk);
+                    ranked.add(new RankedScenario(location, scenario.getName(), risk));
+                }
+            }
+        }
+        ranked.sort(Comparator.comparingDouble(RankedScenario::getRisk).reversed()
+                .thenComparing(RankedScenario::getLocation));
+        return ranked;
+    }
+}
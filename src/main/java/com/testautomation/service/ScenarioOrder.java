@@ -0,0 +1,85 @@
+package com.testautomation.service;
+
+import io.cucumber.core.cli.Main;
+import io.cucumber.core.gherkin.Pickle;
+import io.cucumber.core.options.CommandlineOptionsParser;
+import io.cucumber.core.options.CucumberProperties;
+import io.cucumber.core.options.CucumberPropertiesParser;
+import io.cucumber.core.options.RuntimeOptions;
+import io.cucumber.core.order.PickleOrder;
+import io.cucumber.core.runtime.Runtime;
+
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Runs pickles in a given order of feature:line locations instead of
+ * Cucumber's file order. Pickles that are not listed keep their order
+ * after the listed ones.
+ */
+public class ScenarioOrder implements PickleOrder {
+    private final Map<String, Integer> ranks = new HashMap<>();
+
+    public ScenarioOrder(List<String> locations) {
+        for (int i = 0; i < locations.size(); i++) {
+            ranks.putIfAbsent(locations.get(i), i);
+        }
+    }
+
+    @Override
+    public List<Pickle> orderPickles(List<Pickle> pickles) {
+        // Stable, so unlisted pickles stay in file order
+        return pickles.stream()
+                .sorted(Comparator.comparingInt(pickle -> ranks.getOrDefault(locationOf(pickle), Integer.MAX_VALUE)))
+                .toList();
+    }
+
+    /**
+     * Feature:line of a pickle the way execution results name it
+     */
+    private static String locationOf(Pickle pickle) {
+        return Paths.get(pickle.getUri()).getFileName() + ":" + pickle.getLocation().getLine();
+    }
+
+    /**
+     * Same as {@link Main#run(String[], ClassLoader)}, with the pickles in the
+     * given order; Cucumber's command line only knows lexical and random order
+     */
+    public static byte run(String[] argv, List<String> order, ClassLoader classLoader) {
+        if (order == null || order.isEmpty()) {
+            return Main.run(argv, classLoader);
+        }
+        RuntimeOptions propertiesFileOptions = new CucumberPropertiesParser()
+                .parse(CucumberProperties.fromPropertiesFile())
+                .build();
+        RuntimeOptions environmentOptions = new CucumberPropertiesParser()
+                .parse(CucumberProperties.fromEnvironment())
+                .build(propertiesFileOptions);
+        RuntimeOptions systemOptions = new CucumberPropertiesParser()
+                .parse(CucumberProperties.fromSystemProperties())
+                .build(environmentOptions);
+        CommandlineOptionsParser commandlineOptionsParser = new CommandlineOptionsParser(System.out);
+        RuntimeOptions runtimeOptions = commandlineOptionsParser
+                .parse(argv)
+                .addDefaultGlueIfAbsent()
+                .addDefaultFeaturePathIfAbsent()
+                .addDefaultSummaryPrinterIfNotDisabled()
+                .enablePublishPlugin()
+                .setPickleOrder(new ScenarioOrder(order))
+                .build(systemOptions);
+        Optional<Byte> exitStatus = commandlineOptionsParser.exitStatus();
+        if (exitStatus.isPresent()) {
+            return exitStatus.get();
+        }
+        Runtime runtime = Runtime.builder()
+                .withRuntimeOptions(runtimeOptions)
+                .withClassLoader(() -> classLoader)
+                .build();
+        runtime.run();
+        return runtime.exitStatus();
+    }
+}
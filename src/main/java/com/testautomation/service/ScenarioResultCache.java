@@ -0,0 +1,307 @@
+package com.testautomation.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testautomation.model.ExecutionHistory;
+import io.cucumber.tagexpressions.Expression;
+import io.cucumber.tagexpressions.TagExpressionParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Opt-in memo of passed scenarios ({@code test.execution.result-cache.enabled}).
+ *
+ * A scenario that passed is not run again while its text, the test data
+ * and the step definition classes its feature used are unchanged and the
+ * result is younger than {@code test.execution.result-cache.ttl-minutes}.
+ * It is reported as passed (cached) instead. Scenarios tagged
+ * {@value #NO_CACHE_TAG} always run.
+ */
+@Service
+public class ScenarioResultCache {
+    private static final Logger logger = LoggerFactory.getLogger(ScenarioResultCache.class);
+    private static final String CACHE_FILE = "src/main/resources/data/scenario-cache.json";
+    public static final String NO_CACHE_TAG = "@nocache";
+
+    @Autowired
+    private TestImpactService testImpactService;
+
+    @Value("${test.execution.result-cache.enabled:false}")
+    private boolean enabled;
+    @Value("${test.execution.result-cache.ttl-minutes:60}")
+    private long ttlMinutes;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * A passed scenario with the hashes it passed against
+     */
+    public static class CachedResult {
+        private String executionId;
+        private String name;
+        private String scenarioHash;
+        private String dataHash;
+        private Map<String, String> glueHashes = new TreeMap<>();
+        private Long durationMillis;
+        private long passedAt;
+
+        public String getExecutionId() {
+            return executionId;
+        }
+
+        public void setExecutionId(String executionId) {
+            this.executionId = executionId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public String getScenarioHash() {
+            return scenarioHash;
+        }
+
+        public void setScenarioHash(String scenarioHash) {
+            this.scenarioHash = scenarioHash;
+        }
+
+        public String getDataHash() {
+            return dataHash;
+        }
+
+        public void setDataHash(String dataHash) {
+            this.dataHash = dataHash;
+        }
+
+        public Map<String, String> getGlueHashes() {
+            return glueHashes;
+        }
+
+        public void setGlueHashes(Map<String, String> glueHashes) {
+            this.glueHashes = glueHashes;
+        }
+
+        public Long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public void setDurationMillis(Long durationMillis) {
+            this.durationMillis = durationMillis;
+        }
+
+        public long getPassedAt() {
+            return passedAt;
+        }
+
+        public void setPassedAt(long passedAt) {
+            this.passedAt = passedAt;
+        }
+    }
+
+    /**
+     * Outcome of a lookup: the scenarios taken from the cache and the
+     * features (or feature:line:line entries) that still have to run
+     */
+    public static class Lookup {
+        private final TestImpactService.Snapshot snapshot;
+        // feature:line -> scenario hash of every cacheable scenario, taken when the run started
+        private final Map<String, String> scenarioHashes = new HashMap<>();
+        private final List<ExecutionHistory.ScenarioResult> hits = new ArrayList<>();
+        // Step definition classes the cached scenarios passed against, by feature
+        private final Map<String, Set<String>> glueByFeature = new HashMap<>();
+        private final List<String> remaining = new ArrayList<>();
+
+        Lookup(TestImpactService.Snapshot snapshot) {
+            this.snapshot = snapshot;
+        }
+
+        public List<ExecutionHistory.ScenarioResult> getHits() {
+            return hits;
+        }
+
+        public List<String> getRemaining() {
+            return remaining;
+        }
+
+        public Map<String, Set<String>> getGlueByFeature() {
+            return glueByFeature;
+        }
+    }
+
+    /**
+     * Split the scenarios of the features that match the tag expression into
+     * cached results and scenarios to run. Null when the cache is disabled or
+     * the sources cannot be hashed.
+     */
+    public Lookup lookup(List<String> featureFiles, String tagExpression) {
+        if (!enabled) {
+            return null;
+        }
+        Lookup lookup;
+        Expression filter;
+        try {
+            lookup = new Lookup(testImpactService.snapshot());
+            filter = tagExpression == null || tagExpression.isBlank() ? null : TagExpressionParser.parse(tagExpression);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Scenario result cache not used for this run: {}", e.getMessage());
+            return null;
+        }
+        Map<String, CachedResult> cache = loadCache();
+        long cutoff = System.currentTimeMillis() - ttlMinutes * 60_000;
+        for (String feature : featureFiles) {
+            List<GherkinScenarios.Definition> scenarios;
+            try {
+                scenarios = GherkinScenarios.parse(Paths.get(ExecutionRequest.FEATURES_DIR, feature));
+            } catch (IOException | RuntimeException e) {
+                lookup.remaining.add(feature);
+                continue;
+            }
+            List<Integer> toRun = new ArrayList<>();
+            boolean hit = false;
+            for (GherkinScenarios.Definition scenario : scenarios) {
+                if (filter != null && !filter.evaluate(scenario.getTags())) {
+                    continue;
+                }
+                if (scenario.getTags().contains(NO_CACHE_TAG)) {
+                    toRun.add(scenario.getLine());
+                    continue;
+                }
+                String location = feature + ":" + scenario.getLine();
+                String hash = sha256(String.join(" ", scenario.getTags()) + "\n" + scenario.getText());
+                lookup.scenarioHashes.put(location, hash);
+                CachedResult cached = cache.get(location);
+                if (isValid(cached, hash, lookup.snapshot, cutoff)) {
+                    lookup.hits.add(toResult(feature, scenario, cached));
+                    lookup.glueByFeature.computeIfAbsent(feature, f -> new HashSet<>())
+                            .addAll(cached.getGlueHashes().keySet());
+                    hit = true;
+                } else {
+                    toRun.add(scenario.getLine());
+                }
+            }
+            if (!toRun.isEmpty()) {
+                lookup.remaining.add(hit ? feature + ":"
+                        + toRun.stream().map(String::valueOf).collect(Collectors.joining(":")) : feature);
+            }
+        }
+        return lookup;
+    }
+
+    /**
+     * Remember the scenarios that passed on their first attempt and forget
+     * the ones that did not. Cached results keep their original time, so the
+     * TTL always counts from a real run.
+     */
+    public synchronized void recordRun(ExecutionHistory.Execution execution, Lookup lookup) {
+        if (lookup == null || execution.getScenarioResults() == null) {
+            return;
+        }
+        Map<String, Set<String>> glueByFeature = execution.getGlueByFeature() != null
+                ? execution.getGlueByFeature() : Map.of();
+        Map<String, CachedResult> cache = loadCache();
+        long now = System.currentTimeMillis();
+        for (ExecutionHistory.ScenarioResult result : execution.getScenarioResults()) {
+            String hash = lookup.scenarioHashes.get(result.getLocation());
+            if (Boolean.TRUE.equals(result.getCached()) || hash == null) {
+                continue;
+            }
+            // A scenario that needed a retry is flaky; it has to keep proving itself
+            if (!"PASSED".equals(result.getStatus()) || result.getAttempts() != null) {
+                cache.remove(result.getLocation());
+                continue;
+            }
+            CachedResult entry = new CachedResult();
+            entry.setExecutionId(execution.getExecutionId());
+            entry.setName(result.getName());
+            entry.setScenarioHash(hash);
+            entry.setDataHash(lookup.snapshot.getDataHash());
+            for (String glueClass : glueByFeature.getOrDefault(result.getFeatureFile(), Set.of())) {
+                entry.getGlueHashes().put(glueClass, lookup.snapshot.getGlueHashes().getOrDefault(glueClass, ""));
+            }
+            entry.setDurationMillis(result.getDurationMillis());
+            entry.setPassedAt(now);
+            cache.put(result.getLocation(), entry);
+        }
+        long cutoff = now - ttlMinutes * 60_000;
+        cache.values().removeIf(entry -> entry.getPassedAt() < cutoff);
+        saveCache(cache);
+    }
+
+    private static boolean isValid(CachedResult cached, String scenarioHash, TestImpactService.Snapshot snapshot,
+            long cutoff) {
+        if (cached == null || cached.getPassedAt() < cutoff || !scenarioHash.equals(cached.getScenarioHash())
+                || !snapshot.getDataHash().equals(cached.getDataHash())) {
+            return false;
+        }
+        return cached.getGlueHashes().entrySet().stream()
+                .allMatch(glue -> glue.getValue().equals(snapshot.getGlueHashes().get(glue.getKey())));
+    }
+
+    private static ExecutionHistory.ScenarioResult toResult(String feature, GherkinScenarios.Definition scenario,
+            CachedResult cached) {
+        ExecutionHistory.ScenarioResult result = new ExecutionHistory.ScenarioResult();
+        result.setFeatureFile(feature);
+        result.setLine(scenario.getLine());
+        result.setName(scenario.getName());
+        result.setStatus("PASSED");
+        result.setDurationMillis(cached.getDurationMillis());
+        result.setCached(true);
+        return result;
+    }
+
+    private Map<String, CachedResult> loadCache() {
+        File file = new File(CACHE_FILE);
+        if (!file.exists()) {
+            return new TreeMap<>();
+        }
+        try {
+            return objectMapper.readValue(file, new TypeReference<TreeMap<String, CachedResult>>() {
+            });
+        } catch (IOException e) {
+            logger.warn("Could not read scenario result cache, running every scenario", e);
+            return new TreeMap<>();
+        }
+    }
+
+    private void saveCache(Map<String, CachedResult> cache) {
+        try {
+            File file = new File(CACHE_FILE);
+            file.getParentFile().mkdirs();
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, cache);
+        } catch (IOException e) {
+            logger.error("Error saving scenario result cache", e);
+        }
+    }
+
+    private static String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.testautomation.service;
+
+import com.testautomation.model.ExecutionHistory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-scenario outcomes over the recent execution history, keyed by
+ * feature:line. Cached and skipped results say nothing about a scenario and
+ * are left out.
+ */
+@Service
+public class ScenarioStatistics {
+
+    @Autowired
+    private ExecutionHistoryService executionHistoryService;
+
+    public static class Stats {
+        private int runs;
+        private int failures;
+        private long totalMillis;
+        private int timedRuns;
+
+        public int getRuns() {
+            return runs;
+        }
+
+        public int getFailures() {
+            return failures;
+        }
+
+        /**
+         * Mean duration, or null when no run recorded one
+         */
+        public Long getMeanMillis() {
+            return timedRuns > 0 ? totalMillis / timedRuns : null;
+        }
+    }
+
+    /**
+     * Stats of the scenarios run by the last {@code executions} executions
+     */
+    public Map<String, Stats> load(int executions) {
+        Map<String, Stats> stats = new HashMap<>();
+        for (ExecutionHistory.Execution execution : executionHistoryService.getRecentExecutions(executions)) {
+            if (execution.getScenarioResults() == null) {
+                continue;
+            }
+            for (ExecutionHistory.ScenarioResult result : execution.getScenarioResults()) {
+                String status = result.getStatus();
+                if (Boolean.TRUE.equals(result.getCached()) || "SKIPPED".equals(status) || status == null) {
+                    continue;
+                }
+                Stats entry = stats.computeIfAbsent(result.getLocation(), l -> new Stats());
+                entry.runs++;
+                if (!"PASSED".equals(status)) {
+                    entry.failures++;
+                }
+                if (result.getDurationMillis() != null) {
+                    entry.totalMillis += result.getDurationMillis();
+                    entry.timedRuns++;
+                }
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Chance that the scenario fails, Laplace smoothed so that a scenario
+     * without history counts as a coin flip
+     */
+    public static double failureRate(Stats stats) {
+        return stats != null ? (stats.failures + 1.0) / (stats.runs + 2.0) : 0.5;
+    }
+}
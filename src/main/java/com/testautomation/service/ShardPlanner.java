@@ -0,0 +1,322 @@
+package com.testautomation.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testautomation.model.ExecutionHistory;
+import io.cucumber.tagexpressions.Expression;
+import io.cucumber.tagexpressions.TagExpressionParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Splits a run into shards of roughly equal duration.
+ *
+ * A smoothed duration is kept for every scenario (by feature and line) from
+ * earlier runs. Work is handed out longest first to the least loaded shard.
+ * A feature that alone would take longer than its fair share of the run is
+ * split into its scenarios so it can be spread over several shards.
+ */
+@Service
+public class ShardPlanner {
+    private static final Logger logger = LoggerFactory.getLogger(ShardPlanner.class);
+    private static final String TIMINGS_FILE = "src/main/resources/data/scenario-timings.json";
+    // Weight of the latest run in the smoothed durations
+    private static final double SMOOTHING = 0.5;
+
+    @Autowired
+    private BuildFingerprintService buildFingerprintService;
+
+    @Value("${test.execution.shard.default-scenario-millis:30000}")
+    private long defaultScenarioMillis;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Recorded durations of one feature file. Scenario lines are only
+     * trusted while the file still has the recorded hash.
+     */
+    public static class FeatureTimings {
+        private String featureHash;
+        private Long durationMillis;
+        private Map<Integer, Long> scenarios = new TreeMap<>();
+
+        public String getFeatureHash() {
+            return featureHash;
+        }
+
+        public void setFeatureHash(String featureHash) {
+            this.featureHash = featureHash;
+        }
+
+        public Long getDurationMillis() {
+            return durationMillis;
+        }
+
+        public void setDurationMillis(Long durationMillis) {
+            this.durationMillis = durationMillis;
+        }
+
+        public Map<Integer, Long> getScenarios() {
+            return scenarios;
+        }
+
+        public void setScenarios(Map<Integer, Long> scenarios) {
+            this.scenarios = scenarios;
+        }
+    }
+
+    /**
+     * Features (or feature:line entries) planned for one shard
+     */
+    public static class Shard {
+        private final List<String> features = new ArrayList<>();
+        private long plannedMillis;
+
+        public List<String> getFeatures() {
+            return features;
+        }
+
+        public long getPlannedMillis() {
+            return plannedMillis;
+        }
+    }
+
+    /**
+     * Plan the features over at most {@code maxShards} shards, longest
+     * processing time first. Entries may be restricted to scenarios in
+     * Cucumber's feature:line:line form; only scenarios matching the tag
+     * expression are weighed. Returns only non-empty shards.
+     */
+    public List<Shard> plan(List<String> featureFiles, String tagExpression, int maxShards) {
+        Expression filter = parseFilter(tagExpression);
+        Map<String, FeatureTimings> timings = loadTimings();
+        Map<String, Map<Integer, Long>> estimates = new LinkedHashMap<>();
+        long total = 0;
+        for (String entry : featureFiles) {
+            String feature = GherkinScenarios.featureOf(entry);
+            Map<Integer, Long> scenarios = estimateScenarios(feature, timings.get(feature), filter);
+            List<Integer> only = GherkinScenarios.linesOf(entry);
+            if (!only.isEmpty() && !scenarios.containsKey(null)) {
+                scenarios.keySet().retainAll(only);
+            }
+            if (scenarios.isEmpty()) {
+                // Nothing of this entry matches the tag expression
+                continue;
+            }
+            estimates.put(entry, scenarios);
+            total += scenarios.values().stream().mapToLong(Long::longValue).sum();
+        }
+        long fairShare = total / Math.max(1, maxShards);
+
+        List<Unit> units = new ArrayList<>();
+        estimates.forEach((entry, scenarios) -> {
+            long featureMillis = scenarios.values().stream().mapToLong(Long::longValue).sum();
+            if (featureMillis > fairShare && scenarios.size() > 1 && !scenarios.containsKey(null)) {
+                scenarios.forEach((line, millis) -> units.add(new Unit(GherkinScenarios.featureOf(entry), line, millis)));
+            } else {
+                units.add(new Unit(entry, null, featureMillis));
+            }
+        });
+        units.sort(Comparator.comparingLong((Unit u) -> u.millis).reversed()
+                .thenComparing(u -> u.feature).thenComparing(u -> u.line, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        int shardCount = Math.max(1, Math.min(maxShards, units.size()));
+        List<Shard> shards = new ArrayList<>();
+        List<Map<String, List<Integer>>> linesByShard = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new Shard());
+            linesByShard.add(new LinkedHashMap<>());
+        }
+        for (Unit unit : units) {
+            int target = 0;
+            for (int i = 1; i < shardCount; i++) {
+                if (shards.get(i).plannedMillis < shards.get(target).plannedMillis) {
+                    target = i;
+                }
+            }
+            shards.get(target).plannedMillis += unit.millis;
+            List<Integer> lines = linesByShard.get(target).computeIfAbsent(unit.feature, f -> new ArrayList<>());
+            if (unit.line != null) {
+                lines.add(unit.line);
+            }
+        }
+        // Scenarios of a split feature on the same shard run as one feature:line:line entry
+        for (int i = 0; i < shardCount; i++) {
+            List<String> features = shards.get(i).features;
+            linesByShard.get(i).forEach((feature, lines) -> features.add(lines.isEmpty() ? feature
+                    : feature + ":" + lines.stream().sorted().map(String::valueOf).collect(Collectors.joining(":"))));
+        }
+        shards.removeIf(shard -> shard.features.isEmpty());
+        return shards;
+    }
+
+    /**
+     * Estimated duration of every scenario (by feature:line) of the entries
+     * that matches the tag expression. Features that cannot be parsed are
+     * left out.
+     */
+    public Map<String, Long> estimate(List<String> featureFiles, String tagExpression) {
+        Expression filter = parseFilter(tagExpression);
+        Map<String, FeatureTimings> timings = loadTimings();
+        Map<String, Long> estimates = new LinkedHashMap<>();
+        for (String entry : featureFiles) {
+            String feature = GherkinScenarios.featureOf(entry);
+            List<Integer> only = GherkinScenarios.linesOf(entry);
+            List<GherkinScenarios.Definition> scenarios;
+            try {
+                scenarios = GherkinScenarios.parse(Paths.get(ExecutionRequest.FEATURES_DIR, feature));
+            } catch (IOException | RuntimeException e) {
+                continue;
+            }
+            Map<Integer, Long> durations = estimateScenarios(feature, timings.get(feature), null);
+            for (GherkinScenarios.Definition scenario : scenarios) {
+                if ((only.isEmpty() || only.contains(scenario.getLine()))
+                        && (filter == null || filter.evaluate(scenario.getTags()))) {
+                    estimates.put(feature + ":" + scenario.getLine(),
+                            durations.getOrDefault(scenario.getLine(), defaultScenarioMillis));
+                }
+            }
+        }
+        return estimates;
+    }
+
+    /**
+     * Update the recorded durations from the scenarios that ran in an execution
+     */
+    public synchronized void recordRun(ExecutionHistory.Execution execution) {
+        if (execution.getScenarioResults() == null || execution.getScenarioResults().isEmpty()) {
+            return;
+        }
+        Map<String, FeatureTimings> timings = loadTimings();
+        Map<String, List<ExecutionHistory.ScenarioResult>> byFeature = new HashMap<>();
+        for (ExecutionHistory.ScenarioResult result : execution.getScenarioResults()) {
+            // Skipped scenarios say nothing about how long they take
+            if (result.getFeatureFile() != null && result.getLine() != null && result.getDurationMillis() != null
+                    && ("PASSED".equals(result.getStatus()) || "FAILED".equals(result.getStatus()))) {
+                byFeature.computeIfAbsent(result.getFeatureFile(), f -> new ArrayList<>()).add(result);
+            }
+        }
+        byFeature.forEach((feature, results) -> {
+            String hash = featureHash(feature);
+            FeatureTimings entry = timings.get(feature);
+            if (entry == null || hash == null || !hash.equals(entry.getFeatureHash())) {
+                entry = new FeatureTimings();
+                entry.setFeatureHash(hash);
+                timings.put(feature, entry);
+            }
+            for (ExecutionHistory.ScenarioResult result : results) {
+                entry.getScenarios().merge(result.getLine(), result.getDurationMillis(),
+                        (previous, latest) -> Math.round(previous + SMOOTHING * (latest - previous)));
+            }
+            entry.setDurationMillis(entry.getScenarios().values().stream().mapToLong(Long::longValue).sum());
+        });
+        saveTimings(timings);
+    }
+
+    /**
+     * Estimated duration of every scenario of the feature matching the filter
+     * (all when null) by line. Scenarios without history get the feature's
+     * average, or the configured default. The single key {@code null} is used
+     * when the file cannot be parsed.
+     */
+    private Map<Integer, Long> estimateScenarios(String feature, FeatureTimings entry, Expression filter) {
+        List<Integer> lines = scenarioLines(feature, filter);
+        boolean current = entry != null && entry.getFeatureHash() != null
+                && entry.getFeatureHash().equals(featureHash(feature));
+        Map<Integer, Long> recorded = current ? entry.getScenarios() : Map.of();
+        long fallback = entry != null && !entry.getScenarios().isEmpty()
+                ? Math.round(entry.getScenarios().values().stream().mapToLong(Long::longValue).average().orElse(0))
+                : defaultScenarioMillis;
+
+        Map<Integer, Long> estimates = new TreeMap<>(Comparator.nullsFirst(Comparator.naturalOrder()));
+        if (lines == null) {
+            estimates.put(null, entry != null && entry.getDurationMillis() != null ? entry.getDurationMillis()
+                    : defaultScenarioMillis);
+            return estimates;
+        }
+        for (Integer line : lines) {
+            estimates.put(line, recorded.getOrDefault(line, fallback));
+        }
+        return estimates;
+    }
+
+    /**
+     * Line of every scenario (and example row) matching the filter that
+     * Cucumber would run for the feature; null when it cannot be parsed
+     */
+    private List<Integer> scenarioLines(String feature, Expression filter) {
+        Path path = Paths.get(ExecutionRequest.FEATURES_DIR, feature);
+        try {
+            return GherkinScenarios.parse(path).stream()
+                    .filter(scenario -> filter == null || filter.evaluate(scenario.getTags()))
+                    .map(GherkinScenarios.Definition::getLine).toList();
+        } catch (IOException | RuntimeException e) {
+            logger.debug("Could not parse {} for shard planning: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private static Expression parseFilter(String tagExpression) {
+        return tagExpression == null || tagExpression.isBlank() ? null : TagExpressionParser.parse(tagExpression);
+    }
+
+    private String featureHash(String feature) {
+        try {
+            return buildFingerprintService.contentHash(Paths.get(ExecutionRequest.FEATURES_DIR, feature));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private Map<String, FeatureTimings> loadTimings() {
+        File file = new File(TIMINGS_FILE);
+        if (!file.exists()) {
+            return new TreeMap<>();
+        }
+        try {
+            return objectMapper.readValue(file, new TypeReference<TreeMap<String, FeatureTimings>>() {
+            });
+        } catch (IOException e) {
+            logger.warn("Could not read scenario timings, planning with defaults", e);
+            return new TreeMap<>();
+        }
+    }
+
+    private void saveTimings(Map<String, FeatureTimings> timings) {
+        try {
+            File file = new File(TIMINGS_FILE);
+            file.getParentFile().mkdirs();
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, timings);
+        } catch (IOException e) {
+            logger.error("Error saving scenario timings", e);
+        }
+    }
+
+    private static class Unit {
+        private final String feature;
+        private final Integer line;
+        private final long millis;
+
+        Unit(String feature, Integer line, long millis) {
+            this.feature = feature;
+            this.line = line;
+            this.millis = millis;
+        }
+    }
+}
@@ -1,34 +1,46 @@
 
 package com.testautomation.service;
 
+import com.testautomation.exception.ExecutionPreemptedException;
+import com.testautomation.exception.StepProblemsException;
 import com.testautomation.model.ExecutionHistory;
+import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
 import java.io.BufferedReader;
-import java.io.File;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 @Service
 public class TestExecutionService {
     private static final Logger logger = LoggerFactory.getLogger(TestExecutionService.class);
     private static final String REPORTS_DIR = "src/main/resources/reports/cucumber";
-
-    @Value("${maven.home:}")
-    private String mavenHome;
+    private static final String MESSAGE_PLUGIN = "message:";
+    private static final String SHARD_SEPARATOR = "-shard-";
+    private static final String RETRY_SEPARATOR = "-retry-";
+    private static final long ADMISSION_POLL_MILLIS = 1000;
+    // Run time printed by Cucumber at the end of a run, e.g. "1m 2.345s"
+    private static final Pattern CUCUMBER_DURATION = Pattern.compile("\\d+m ?\\d+[.,]\\d+s");
 
     @Autowired
-    private SimpMessagingTemplate messagingTemplate;
+    private ProgressPublisher progressPublisher;
 
     @Autowired
     private ExecutionHistoryService executionHistoryService;
@@ -39,31 +51,784 @@ public class TestExecutionService {
     @Autowired
     private TagService tagService;
 
-    @Value("${test.execution.maven.command:mvn}")
-    private String configuredMavenCommand;
-    @Value("${test.execution.timeout.seconds:900}")
-    private int executionTimeoutSeconds;
+    @Autowired
+    private MavenExecutionEngine mavenEngine;
+
+    @Autowired
+    private List<ExecutionEngine> engines;
+
+    @Autowired
+    private ReportMergeService reportMergeService;
+
+    @Autowired
+    private ExecutionScheduler executionScheduler;
+
+    @Autowired
+    private ProcessSupervisor processSupervisor;
+
+    @Autowired
+    private ExecutionLogService executionLogService;
 
-    // Track running processes by executionId to enable cancellation
-    private final Map<String, Process> runningProcesses = new ConcurrentHashMap<>();
+    @Autowired
+    private TestImpactService testImpactService;
+
+    @Autowired
+    private ShardPlanner shardPlanner;
+
+    @Autowired
+    private ExecutionCoalescer executionCoalescer;
+
+    @Autowired
+    private ScenarioResultCache scenarioResultCache;
+
+    @Autowired
+    private BudgetPlanner budgetPlanner;
+
+    @Autowired
+    private RiskOrderPlanner riskOrderPlanner;
+    @Autowired
+    private ResourceAdmission resourceAdmission;
+    @Autowired
+    private DryRunPreflight dryRunPreflight;
+
+    @Value("${test.execution.engine:maven}")
+    private String defaultEngine;
+    @Value("${test.execution.parallel-threads:4}")
+    private int parallelThreads;
+    @Value("${test.execution.max-retries:0}")
+    private int maxRetries;
+    @Value("${test.execution.abort.max-failures:0}")
+    private int defaultMaxFailures;
+    @Value("${test.execution.abort.max-failure-rate:0}")
+    private int defaultMaxFailureRate;
+    @Value("${test.execution.abort.min-scenarios:10}")
+    private int defaultMinScenarios;
+    @Value("${test.execution.order:file}")
+    private String defaultOrder;
+
+    // Track running executions by executionId (shards and retries by executionId-shard-N /
+    // executionId-retry-N) to enable cancellation
+    private final Map<String, ExecutionHandle> runningProcesses = new ConcurrentHashMap<>();
+    // Shards block on process output, so they get their own threads
+    private final ExecutorService shardExecutor = Executors.newCachedThreadPool();
+    // Abort policies of running executions, shared by their shards
+    private final Map<String, AbortPolicy> abortPolicies = new ConcurrentHashMap<>();
+    // Progress of running executions against their plan, shared by their shards
+    private final Map<String, ProgressTracker> progressTrackers = new ConcurrentHashMap<>();
+    // Executions whose processes were stopped for a higher-priority execution
+    private final Set<String> preempted = ConcurrentHashMap.newKeySet();
+    // Executions cancelled while waiting for resources
+    private final Set<String> withdrawn = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    void registerPreemptionHandler() {
+        executionScheduler.setPreemptionHandler(this::preempt, this::clearRunState);
+    }
 
     /**
-     * Execute Maven command using ProcessBuilder
+     * Resolve an engine by name, falling back to the configured default
      */
-    private Process executeMavenCommand(List<String> arguments) throws Exception {
-        ProcessBuilder processBuilder = new ProcessBuilder();
+    public ExecutionEngine resolveEngine(String engineName) {
+        String name = engineName == null || engineName.isBlank() ? defaultEngine : engineName;
+        return engines.stream()
+                .filter(e -> e.getName().equalsIgnoreCase(name))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown execution engine: " + name
+                        + ". Available: " + engines.stream().map(ExecutionEngine::getName).toList()));
+    }
 
-        List<String> command = new ArrayList<>();
-        command.add(getMavenCommand());
-        command.addAll(arguments);
+    /**
+     * Start the request on the engine, stream its output and collect the results
+     * into the execution. Progress is reported under the execution's id; the
+     * request id identifies the running process (they differ for shards).
+     */
+    private ExecutionHistory.Execution executeRun(ExecutionHistory.Execution execution, ExecutionRequest request,
+            ExecutionEngine engine) throws Exception {
+        String executionId = execution.getExecutionId();
+        String processKey = request.getExecutionId();
+        execution.setEngine(engine.getName());
+
+        Path messageFile = messageFileOf(request);
+        if (messageFile == null) {
+            messageFile = request.getOutputDirectory().resolve("messages.ndjson");
+            request.addPlugin(MESSAGE_PLUGIN + messageFile);
+        }
+        Files.deleteIfExists(messageFile);
+
+        ExecutionHandle process = engine.start(request);
+        AbortPolicy abortPolicy = abortPolicies.get(executionId);
+        ProgressTracker tracker = progressTrackers.get(executionId);
+        MessageResultCollector results = new MessageResultCollector(messageFile, result -> {
+            if (abortPolicy != null) {
+                abortPolicy.onScenarioFinished(result);
+            }
+            if (tracker != null) {
+                tracker.onScenarioFinished(result);
+            }
+        });
+        results.start();
+        runningProcesses.put(processKey, process);
+        // A shard that started after the execution was aborted
+        if (abortPolicy != null && abortPolicy.isTripped()) {
+            process.destroy();
+        }
+        processSupervisor.supervise(processKey, process, new ProcessSupervisor.Listener() {
+            @Override
+            public void onHeartbeat() {
+                if (tracker != null) {
+                    sendProgressUpdate(executionId, "Execution in progress...", tracker);
+                } else {
+                    sendProgressUpdate(executionId, "Execution in progress...", 40);
+                }
+            }
 
-        processBuilder.command(command);
-        processBuilder.directory(new File(System.getProperty("user.dir")));
-        processBuilder.redirectErrorStream(true);
+            @Override
+            public void onTimeout(int timeoutSeconds) {
+                sendProgressUpdate(executionId, "Execution timed out", -1);
+            }
+        });
 
-        logger.info("Executing command: {}", String.join(" ", command));
+        long started = System.currentTimeMillis();
+        String duration = null;
+        // Shards share the parent's log, so their lines are prefixed
+        String prefix = processKey.equals(executionId) ? ""
+                : "[" + processKey.substring(executionId.length() + 1) + "] ";
+        int exitCode;
+        try (ExecutionLog log = executionLogService.open(executionId);
+                BufferedReader reader = new BufferedReader(new InputStreamReader(process.getOutput()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                log.append(prefix + line);
+
+                if (line.contains("Scenario:") && tracker != null) {
+                    tracker.onScenarioStarted();
+                    sendProgressUpdate(executionId, "Running: " + line, tracker);
+                } else if (line.contains("BUILD SUCCESS")) {
+                    sendProgressUpdate(executionId, "Build succeeded", 95);
+                } else if (line.contains("BUILD FAILURE")) {
+                    sendProgressUpdate(executionId, "Build failed", -1);
+                } else if (CUCUMBER_DURATION.matcher(line.trim()).matches()) {
+                    duration = line.trim();
+                }
+            }
+            exitCode = process.waitFor();
+        } finally {
+            results.finish();
+        }
+        runningProcesses.remove(processKey);
+        processSupervisor.release(processKey);
+        logger.info("Execution finished. Exit code: {}", exitCode);
+
+        execution.setStatus(exitCode == 0 ? "PASSED" : "FAILED");
+        execution.setDuration(duration != null ? duration : formatDuration(System.currentTimeMillis() - started));
+        results.applyTo(execution);
+        return execution;
+    }
 
-        return processBuilder.start();
+    /**
+     * Run the given features, either as one run or split across up to
+     * {@code test.execution.parallel-threads} concurrent shards of similar
+     * expected duration
+     */
+    private ExecutionHistory.Execution executePlanned(ExecutionHistory.Execution execution,
+            List<String> featureFiles, ExecutionRequest request, ExecutionOptions options) throws Exception {
+        ExecutionEngine engine = resolveEngine(options.getEngine());
+        ScenarioResultCache.Lookup cache = scenarioResultCache.lookup(featureFiles, request.getTagExpression());
+        List<ExecutionHistory.ScenarioResult> cached = cache != null ? cache.getHits() : List.of();
+        List<String> toRun = featureFiles;
+        if (!cached.isEmpty()) {
+            toRun = cache.getRemaining();
+            request.setFeatures(toRun.stream().map(f -> ExecutionRequest.FEATURES_DIR + "/" + f).toList());
+            sendProgressUpdate(execution.getExecutionId(), cached.size()
+                    + " scenarios unchanged since they passed; taking their results from the cache", 22);
+        }
+
+        Integer budgetSeconds = options.getTimeBudgetSeconds();
+        if (budgetSeconds != null && budgetSeconds > 0 && !toRun.isEmpty()) {
+            toRun = applyTimeBudget(execution, toRun, request, options);
+        }
+
+        if (toRun.isEmpty()) {
+            execution.setEngine(engine.getName());
+            execution.setStatus(cached.isEmpty() ? "SKIPPED" : "PASSED");
+            execution.setDuration(formatDuration(0));
+            execution.setTotalScenarios(0);
+            execution.setPassedScenarios(0);
+            execution.setFailedScenarios(0);
+            execution.setSkippedScenarios(0);
+        } else {
+            String executionId = execution.getExecutionId();
+            if (!options.isStepsChecked() && !passesPreflight(execution, toRun, request)) {
+                return execution;
+            }
+            if (ExecutionOptions.ORDER_RISK.equals(resolveOrder(options))) {
+                applyRiskOrder(execution, toRun, request);
+            }
+            List<ShardPlanner.Shard> plan = options.isParallel() && parallelThreads > 1
+                    ? shardPlanner.plan(toRun, request.getTagExpression(), parallelThreads) : List.of();
+            ResourceAdmission.Ticket admission = awaitAdmission(execution, toRun, request, engine,
+                    Math.max(1, plan.size()));
+            try {
+                AbortPolicy abortPolicy = newAbortPolicy(executionId, options);
+                if (abortPolicy.isActive()) {
+                    abortPolicies.put(executionId, abortPolicy);
+                }
+                try {
+                    checkPreempted(executionId);
+                    progressTrackers.put(executionId, new ProgressTracker(
+                            shardPlanner.estimate(toRun, request.getTagExpression()), Math.max(1, plan.size()),
+                            25, 90));
+                    if (plan.size() > 1) {
+                        executeSharded(execution, plan, request, engine);
+                    } else {
+                        executeRun(execution, request, engine);
+                    }
+                } finally {
+                    abortPolicies.remove(executionId);
+                    progressTrackers.remove(executionId);
+                }
+                checkPreempted(executionId);
+                // Timings of the first attempt, before retries replace the failed ones
+                shardPlanner.recordRun(execution);
+                if (abortPolicy.isTripped()) {
+                    if (execution.getScenarioResults() != null) {
+                        countScenarios(execution);
+                    }
+                    execution.setStatus("ABORTED");
+                    execution.setNotes(execution.getNotes() == null ? abortPolicy.getReason()
+                            : abortPolicy.getReason() + "; " + execution.getNotes());
+                } else {
+                    retryFailedScenarios(execution, request, engine);
+                    checkPreempted(executionId);
+                }
+            } finally {
+                resourceAdmission.release(admission, Objects.requireNonNullElse(execution.getPassedScenarios(), 0)
+                        + Objects.requireNonNullElse(execution.getFailedScenarios(), 0));
+            }
+        }
+        addCachedResults(execution, cache);
+        scenarioResultCache.recordRun(execution, cache);
+        sendProgressUpdate(execution.getExecutionId(), "Processing results...", 95);
+        if (!toRun.isEmpty()) {
+            attachReport(execution);
+        }
+        return execution;
+    }
+
+    /**
+     * Dry-run the features a request selects before it is queued, against the
+     * glue compiled already, and throw {@link StepProblemsException} when a step
+     * is undefined or ambiguous. When the glue has to be compiled first, the
+     * run makes the check itself in its slot (see {@link #passesPreflight}).
+     */
+    private void checkSteps(List<String> featureFiles, String tagExpression, ExecutionOptions options) {
+        if (featureFiles.isEmpty()) {
+            return;
+        }
+        DryRunPreflight.Result preflight = dryRunPreflight.checkCompiled(featureFiles, tagExpression);
+        if (preflight == null) {
+            return;
+        }
+        if (!preflight.getProblems().isEmpty()) {
+            throw new StepProblemsException("Execution rejected: " + describeStepProblems(preflight.getProblems()),
+                    preflight.getProblems());
+        }
+        options.setStepsChecked(true);
+    }
+
+    /**
+     * Dry-run the planned scenarios and reject the execution when a step is
+     * undefined or ambiguous, before any engine or browser is started.
+     * Returns false when the execution was rejected.
+     */
+    private boolean passesPreflight(ExecutionHistory.Execution execution, List<String> toRun,
+            ExecutionRequest request) {
+        DryRunPreflight.Result preflight = dryRunPreflight.check(toRun, request.getTagExpression());
+        if (preflight == null || preflight.getProblems().isEmpty()) {
+            return true;
+        }
+        String executionId = execution.getExecutionId();
+        List<ExecutionHistory.StepProblem> problems = preflight.getProblems();
+        execution.setStatus("REJECTED");
+        execution.setDuration(formatDuration(preflight.getDurationMillis()));
+        execution.setTotalScenarios(preflight.getScenarios());
+        execution.setPassedScenarios(0);
+        execution.setFailedScenarios(0);
+        execution.setSkippedScenarios(preflight.getScenarios());
+        execution.setStepProblems(problems);
+        String note = describeStepProblems(problems);
+        execution.setNotes(execution.getNotes() == null ? note : note + "; " + execution.getNotes());
+        logger.warn("Execution {} rejected: {}", executionId, note);
+        try (ExecutionLog log = executionLogService.open(executionId)) {
+            for (ExecutionHistory.StepProblem problem : problems) {
+                log.append(problem.getStatus() + " " + problem.getLocation() + " " + problem.getStep());
+                if (problem.getMessage() != null) {
+                    log.append(problem.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Could not log the step problems of {}: {}", executionId, e.getMessage());
+        }
+        return false;
+    }
+
+    private static String describeStepProblems(List<ExecutionHistory.StepProblem> problems) {
+        return problems.size() + " undefined or ambiguous step(s): " + problems.stream()
+                .map(problem -> problem.getLocation() + " (" + problem.getStatus().toLowerCase() + ")")
+                .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Final progress message of an execution that ran to its end
+     */
+    private void sendCompleted(ExecutionHistory.Execution execution) {
+        if ("REJECTED".equals(execution.getStatus())) {
+            sendProgressUpdate(execution.getExecutionId(), "Execution rejected: "
+                    + describeStepProblems(execution.getStepProblems()), -1);
+        } else {
+            sendProgressUpdate(execution.getExecutionId(), "Execution completed!", 100);
+        }
+    }
+
+    /**
+     * Wait until the machine has room for the run (see {@link ResourceAdmission}),
+     * reporting why it waits. Preemption and cancellation end the wait.
+     */
+    private ResourceAdmission.Ticket awaitAdmission(ExecutionHistory.Execution execution, List<String> toRun,
+            ExecutionRequest request, ExecutionEngine engine, int lanes) throws InterruptedException {
+        String executionId = execution.getExecutionId();
+        ResourceAdmission.Cost cost = resourceAdmission.estimate(toRun, request.getTagExpression(), engine.getName(),
+                lanes);
+        ResourceAdmission.Ticket ticket = null;
+        String reported = null;
+        try {
+            while ((ticket = resourceAdmission.tryAdmit(executionId, cost)) == null) {
+                checkPreempted(executionId);
+                if (withdrawn.remove(executionId)) {
+                    throw new CancellationException("Execution cancelled while waiting for resources");
+                }
+                String reason = resourceAdmission.getWaitReason(executionId);
+                if (!Objects.equals(reason, reported)) {
+                    sendProgressUpdate(executionId, "Waiting for resources: " + reason, 24);
+                    reported = reason;
+                }
+                Thread.sleep(ADMISSION_POLL_MILLIS);
+            }
+        } finally {
+            if (ticket == null) {
+                resourceAdmission.stopWaiting(executionId);
+            }
+        }
+        if (ticket.getWaitedMillis() > 0) {
+            String note = "Waited " + formatDuration(ticket.getWaitedMillis()) + " for resources ("
+                    + cost.getMemoryMb() + " MB expected for " + cost.getProfile() + ")";
+            logger.info("Execution {}: {}", executionId, note);
+            execution.setNotes(execution.getNotes() == null ? note : execution.getNotes() + "; " + note);
+            try (ExecutionLog log = executionLogService.open(executionId)) {
+                log.append(note);
+            } catch (IOException e) {
+                logger.warn("Could not log the admission of {}: {}", executionId, e.getMessage());
+            }
+        }
+        return ticket;
+    }
+
+    /**
+     * Narrow the run to the scenarios that fit the time budget (spread over
+     * the shards of a parallel run) and record what was deferred and why.
+     * Returns the feature entries to run.
+     */
+    private List<String> applyTimeBudget(ExecutionHistory.Execution execution, List<String> toRun,
+            ExecutionRequest request, ExecutionOptions options) {
+        String executionId = execution.getExecutionId();
+        int budgetSeconds = options.getTimeBudgetSeconds();
+        int lanes = options.isParallel() && parallelThreads > 1 ? parallelThreads : 1;
+        BudgetPlanner.Plan budget = budgetPlanner.plan(toRun, request.getTagExpression(),
+                budgetSeconds * 1000L * lanes);
+        request.setFeatures(budget.getSelected().stream().map(f -> ExecutionRequest.FEATURES_DIR + "/" + f).toList());
+        execution.setTimeBudgetSeconds(budgetSeconds);
+        execution.setDeferredScenarios(budget.getDeferred());
+
+        String note = "Time budget " + budgetSeconds + "s: " + budget.getSelectedScenarios() + " scenario(s) planned ("
+                + formatDuration(budget.getPlannedMillis() / lanes) + "), " + budget.getDeferred().size() + " deferred";
+        logger.info("Execution {}: {}", executionId, note);
+        sendProgressUpdate(executionId, note, 24);
+        execution.setNotes(execution.getNotes() == null ? note : execution.getNotes() + "; " + note);
+        try (ExecutionLog log = executionLogService.open(executionId)) {
+            log.append(note);
+            for (ExecutionHistory.DeferredScenario deferred : budget.getDeferred()) {
+                log.append("DEFERRED " + deferred.getLocation() + " " + deferred.getName() + " (est. "
+                        + deferred.getEstimatedMillis() / 1000 + "s, failure rate "
+                        + Math.round(deferred.getFailureRate() * 100) + "%): " + deferred.getReason());
+            }
+        } catch (IOException e) {
+            logger.warn("Could not log the time budget plan of {}: {}", executionId, e.getMessage());
+        }
+        return budget.getSelected();
+    }
+
+    /**
+     * Run the likely failures first, so they reach the progress stream early
+     */
+    private void applyRiskOrder(ExecutionHistory.Execution execution, List<String> toRun, ExecutionRequest request) {
+        String executionId = execution.getExecutionId();
+        List<RiskOrderPlanner.RankedScenario> ranked = riskOrderPlanner.rank(toRun, request.getTagExpression());
+        request.setScenarioOrder(ranked.stream().map(RiskOrderPlanner.RankedScenario::getLocation).toList());
+        if (ranked.isEmpty()) {
+            return;
+        }
+        RiskOrderPlanner.RankedScenario first = ranked.get(0);
+        String note = "Risk order: " + ranked.size() + " scenario(s), riskiest first ("
+                + first.getLocation() + ", " + Math.round(first.getRisk() * 100) + "%)";
+        logger.info("Execution {}: {}", executionId, note);
+        sendProgressUpdate(executionId, note, 24);
+        try (ExecutionLog log = executionLogService.open(executionId)) {
+            log.append(note);
+            for (RiskOrderPlanner.RankedScenario scenario : ranked) {
+                log.append("ORDER " + scenario.getLocation() + " " + scenario.getName() + " (risk "
+                        + Math.round(scenario.getRisk() * 100) + "%)");
+            }
+        } catch (IOException e) {
+            logger.warn("Could not log the scenario order of {}: {}", executionId, e.getMessage());
+        }
+    }
+
+    /**
+     * Scenario order of a request, defaulting to {@code test.execution.order}
+     */
+    public String resolveOrder(ExecutionOptions options) {
+        String order = options.getOrder() == null || options.getOrder().isBlank() ? defaultOrder : options.getOrder();
+        order = order.trim().toLowerCase();
+        if (!ExecutionOptions.ORDER_FILE.equals(order) && !ExecutionOptions.ORDER_RISK.equals(order)) {
+            throw new IllegalArgumentException("Unknown scenario order: " + order + ". Available: "
+                    + List.of(ExecutionOptions.ORDER_FILE, ExecutionOptions.ORDER_RISK));
+        }
+        return order;
+    }
+
+    /**
+     * Throws IllegalArgumentException when the execution id is not usable as a
+     * file name, the engine is unknown or unavailable, or the scenario order or
+     * priority class is unknown
+     */
+    public void checkOptions(String executionId, ExecutionOptions options) {
+        ExecutionRequest.checkExecutionId(executionId);
+        ExecutionEngine engine = resolveEngine(options.getEngine());
+        resolveOrder(options);
+        resolvePriority(options);
+        if (!engine.isAvailable()) {
+            throw new IllegalArgumentException(engine.getUnavailableMessage());
+        }
+    }
+
+    /**
+     * Priority class of a request, defaulting to normal
+     */
+    public ExecutionPriority resolvePriority(ExecutionOptions options) {
+        return ExecutionPriority.parse(options.getPriority());
+    }
+
+    /**
+     * Abort policy of an execution from its options and the configured defaults.
+     * When it fires, every process of the execution is stopped.
+     */
+    private AbortPolicy newAbortPolicy(String executionId, ExecutionOptions options) {
+        return new AbortPolicy(
+                Objects.requireNonNullElse(options.getMaxFailures(), defaultMaxFailures),
+                Objects.requireNonNullElse(options.getMaxFailureRate(), defaultMaxFailureRate),
+                Objects.requireNonNullElse(options.getMinScenarios(), defaultMinScenarios),
+                reason -> {
+                    logger.warn("Execution {}: {}", executionId, reason);
+                    destroyProcesses(executionId);
+                    sendProgressUpdate(executionId, reason, -1);
+                });
+    }
+
+    /**
+     * Count scenarios taken from the result cache as passed and list them
+     * with the results of the run. The step definitions they passed against
+     * count as used by their features, so the impact baseline of a feature
+     * served entirely from the cache still notices glue changes.
+     */
+    private void addCachedResults(ExecutionHistory.Execution execution, ScenarioResultCache.Lookup cache) {
+        if (cache == null || cache.getHits().isEmpty()) {
+            return;
+        }
+        List<ExecutionHistory.ScenarioResult> cached = cache.getHits();
+        Map<String, Set<String>> glueByFeature = new HashMap<>();
+        if (execution.getGlueByFeature() != null) {
+            execution.getGlueByFeature().forEach((feature, glue) -> glueByFeature.put(feature, new HashSet<>(glue)));
+        }
+        cache.getGlueByFeature().forEach((feature, glue) ->
+                glueByFeature.computeIfAbsent(feature, f -> new HashSet<>()).addAll(glue));
+        execution.setGlueByFeature(glueByFeature);
+
+        List<ExecutionHistory.ScenarioResult> results = new ArrayList<>();
+        if (execution.getScenarioResults() != null) {
+            results.addAll(execution.getScenarioResults());
+        }
+        results.addAll(cached);
+        execution.setScenarioResults(results);
+        execution.setTotalScenarios(Objects.requireNonNullElse(execution.getTotalScenarios(), 0) + cached.size());
+        execution.setPassedScenarios(Objects.requireNonNullElse(execution.getPassedScenarios(), 0) + cached.size());
+        if (execution.getFailedScenarios() == null) {
+            execution.setFailedScenarios(0);
+            execution.setSkippedScenarios(0);
+        }
+
+        try (ExecutionLog log = executionLogService.open(execution.getExecutionId())) {
+            for (ExecutionHistory.ScenarioResult result : cached) {
+                log.append("PASSED (cached) " + result.getLocation() + " " + result.getName());
+            }
+        } catch (IOException e) {
+            logger.warn("Could not log cached results of {}: {}", execution.getExecutionId(), e.getMessage());
+        }
+        String note = cached.size() + " scenario(s) PASSED (cached), not run again";
+        execution.setNotes(execution.getNotes() == null ? note : execution.getNotes() + "; " + note);
+    }
+
+    /**
+     * Rerun only the failed scenarios, up to {@code test.execution.max-retries}
+     * times, as sub-attempts of the execution. Scenario results and counters
+     * are updated with the outcome of the last attempt; step counters keep
+     * the first attempt.
+     */
+    private void retryFailedScenarios(ExecutionHistory.Execution execution, ExecutionRequest template,
+            ExecutionEngine engine) throws Exception {
+        List<ExecutionHistory.ScenarioResult> results = execution.getScenarioResults();
+        if (maxRetries <= 0 || results == null) {
+            return;
+        }
+        String executionId = execution.getExecutionId();
+        List<String> passedOnRetry = new ArrayList<>();
+        int attempt = 0;
+        while (attempt < maxRetries) {
+            // Undefined, ambiguous and pending steps fail the same way every time
+            List<ExecutionHistory.ScenarioResult> failed = results.stream()
+                    .filter(r -> "FAILED".equals(r.getStatus()) && r.getFeatureFile() != null && r.getLine() != null)
+                    .toList();
+            if (failed.isEmpty() || preempted.contains(executionId)) {
+                break;
+            }
+            attempt++;
+            sendProgressUpdate(executionId, "Retrying " + failed.size() + " failed scenarios (attempt " + attempt
+                    + "/" + maxRetries + ")", 92);
+
+            Map<String, List<Integer>> linesByFeature = new LinkedHashMap<>();
+            failed.forEach(r -> linesByFeature.computeIfAbsent(r.getFeatureFile(), f -> new ArrayList<>())
+                    .add(r.getLine()));
+            ExecutionRequest retryRequest = new ExecutionRequest(executionId + RETRY_SEPARATOR + attempt)
+                    .setTagExpression(template.getTagExpression());
+            linesByFeature.forEach((feature, lines) -> retryRequest.addFeature(ExecutionRequest.FEATURES_DIR + "/"
+                    + feature + ":" + lines.stream().map(String::valueOf).collect(Collectors.joining(":"))));
+
+            ExecutionHistory.Execution retryExecution = new ExecutionHistory.Execution();
+            retryExecution.setExecutionId(executionId);
+            Map<String, Long> estimates = new LinkedHashMap<>();
+            failed.forEach(r -> estimates.put(r.getLocation(),
+                    Objects.requireNonNullElse(r.getDurationMillis(), 0L)));
+            progressTrackers.put(executionId, new ProgressTracker(estimates, 1, 90, 94));
+            try {
+                executeRun(retryExecution, retryRequest, engine);
+            } finally {
+                progressTrackers.remove(executionId);
+            }
+
+            Map<String, ExecutionHistory.ScenarioResult> retried = new HashMap<>();
+            if (retryExecution.getScenarioResults() != null) {
+                retryExecution.getScenarioResults().forEach(r -> retried.put(r.getLocation(), r));
+            }
+            for (ExecutionHistory.ScenarioResult result : failed) {
+                ExecutionHistory.ScenarioResult again = retried.get(result.getLocation());
+                if (again == null) {
+                    continue;
+                }
+                result.setAttempts(attempt + 1);
+                result.setStatus(again.getStatus());
+                result.setDurationMillis(again.getDurationMillis());
+                if ("PASSED".equals(again.getStatus())) {
+                    passedOnRetry.add(result.getLocation());
+                }
+            }
+        }
+        if (attempt == 0) {
+            return;
+        }
+
+        int failed = countScenarios(execution);
+        int passed = execution.getPassedScenarios();
+        execution.setRetryAttempts(attempt);
+        execution.setPassedOnRetry(passedOnRetry);
+        if (failed == 0) {
+            execution.setStatus("PASSED");
+        }
+        if (!passedOnRetry.isEmpty()) {
+            String note = passedOnRetry.size() + " scenario(s) passed on retry: " + String.join(", ", passedOnRetry);
+            execution.setNotes(execution.getNotes() == null ? note : execution.getNotes() + "; " + note);
+        }
+        logger.info("Execution {} after {} retries: {} passed, {} failed", executionId, attempt, passed, failed);
+    }
+
+    /**
+     * Recount the scenario counters from the scenario results after their
+     * statuses changed; returns the number of failed scenarios
+     */
+    private int countScenarios(ExecutionHistory.Execution execution) {
+        int passed = 0, failed = 0, skipped = 0;
+        for (ExecutionHistory.ScenarioResult result : execution.getScenarioResults()) {
+            switch (result.getStatus()) {
+                case "PASSED" -> passed++;
+                case "SKIPPED" -> skipped++;
+                default -> failed++;
+            }
+        }
+        execution.setPassedScenarios(passed);
+        execution.setFailedScenarios(failed);
+        execution.setSkippedScenarios(skipped);
+        return failed;
+    }
+
+    /**
+     * Run the planned shards concurrently and merge their results and reports
+     * into the parent execution
+     */
+    private void executeSharded(ExecutionHistory.Execution execution, List<ShardPlanner.Shard> plan,
+            ExecutionRequest template, ExecutionEngine engine) throws Exception {
+        String executionId = execution.getExecutionId();
+        int shardCount = plan.size();
+        int featureCount = plan.stream().mapToInt(shard -> shard.getFeatures().size()).sum();
+        sendProgressUpdate(executionId, "Running " + featureCount + " features across " + shardCount
+                + " shards", 25);
+        execution.setEngine(engine.getName());
+        execution.setShardCount(shardCount);
+
+        long started = System.currentTimeMillis();
+        List<Path> messageFiles = new ArrayList<>();
+        List<ExecutionHistory.ShardTiming> shardTimings = new ArrayList<>();
+        List<CompletableFuture<ExecutionHistory.Execution>> shards = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            ExecutionRequest shardRequest = new ExecutionRequest(executionId + SHARD_SEPARATOR + (i + 1))
+                    .setTagExpression(template.getTagExpression())
+                    .setScenarioOrder(template.getScenarioOrder());
+            Path messages = shardRequest.getOutputDirectory().resolve("messages.ndjson");
+            shardRequest.addPlugin(MESSAGE_PLUGIN + messages);
+            messageFiles.add(messages);
+            ShardPlanner.Shard planned = plan.get(i);
+            planned.getFeatures().forEach(f -> shardRequest.addFeature(ExecutionRequest.FEATURES_DIR + "/" + f));
+
+            ExecutionHistory.ShardTiming timing = new ExecutionHistory.ShardTiming();
+            timing.setShard(i + 1);
+            timing.setFeatures(planned.getFeatures());
+            timing.setPlannedMillis(planned.getPlannedMillis());
+            shardTimings.add(timing);
+
+            // Shard results are reported under the parent id
+            ExecutionHistory.Execution shardExecution = new ExecutionHistory.Execution();
+            shardExecution.setExecutionId(executionId);
+            shards.add(CompletableFuture.supplyAsync(() -> {
+                long shardStarted = System.currentTimeMillis();
+                try {
+                    return executeRun(shardExecution, shardRequest, engine);
+                } catch (Exception e) {
+                    logger.error("Shard {} failed", shardRequest.getExecutionId(), e);
+                    shardExecution.setStatus("FAILED");
+                    shardExecution.setNotes(shardRequest.getExecutionId() + ": " + e.getMessage());
+                    return shardExecution;
+                } finally {
+                    timing.setActualMillis(System.currentTimeMillis() - shardStarted);
+                }
+            }, shardExecutor));
+        }
+
+        boolean passed = true;
+        List<String> notes = new ArrayList<>();
+        int totalScenarios = 0, passedScenarios = 0, failedScenarios = 0, skippedScenarios = 0;
+        int totalSteps = 0, passedSteps = 0, failedSteps = 0, skippedSteps = 0, pendingSteps = 0;
+        List<ExecutionHistory.ScenarioResult> scenarioResults = new ArrayList<>();
+        Map<String, Set<String>> glueByFeature = new HashMap<>();
+        for (CompletableFuture<ExecutionHistory.Execution> shard : shards) {
+            ExecutionHistory.Execution result = shard.join();
+            passed &= "PASSED".equals(result.getStatus());
+            if (result.getNotes() != null) {
+                notes.add(result.getNotes());
+            }
+            totalScenarios += result.getTotalScenarios();
+            passedScenarios += result.getPassedScenarios();
+            failedScenarios += result.getFailedScenarios();
+            skippedScenarios += result.getSkippedScenarios();
+            totalSteps += result.getTotalSteps();
+            passedSteps += result.getPassedSteps();
+            failedSteps += result.getFailedSteps();
+            skippedSteps += result.getSkippedSteps();
+            pendingSteps += result.getPendingSteps();
+            if (result.getScenarioResults() != null) {
+                scenarioResults.addAll(result.getScenarioResults());
+            }
+            if (result.getGlueByFeature() != null) {
+                result.getGlueByFeature().forEach((feature, glue) ->
+                        glueByFeature.computeIfAbsent(feature, f -> new HashSet<>()).addAll(glue));
+            }
+        }
+        execution.setStatus(passed ? "PASSED" : "FAILED");
+        execution.setDuration(formatDuration(System.currentTimeMillis() - started));
+        execution.setTotalScenarios(totalScenarios);
+        execution.setPassedScenarios(passedScenarios);
+        execution.setFailedScenarios(failedScenarios);
+        execution.setSkippedScenarios(skippedScenarios);
+        execution.setTotalSteps(totalSteps);
+        execution.setPassedSteps(passedSteps);
+        execution.setFailedSteps(failedSteps);
+        execution.setSkippedSteps(skippedSteps);
+        execution.setPendingSteps(pendingSteps);
+        execution.setScenarioResults(scenarioResults);
+        execution.setGlueByFeature(glueByFeature);
+        execution.setShardTimings(shardTimings);
+        if (!notes.isEmpty()) {
+            execution.setNotes(String.join("; ", notes));
+        }
+        shardTimings.forEach(t -> logger.info("Shard {} of {}: planned {}ms, took {}ms", t.getShard(), executionId,
+                t.getPlannedMillis(), t.getActualMillis()));
+
+        try {
+            reportMergeService.mergeToHtml(messageFiles, Paths.get(REPORTS_DIR, reportFileName(executionId)));
+        } catch (IOException e) {
+            logger.warn("Could not merge shard reports for {}", executionId, e);
+        }
+    }
+
+    /**
+     * Record the HTML report on the execution, or a note when it is missing
+     */
+    private void attachReport(ExecutionHistory.Execution execution) {
+        String executionId = execution.getExecutionId();
+        Path reportPath = Paths.get(REPORTS_DIR, reportFileName(executionId));
+        if (Files.exists(reportPath)) {
+            execution.setReportPath(reportPath.toString());
+        } else {
+            logger.warn("Expected report not found at {}", reportPath.toAbsolutePath());
+            execution.setNotes("Report not generated: " + reportPath.toAbsolutePath());
+            sendProgressUpdate(executionId, "Report not generated: " + reportPath.toAbsolutePath(), 99);
+        }
+    }
+
+    /**
+     * Path of the request's Cucumber message plugin output, if it has one
+     */
+    private Path messageFileOf(ExecutionRequest request) {
+        return request.getPlugins().stream()
+                .filter(p -> p.startsWith(MESSAGE_PLUGIN))
+                .map(p -> Paths.get(p.substring(MESSAGE_PLUGIN.length())))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private String reportFileName(String executionId) {
+        return "cucumber-report-" + executionId + ".html";
+    }
+
+    private ExecutionRequest newRequest(String executionId) {
+        return new ExecutionRequest(executionId)
+                .addPlugin("html:" + REPORTS_DIR + "/" + reportFileName(executionId));
     }
 
     /**
@@ -75,7 +840,12 @@ public class TestExecutionService {
     }
 
     public CompletableFuture<ExecutionHistory.Execution> runAllTestsWithId(String executionId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return runAllTestsWithId(executionId, new ExecutionOptions());
+    }
+
+    public CompletableFuture<ExecutionHistory.Execution> runAllTestsWithId(String executionId,
+            ExecutionOptions options) {
+        return executionScheduler.submit(executionId, resolvePriority(options), () -> {
             try {
                 logger.info("Starting execution of all tests (executionId={})", executionId);
                 sendProgressUpdate(executionId, "Preparing to run all tests...", 0);
@@ -103,86 +873,17 @@ public class TestExecutionService {
                 execution.setTimestamp(timestamp);
                 execution.setStatus("RUNNING");
 
-                List<String> mavenArgs = Arrays.asList(
-                        "clean", "test",
-                        "-Dcucumber.plugin=html:" + REPORTS_DIR + "/cucumber-report-" + executionId + ".html");
+                TestImpactService.Snapshot snapshot = impactSnapshot();
+                ExecutionRequest request = newRequest(executionId).setClean(true);
+                List<String> featureFiles = allFeatures.stream()
+                        .map(com.testautomation.model.FeatureFile::getFileName)
+                        .sorted()
+                        .toList();
 
                 sendProgressUpdate(executionId, "Executing all tests...", 20);
 
-                Process process = executeMavenCommand(mavenArgs);
-                runningProcesses.put(executionId, process);
-                Thread heartbeat = new Thread(() -> {
-                    try {
-                        while (process.isAlive()) {
-                            sendProgressUpdate(executionId, "Execution in progress...", 40);
-                            Thread.sleep(10000);
-                        }
-                    } catch (InterruptedException ignored) {
-                    }
-                });
-                heartbeat.setDaemon(true);
-                heartbeat.start();
-                // Timeout watchdog, to prevent infinite execution
-                Thread watchdog = new Thread(() -> {
-                    try {
-                        if (!process.waitFor(executionTimeoutSeconds, TimeUnit.SECONDS)) {
-                            sendProgressUpdate(executionId, "Execution timed out", -1);
-                            logger.warn("Process exceeded timeout ({}s); destroying", executionTimeoutSeconds);
-                            process.destroyForcibly();
-                        }
-                    } catch (InterruptedException ignored) {
-                    }
-                });
-                watchdog.setDaemon(true);
-                watchdog.start();
-
-                StringBuilder output = new StringBuilder();
-                try (BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(process.getInputStream()))) {
-                    String line;
-                    int progress = 30;
-                    while ((line = reader.readLine()) != null) {
-                        output.append(line).append("\n");
-                        logger.info(line);
-
-                        if (line.contains("Scenario:")) {
-                            progress = Math.min(progress + 2, 90);
-                            sendProgressUpdate(executionId, "Running: " + line, progress);
-                        } else if (line.contains("BUILD SUCCESS")) {
-                            progress = 95;
-                            sendProgressUpdate(executionId, "Build succeeded", progress);
-                        } else if (line.contains("BUILD FAILURE")) {
-                            progress = -1;
-                            sendProgressUpdate(executionId, "Build failed", progress);
-                        }
-                    }
-                }
-
-                int exitCode = process.waitFor();
-                runningProcesses.remove(executionId);
-                logger.info("Execution finished. Exit code: {}", exitCode);
-
-                sendProgressUpdate(executionId, "Processing results...", 95);
-
-                execution.setStatus(exitCode == 0 ? "PASSED" : "FAILED");
-                execution.setDuration(calculateDuration(output.toString()));
-                java.nio.file.Path reportPath = java.nio.file.Paths.get(REPORTS_DIR,
-                        "cucumber-report-" + executionId + ".html");
-                if (java.nio.file.Files.exists(reportPath)) {
-                    execution.setReportPath(reportPath.toString());
-                } else {
-                    logger.warn("Expected report not found at {}", reportPath.toAbsolutePath());
-                    execution.setNotes("Report not generated: " + reportPath.toAbsolutePath());
-                    sendProgressUpdate(executionId, "Report not generated: " + reportPath.toAbsolutePath(), 99);
-                }
-
-                Map<String, Object> results = parseTestResults(output.toString());
-                execution.setTotalScenarios((Integer) results.get("totalScenarios"));
-                execution.setPassedScenarios((Integer) results.get("passedScenarios"));
-                execution.setFailedScenarios((Integer) results.get("failedScenarios"));
-                execution.setTotalSteps((Integer) results.get("totalSteps"));
-                execution.setPassedSteps((Integer) results.get("passedSteps"));
-                execution.setFailedSteps((Integer) results.get("failedSteps"));
+                executePlanned(execution, featureFiles, request, options);
+                testImpactService.recordRun(execution, snapshot);
 
                 // If no scenarios executed, mark as SKIPPED
                 if (execution.getTotalScenarios() == 0) {
@@ -191,14 +892,17 @@ public class TestExecutionService {
                 }
                 executionHistoryService.addExecution(execution);
 
-                sendProgressUpdate(executionId, "Execution completed!", 100);
+                sendCompleted(execution);
                 logger.info("Test execution completed: {}", executionId);
 
                 return execution;
 
+            } catch (ExecutionPreemptedException e) {
+                throw e;
             } catch (Exception e) {
                 logger.error("Error executing all tests", e);
                 sendProgressUpdate(executionId, "Execution failed: " + e.getMessage(), -1);
+                runningProcesses.remove(executionId);
 
                 // Return failed execution record
                 ExecutionHistory.Execution failedExecution = new ExecutionHistory.Execution();
@@ -213,6 +917,93 @@ public class TestExecutionService {
         });
     }
 
+    /**
+     * Run only the features whose feature file, glue or test data changed
+     * since they last passed
+     */
+    public CompletableFuture<ExecutionHistory.Execution> runImpactedTestsWithId(String executionId,
+            ExecutionOptions options) {
+        return executionScheduler.submit(executionId, resolvePriority(options), () -> {
+            try {
+                logger.info("Starting execution of impacted tests (executionId={})", executionId);
+                sendProgressUpdate(executionId, "Selecting impacted features...", 0);
+
+                TestImpactService.Snapshot snapshot = testImpactService.snapshot();
+                Map<String, String> impacted = testImpactService.findImpacted(snapshot);
+                String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+
+                ExecutionHistory.Execution execution = new ExecutionHistory.Execution();
+                execution.setExecutionId(executionId);
+                execution.setExecutionType("IMPACTED");
+                execution.setTimestamp(timestamp);
+                execution.setFeatureFiles(new ArrayList<>(impacted.keySet()));
+
+                if (impacted.isEmpty()) {
+                    execution.setStatus("SKIPPED");
+                    execution.setNotes("No features changed since they last passed");
+                    executionHistoryService.addExecution(execution);
+                    sendProgressUpdate(executionId, "No impacted features. Execution skipped.", 100);
+                    return execution;
+                }
+                logger.info("Impacted features: {}", impacted);
+                sendProgressUpdate(executionId, impacted.size() + " of " + snapshot.getFeatureHashes().size()
+                        + " features impacted", 10);
+
+                execution.setStatus("RUNNING");
+                ExecutionRequest request = newRequest(executionId);
+                List<String> featureFiles = new ArrayList<>(impacted.keySet());
+                featureFiles.forEach(f -> request.addFeature(ExecutionRequest.FEATURES_DIR + "/" + f));
+
+                sendProgressUpdate(executionId, "Executing impacted features...", 20);
+
+                executePlanned(execution, featureFiles, request, options);
+                testImpactService.recordRun(execution, snapshot);
+                execution.setNotes(execution.getNotes() == null ? "Impacted: " + impacted : execution.getNotes());
+                executionHistoryService.addExecution(execution);
+
+                sendCompleted(execution);
+                logger.info("Impacted test execution completed: {}", executionId);
+
+                return execution;
+
+            } catch (ExecutionPreemptedException e) {
+                throw e;
+            } catch (Exception e) {
+                logger.error("Error executing impacted tests", e);
+                sendProgressUpdate(executionId, "Execution failed: " + e.getMessage(), -1);
+                runningProcesses.remove(executionId);
+
+                ExecutionHistory.Execution failedExecution = new ExecutionHistory.Execution();
+                failedExecution.setExecutionId(executionId);
+                failedExecution.setExecutionType("IMPACTED");
+                failedExecution.setStatus("FAILED");
+                failedExecution
+                        .setTimestamp(LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+
+                return failedExecution;
+            }
+        });
+    }
+
+    /**
+     * Features that a "run impacted" execution would select, with reasons
+     */
+    public Map<String, String> findImpactedFeatures() throws IOException {
+        return testImpactService.findImpacted(testImpactService.snapshot());
+    }
+
+    /**
+     * Snapshot for impact tracking; a failure only disables tracking for this run
+     */
+    private TestImpactService.Snapshot impactSnapshot() {
+        try {
+            return testImpactService.snapshot();
+        } catch (IOException e) {
+            logger.warn("Could not snapshot sources for impact tracking: {}", e.getMessage());
+            return null;
+        }
+    }
+
     /**
      * Run specific feature file
      */
@@ -222,7 +1013,12 @@ public class TestExecutionService {
     }
 
     public CompletableFuture<ExecutionHistory.Execution> runFeatureFileWithId(String fileName, String executionId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return runFeatureFileWithId(fileName, executionId, new ExecutionOptions());
+    }
+
+    public CompletableFuture<ExecutionHistory.Execution> runFeatureFileWithId(String fileName, String executionId,
+            ExecutionOptions options) {
+        return executionScheduler.submit(executionId, resolvePriority(options), () -> {
             try {
                 logger.info("Starting execution of feature: {} (executionId={})", fileName, executionId);
                 sendProgressUpdate(executionId, "Preparing to run feature: " + fileName, 0);
@@ -236,75 +1032,14 @@ public class TestExecutionService {
                 execution.setTimestamp(timestamp);
                 execution.setStatus("RUNNING");
 
-                String featurePath = "src/test/resources/features/" + fileName;
-                List<String> mavenArgs = Arrays.asList(
-                        "test",
-                        "-Dcucumber.features=" + featurePath,
-                        "-Dcucumber.plugin=html:" + REPORTS_DIR + "/cucumber-report-" + executionId + ".html");
+                TestImpactService.Snapshot snapshot = impactSnapshot();
+                ExecutionRequest request = newRequest(executionId)
+                        .addFeature(ExecutionRequest.FEATURES_DIR + "/" + fileName);
 
                 sendProgressUpdate(executionId, "Executing feature: " + fileName, 20);
 
-                Process process = executeMavenCommand(mavenArgs);
-                runningProcesses.put(executionId, process);
-                Thread heartbeat = new Thread(() -> {
-                    try {
-                        while (process.isAlive()) {
-                            sendProgressUpdate(executionId, "Execution in progress...", 40);
-                            Thread.sleep(10000);
-                        }
-                    } catch (InterruptedException ignored) {
-                    }
-                });
-                heartbeat.setDaemon(true);
-                heartbeat.start();
-
-                StringBuilder output = new StringBuilder();
-                try (BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(process.getInputStream()))) {
-                    String line;
-                    int progress = 30;
-                    while ((line = reader.readLine()) != null) {
-                        output.append(line).append("\n");
-                        logger.info(line);
-
-                        if (line.contains("Scenario:")) {
-                            progress = Math.min(progress + 10, 90);
-                            sendProgressUpdate(executionId, "Running: " + line, progress);
-                        } else if (line.contains("BUILD SUCCESS")) {
-                            progress = 95;
-                            sendProgressUpdate(executionId, "Build succeeded", progress);
-                        } else if (line.contains("BUILD FAILURE")) {
-                            progress = -1;
-                            sendProgressUpdate(executionId, "Build failed", progress);
-                        }
-                    }
-                }
-
-                int exitCode = process.waitFor();
-                runningProcesses.remove(executionId);
-                logger.info("Execution finished. Exit code: {}", exitCode);
-
-                sendProgressUpdate(executionId, "Processing results...", 95);
-
-                execution.setStatus(exitCode == 0 ? "PASSED" : "FAILED");
-                execution.setDuration(calculateDuration(output.toString()));
-                java.nio.file.Path fileReportPath = java.nio.file.Paths.get(REPORTS_DIR,
-                        "cucumber-report-" + executionId + ".html");
-                if (java.nio.file.Files.exists(fileReportPath)) {
-                    execution.setReportPath(fileReportPath.toString());
-                } else {
-                    logger.warn("Report not found after feature execution: {}", fileReportPath.toAbsolutePath());
-                    execution.setNotes("Report not generated: " + fileReportPath.toAbsolutePath());
-                    sendProgressUpdate(executionId, "Report not generated: " + fileReportPath.toAbsolutePath(), 99);
-                }
-
-                Map<String, Object> results = parseTestResults(output.toString());
-                execution.setTotalScenarios((Integer) results.get("totalScenarios"));
-                execution.setPassedScenarios((Integer) results.get("passedScenarios"));
-                execution.setFailedScenarios((Integer) results.get("failedScenarios"));
-                execution.setTotalSteps((Integer) results.get("totalSteps"));
-                execution.setPassedSteps((Integer) results.get("passedSteps"));
-                execution.setFailedSteps((Integer) results.get("failedSteps"));
+                executePlanned(execution, List.of(fileName), request, options);
+                testImpactService.recordRun(execution, snapshot);
 
                 if (execution.getTotalScenarios() == 0) {
                     execution.setStatus("SKIPPED");
@@ -312,14 +1047,17 @@ public class TestExecutionService {
                 }
                 executionHistoryService.addExecution(execution);
 
-                sendProgressUpdate(executionId, "Execution completed!", 100);
+                sendCompleted(execution);
                 logger.info("Feature execution completed: {}", executionId);
 
                 return execution;
 
+            } catch (ExecutionPreemptedException e) {
+                throw e;
             } catch (Exception e) {
                 logger.error("Error executing feature: {}", fileName, e);
                 sendProgressUpdate(executionId, "Execution failed: " + e.getMessage(), -1);
+                runningProcesses.remove(executionId);
 
                 ExecutionHistory.Execution failedExecution = new ExecutionHistory.Execution();
                 failedExecution.setExecutionId(generateExecutionId());
@@ -344,7 +1082,12 @@ public class TestExecutionService {
 
     public CompletableFuture<ExecutionHistory.Execution> runTestsByTagsWithId(List<String> tags, String tagLogic,
             String executionId) {
-        return CompletableFuture.supplyAsync(() -> {
+        return runTestsByTagsWithId(tags, tagLogic, executionId, new ExecutionOptions());
+    }
+
+    public CompletableFuture<ExecutionHistory.Execution> runTestsByTagsWithId(List<String> tags, String tagLogic,
+            String executionId, ExecutionOptions options) {
+        return executionScheduler.submit(executionId, resolvePriority(options), () -> {
             try {
                 logger.info("Starting test execution by tags: {} (Logic: {}) (executionId={})", tags, tagLogic,
                         executionId);
@@ -388,75 +1131,26 @@ public class TestExecutionService {
                 execution.setTimestamp(timestamp);
                 execution.setStatus("RUNNING");
 
-                String tagExpression = buildTagExpression(validTags, tagLogic);
-                List<String> mavenArgs = Arrays.asList(
-                        "test",
-                        "-Dcucumber.filter.tags=" + tagExpression,
-                        "-Dcucumber.plugin=html:" + REPORTS_DIR + "/cucumber-report-" + executionId + ".html");
+                ExecutionRequest request = newRequest(executionId)
+                        .setTagExpression(buildTagExpression(validTags, tagLogic));
 
                 sendProgressUpdate(executionId, "Executing tests with tags: " + String.join(", ", validTags), 20);
 
-                Process process = executeMavenCommand(mavenArgs);
-                runningProcesses.put(executionId, process);
-
-                StringBuilder output = new StringBuilder();
-                try (BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(process.getInputStream()))) {
-                    String line;
-                    int progress = 30;
-                    while ((line = reader.readLine()) != null) {
-                        output.append(line).append("\n");
-                        logger.info(line);
-
-                        if (line.contains("Scenario:")) {
-                            progress = Math.min(progress + 5, 90);
-                            sendProgressUpdate(executionId, "Running: " + line, progress);
-                        } else if (line.contains("BUILD SUCCESS")) {
-                            progress = 95;
-                            sendProgressUpdate(executionId, "Build succeeded", progress);
-                        } else if (line.contains("BUILD FAILURE")) {
-                            progress = -1;
-                            sendProgressUpdate(executionId, "Build failed", progress);
-                        }
-                    }
-                }
-
-                int exitCode = process.waitFor();
-                runningProcesses.remove(executionId);
-                logger.info("Execution finished. Exit code: {}", exitCode);
-
-                sendProgressUpdate(executionId, "Processing results...", 95);
-
-                execution.setStatus(exitCode == 0 ? "PASSED" : "FAILED");
-                java.nio.file.Path featureReportPath = java.nio.file.Paths.get(REPORTS_DIR,
-                        "cucumber-report-" + executionId + ".html");
-                if (java.nio.file.Files.exists(featureReportPath)) {
-                    execution.setReportPath(featureReportPath.toString());
-                } else {
-                    logger.warn("Report not found after feature execution: {}", featureReportPath.toAbsolutePath());
-                    execution.setNotes("Report not generated: " + featureReportPath.toAbsolutePath());
-                    sendProgressUpdate(executionId, "Report not generated: " + featureReportPath.toAbsolutePath(), 99);
-                }
-                execution.setDuration(calculateDuration(output.toString()));
-
-                Map<String, Object> results = parseTestResults(output.toString());
-                execution.setTotalScenarios((Integer) results.get("totalScenarios"));
-                execution.setPassedScenarios((Integer) results.get("passedScenarios"));
-                execution.setFailedScenarios((Integer) results.get("failedScenarios"));
-                execution.setTotalSteps((Integer) results.get("totalSteps"));
-                execution.setPassedSteps((Integer) results.get("passedSteps"));
-                execution.setFailedSteps((Integer) results.get("failedSteps"));
+                executePlanned(execution, matchingFeatures, request, options);
 
                 executionHistoryService.addExecution(execution);
 
-                sendProgressUpdate(executionId, "Execution completed!", 100);
+                sendCompleted(execution);
                 logger.info("Test execution completed: {}", executionId);
 
                 return execution;
 
+            } catch (ExecutionPreemptedException e) {
+                throw e;
             } catch (Exception e) {
                 logger.error("Error executing tests by tags", e);
                 sendProgressUpdate(executionId, "Execution failed: " + e.getMessage(), -1);
+                runningProcesses.remove(executionId);
                 throw new RuntimeException("Test execution failed", e);
             }
         });
@@ -481,47 +1175,34 @@ public class TestExecutionService {
         return generateExecutionId();
     }
 
-    private String calculateDuration(String output) {
-        try {
-            if (output.contains("m ") && output.contains("s")) {
-                int minutesIndex = output.lastIndexOf("m ");
-                int secondsIndex = output.lastIndexOf("s");
-                if (minutesIndex > 0 && secondsIndex > minutesIndex) {
-                    String timeSection = output.substring(Math.max(0, minutesIndex - 10), secondsIndex + 1);
-                    return timeSection.trim();
-                }
-            }
-        } catch (Exception e) {
-            logger.warn("Could not parse duration", e);
-        }
-        return "N/A";
+    private String formatDuration(long millis) {
+        long seconds = millis / 1000;
+        return (seconds / 60) + "m " + (seconds % 60) + "s";
     }
 
-    private Map<String, Object> parseTestResults(String output) {
-        Map<String, Object> results = new HashMap<>();
-        results.put("totalScenarios", 0);
-        results.put("passedScenarios", 0);
-        results.put("failedScenarios", 0);
-        results.put("totalSteps", 0);
-        results.put("passedSteps", 0);
-        results.put("failedSteps", 0);
-        return results;
+    /**
+     * Send a progress update measured by the execution's tracker, with the
+     * scenario counts, throughput and ETA
+     */
+    private void sendProgressUpdate(String executionId, String message, ProgressTracker tracker) {
+        sendProgressUpdate(executionId, message + " (" + tracker.describe() + ")", tracker.getProgress(),
+                tracker.toMap());
+    }
+
+    private void sendProgressUpdate(String executionId, String message, int progress) {
+        sendProgressUpdate(executionId, message, progress, Map.of());
     }
 
     /**
-     * Send progress update with an executionId so clients can filter messages.
+     * Queue a progress update for the execution's destination; see {@link ProgressPublisher}
      */
-    private void sendProgressUpdate(String executionId, String message, int progress) {
-        try {
-            Map<String, Object> update = new HashMap<>();
-            update.put("executionId", executionId);
-            update.put("message", message);
-            update.put("progress", progress);
-            update.put("timestamp", System.currentTimeMillis());
-            messagingTemplate.convertAndSend("/topic/execution-progress", update);
-        } catch (Exception e) {
-            logger.warn("Failed to send progress update", e);
-        }
+    private void sendProgressUpdate(String executionId, String message, int progress, Map<String, Object> figures) {
+        Map<String, Object> update = new HashMap<>(figures);
+        update.put("executionId", executionId);
+        update.put("message", message);
+        update.put("progress", progress);
+        update.put("timestamp", System.currentTimeMillis());
+        progressPublisher.publish(executionId, update);
     }
 
     public CompletableFuture<ExecutionHistory.Execution> runTestsByComplexTags(
@@ -532,131 +1213,123 @@ public class TestExecutionService {
 
     public CompletableFuture<ExecutionHistory.Execution> runTestsByComplexTagsWithId(List<String> includeTags,
             List<String> excludeTags, String executionId) {
+        return runTestsByComplexTagsWithId(includeTags, excludeTags, executionId, new ExecutionOptions());
+    }
+
+    public CompletableFuture<ExecutionHistory.Execution> runTestsByComplexTagsWithId(List<String> includeTags,
+            List<String> excludeTags, String executionId, ExecutionOptions options) {
         // Not implementing exclusion at the moment, reuse includeTags with AND logic
-        return runTestsByTagsWithId(includeTags, "AND", executionId);
+        return runTestsByTagsWithId(includeTags, "AND", executionId, options);
     }
 
     /**
-     * Returns the maven command to use (prefer mvnw wrapper if present)
+     * Run all tests, or attach to an identical run already in flight (see
+     * {@link ExecutionCoalescer}). Returns the id of the execution to follow,
+     * which differs from the given id when the request was attached.
      */
-    private String getMavenCommand() {
-        try {
-            String cwd = System.getProperty("user.dir");
-            java.io.File mvnwCmd = new java.io.File(cwd, "mvnw.cmd");
-            if (mvnwCmd.exists() && mvnwCmd.canExecute()) {
-                return mvnwCmd.getAbsolutePath();
-            }
-            java.io.File mvnw = new java.io.File(cwd, "mvnw");
-            if (mvnw.exists() && mvnw.canExecute()) {
-                return mvnw.getAbsolutePath();
-            }
-        } catch (Exception ignored) {
+    public String startAllTests(String executionId, ExecutionOptions options) {
+        List<com.testautomation.model.FeatureFile> allFeatures = featureFileService.getAllFeatures();
+        if (allFeatures != null) {
+            checkSteps(allFeatures.stream().map(com.testautomation.model.FeatureFile::getFileName).sorted().toList(),
+                    null, options);
         }
-        // Try to detect mvn on PATH
-        try {
-            String detected = detectMavenFromPath();
-            if (detected != null)
-                return detected;
-        } catch (Exception ignored) {
-        }
-
-        // Check environment variable M2_HOME or MAVEN_HOME
-        String m2 = System.getenv("M2_HOME");
-        if (m2 != null && !m2.isBlank()) {
-            java.io.File f = new java.io.File(m2, "bin/mvn.cmd");
-            if (f.exists())
-                return f.getAbsolutePath();
-            f = new java.io.File(m2, "bin/mvn");
-            if (f.exists())
-                return f.getAbsolutePath();
-        }
-        String mvHome = System.getenv("MAVEN_HOME");
-        if (mvHome != null && !mvHome.isBlank()) {
-            java.io.File f = new java.io.File(mvHome, "bin/mvn.cmd");
-            if (f.exists())
-                return f.getAbsolutePath();
-            f = new java.io.File(mvHome, "bin/mvn");
-            if (f.exists())
-                return f.getAbsolutePath();
-        }
-
-        // Try common installation locations (Windows)
-        String pf = System.getenv("ProgramFiles");
-        String pf86 = System.getenv("ProgramFiles(x86)");
-        String[] candidates = new String[] { pf, pf86, "C:\\Program Files", "C:\\Program Files (x86)" };
-        for (String base : candidates) {
-            if (base == null)
-                continue;
-            java.io.File baseDir = new java.io.File(base);
-            java.io.File[] dirs = baseDir
-                    .listFiles((f) -> f.isDirectory() && f.getName().toLowerCase().contains("maven"));
-            if (dirs != null) {
-                for (java.io.File d : dirs) {
-                    java.io.File mvnCmd = new java.io.File(d, "bin\\mvn.cmd");
-                    if (mvnCmd.exists())
-                        return mvnCmd.getAbsolutePath();
-                    java.io.File mvn = new java.io.File(d, "bin/mvn");
-                    if (mvn.exists())
-                        return mvn.getAbsolutePath();
-                }
-            }
+        return executionCoalescer.startOrAttach("ALL" + scopeKey(options), executionId,
+                () -> runAllTestsWithId(executionId, options));
+    }
+
+    /**
+     * Single-flight variant of {@link #runFeatureFileWithId}
+     */
+    public String startFeatureFile(String fileName, String executionId, ExecutionOptions options) {
+        checkSteps(List.of(fileName), null, options);
+        return executionCoalescer.startOrAttach("FEATURE|" + fileName.trim() + scopeKey(options), executionId,
+                () -> runFeatureFileWithId(fileName, executionId, options));
+    }
+
+    /**
+     * Single-flight variant of {@link #runTestsByTagsWithId}; tag order and
+     * duplicates do not make requests different
+     */
+    public String startTestsByTags(List<String> tags, String tagLogic, String executionId,
+            ExecutionOptions options) {
+        String logic = "OR".equalsIgnoreCase(tagLogic) ? "OR" : "AND";
+        checkTaggedSteps(tags, logic, options);
+        return executionCoalescer.startOrAttach("TAGS|" + buildTagExpression(normalizeTags(tags), logic) + scopeKey(options),
+                executionId, () -> runTestsByTagsWithId(tags, tagLogic, executionId, options));
+    }
+
+    /**
+     * Single-flight variant of {@link #runTestsByComplexTagsWithId}
+     */
+    public String startTestsByComplexTags(List<String> includeTags, List<String> excludeTags, String executionId,
+            ExecutionOptions options) {
+        checkTaggedSteps(includeTags, "AND", options);
+        String key = "TAGS|" + buildTagExpression(normalizeTags(includeTags), "AND");
+        if (excludeTags != null && !excludeTags.isEmpty()) {
+            key += "|not " + String.join(",", normalizeTags(excludeTags));
         }
+        return executionCoalescer.startOrAttach(key + scopeKey(options), executionId,
+                () -> runTestsByComplexTagsWithId(includeTags, excludeTags, executionId, options));
+    }
 
-        // fallback to configured command (default: mvn)
-        return configuredMavenCommand != null && !configuredMavenCommand.isBlank() ? configuredMavenCommand : "mvn";
+    /**
+     * Run the impacted features, checking their steps before the run is queued;
+     * see {@link #runImpactedTestsWithId}
+     */
+    public void startImpactedTests(String executionId, ExecutionOptions options) throws IOException {
+        checkSteps(new ArrayList<>(findImpactedFeatures().keySet()), null, options);
+        runImpactedTestsWithId(executionId, options);
     }
 
-    private String detectMavenFromPath() {
-        boolean isWindows = System.getProperty("os.name").toLowerCase().contains("win");
-        ProcessBuilder pb = isWindows ? new ProcessBuilder("cmd", "/c", "where mvn")
-                : new ProcessBuilder("sh", "-c", "which mvn");
-        try {
-            pb.redirectErrorStream(true);
-            Process p = pb.start();
-            java.io.BufferedReader r = new java.io.BufferedReader(new java.io.InputStreamReader(p.getInputStream()));
-            String line = r.readLine();
-            if (line != null && !line.isBlank()) {
-                // Trim trailing spaces and return
-                return line.trim();
-            }
-        } catch (Exception ignored) {
+    /**
+     * {@link #checkSteps} for the features a tag-based run selects; invalid
+     * tags are left for the run to report
+     */
+    private void checkTaggedSteps(List<String> tags, String logic, ExecutionOptions options) {
+        List<String> validTags = tagService.validateTags(tags);
+        if (validTags.isEmpty()) {
+            return;
         }
-        return null;
+        List<String> matchingFeatures = "OR".equals(logic)
+                ? featureFileService.getFeaturesByTagsOr(validTags)
+                : featureFileService.getFeaturesByTags(validTags);
+        checkSteps(matchingFeatures, buildTagExpression(validTags, logic), options);
     }
 
     /**
-     * Validates that the configured maven command is available on the current
-     * environment; otherwise throws an exception
+     * Options that change which scenarios run or how the run ends, and so
+     * which runs are identical. Abort limits are compared as they take
+     * effect, defaults filled in and unused ones left out.
      */
-    private void validateMavenCommandAvailable() {
-        String cmd = getMavenCommand();
-        try {
-            ProcessBuilder pb = new ProcessBuilder(cmd, "-v");
-            pb.redirectErrorStream(true);
-            Process proc = pb.start();
-            boolean finished = proc.waitFor(3, java.util.concurrent.TimeUnit.SECONDS);
-            if (!finished || proc.exitValue() != 0) {
-                throw new IllegalStateException("Maven command not available or returned non-zero: " + cmd);
-            }
-        } catch (Exception e) {
-            throw new IllegalStateException("Maven command not found: '" + cmd
-                    + "'. Configure 'test.execution.maven.command' in application.properties or use a maven wrapper (mvnw/mvnw.cmd) in the project root.",
-                    e);
+    private String scopeKey(ExecutionOptions options) {
+        StringBuilder key = new StringBuilder();
+        Integer budget = options.getTimeBudgetSeconds();
+        if (budget != null && budget > 0) {
+            key.append("|budget=").append(budget);
+        }
+        int maxFailures = Math.max(0, Objects.requireNonNullElse(options.getMaxFailures(), defaultMaxFailures));
+        int maxFailureRate = Math.max(0,
+                Objects.requireNonNullElse(options.getMaxFailureRate(), defaultMaxFailureRate));
+        if (maxFailures > 0) {
+            key.append("|maxFailures=").append(maxFailures);
+        }
+        if (maxFailureRate > 0) {
+            key.append("|maxFailureRate=").append(maxFailureRate).append("/")
+                    .append(Math.max(1, Objects.requireNonNullElse(options.getMinScenarios(), defaultMinScenarios)));
         }
+        return key.toString();
+    }
+
+    private List<String> normalizeTags(List<String> tags) {
+        return tags.stream().map(String::trim).filter(t -> !t.isEmpty()).distinct().sorted().toList();
     }
 
     public boolean isMavenAvailable() {
-        try {
-            validateMavenCommandAvailable();
-            return true;
-        } catch (IllegalStateException e) {
-            logger.warn("Maven not available: {}", e.getMessage());
-            return false;
-        }
+        return mavenEngine.isAvailable();
     }
 
     public String getMavenCommandPath() {
-        return getMavenCommand();
+        return mavenEngine.getMavenCommand();
     }
 
     /**
@@ -670,18 +1343,80 @@ public class TestExecutionService {
      * Attempt to cancel a running execution by id. Returns true if cancelled.
      */
     public boolean cancelExecution(String executionId) {
-        Process process = runningProcesses.get(executionId);
-        if (process == null) {
-            return false;
+        // A cancelled execution must not be queued again
+        preempted.remove(executionId);
+        if (executionScheduler.cancelQueued(executionId)) {
+            sendProgressUpdate(executionId, "Execution cancelled by user", -1);
+            return true;
+        }
+        if (resourceAdmission.isWaiting(executionId)) {
+            withdrawn.add(executionId);
+            sendProgressUpdate(executionId, "Execution cancelled by user", -1);
+            return true;
         }
         try {
-            process.destroyForcibly();
+            if (!destroyProcesses(executionId)) {
+                return false;
+            }
             sendProgressUpdate(executionId, "Execution cancelled by user", -1);
-            runningProcesses.remove(executionId);
             return true;
         } catch (Exception e) {
             logger.warn("Failed to cancel execution {}: {}", executionId, e.getMessage());
             return false;
         }
     }
+
+    /**
+     * Stop the processes of an execution so a higher-priority one can take its
+     * slot; the execution ends at its next check and the scheduler queues it again
+     */
+    private void preempt(String executionId) {
+        preempted.add(executionId);
+        destroyProcesses(executionId);
+        String note = "Preempted by a higher-priority execution; queued again";
+        logger.info("Execution {}: {}", executionId, note);
+        sendProgressUpdate(executionId, note, 0);
+        try (ExecutionLog log = executionLogService.open(executionId)) {
+            log.append(note);
+        } catch (IOException e) {
+            logger.warn("Could not log the preemption of {}: {}", executionId, e.getMessage());
+        }
+    }
+
+    /**
+     * Forget a preemption or cancellation that arrived after the execution's
+     * last check, once it has finished, so a later execution with the same id
+     * does not inherit it
+     */
+    private void clearRunState(String executionId) {
+        preempted.remove(executionId);
+        withdrawn.remove(executionId);
+    }
+
+    /**
+     * End a preempted execution, so the scheduler can queue it again
+     */
+    private void checkPreempted(String executionId) {
+        if (preempted.remove(executionId)) {
+            throw new ExecutionPreemptedException("Execution " + executionId + " was preempted");
+        }
+    }
+
+    /**
+     * Stop the processes of an execution, including its shards and retries.
+     * Returns false when none was running.
+     */
+    private boolean destroyProcesses(String executionId) {
+        List<String> keys = runningProcesses.keySet().stream()
+                .filter(k -> k.equals(executionId) || k.startsWith(executionId + SHARD_SEPARATOR)
+                        || k.startsWith(executionId + RETRY_SEPARATOR))
+                .toList();
+        for (String key : keys) {
+            ExecutionHandle process = runningProcesses.remove(key);
+            if (process != null) {
+                process.destroy();
+            }
+        }
+        return !keys.isEmpty();
+    }
 }
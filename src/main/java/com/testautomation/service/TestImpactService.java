@@ -0,0 +1,271 @@
+package com.testautomation.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testautomation.model.ExecutionHistory;
+import com.testautomation.model.FeatureFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Decides which features have to run again since they last passed.
+ *
+ * For every feature that passed in full, the baseline keeps the hash of
+ * the feature file, of the test data and of each glue class the feature
+ * used. A feature is impacted when it has no baseline or any of those
+ * hashes changed.
+ */
+@Service
+public class TestImpactService {
+    private static final Logger logger = LoggerFactory.getLogger(TestImpactService.class);
+    private static final Path GLUE_SOURCES = Paths.get("src/test/java");
+    private static final List<Path> TEST_DATA = List.of(Paths.get("src/test/resources/test-data"),
+            Paths.get("src/test/resources/page-objects"), Paths.get("src/main/resources/data/test-data.json"),
+            Paths.get("src/main/resources/data/page-objects.json"));
+
+    @Autowired
+    private FeatureFileService featureFileService;
+
+    @Autowired
+    private BuildFingerprintService buildFingerprintService;
+
+    @Value("${test.execution.impact.baseline-file:src/main/resources/data/impact-baseline.json}")
+    private String baselineFile;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    /**
+     * Hashes of the current sources, taken when a run starts
+     */
+    public static class Snapshot {
+        private final Map<String, String> featureHashes = new TreeMap<>();
+        private final Map<String, String> glueHashes = new TreeMap<>();
+        private String dataHash;
+
+        public Map<String, String> getFeatureHashes() {
+            return featureHashes;
+        }
+
+        public Map<String, String> getGlueHashes() {
+            return glueHashes;
+        }
+
+        public String getDataHash() {
+            return dataHash;
+        }
+    }
+
+    /**
+     * Baseline entry of a feature that passed
+     */
+    public static class FeatureBaseline {
+        private String executionId;
+        private String featureHash;
+        private String dataHash;
+        private Map<String, String> glueHashes = new TreeMap<>();
+
+        public String getExecutionId() {
+            return executionId;
+        }
+
+        public void setExecutionId(String executionId) {
+            this.executionId = executionId;
+        }
+
+        public String getFeatureHash() {
+            return featureHash;
+        }
+
+        public void setFeatureHash(String featureHash) {
+            this.featureHash = featureHash;
+        }
+
+        public String getDataHash() {
+            return dataHash;
+        }
+
+        public void setDataHash(String dataHash) {
+            this.dataHash = dataHash;
+        }
+
+        public Map<String, String> getGlueHashes() {
+            return glueHashes;
+        }
+
+        public void setGlueHashes(Map<String, String> glueHashes) {
+            this.glueHashes = glueHashes;
+        }
+    }
+
+    public Snapshot snapshot() throws IOException {
+        Snapshot snapshot = new Snapshot();
+        for (FeatureFile feature : featureFileService.getAllFeatures()) {
+            snapshot.featureHashes.put(feature.getFileName(), sha256(feature.getContent()));
+        }
+        if (Files.isDirectory(GLUE_SOURCES)) {
+            try (Stream<Path> walk = Files.walk(GLUE_SOURCES)) {
+                for (Path source : walk.filter(p -> p.toString().endsWith(".java")).toList()) {
+                    snapshot.glueHashes.put(toClassName(source), buildFingerprintService.contentHash(source));
+                }
+            }
+        }
+        StringBuilder data = new StringBuilder();
+        for (Path root : TEST_DATA) {
+            if (!Files.exists(root)) {
+                continue;
+            }
+            try (Stream<Path> walk = Files.walk(root)) {
+                for (Path file : walk.filter(Files::isRegularFile).sorted().toList()) {
+                    data.append(file).append('=').append(buildFingerprintService.contentHash(file)).append('\n');
+                }
+            }
+        }
+        snapshot.dataHash = sha256(data.toString());
+        return snapshot;
+    }
+
+    /**
+     * Features that changed since they last passed, with the reason for each
+     */
+    public Map<String, String> findImpacted(Snapshot snapshot) {
+        Map<String, FeatureBaseline> baseline = loadBaseline();
+        Map<String, String> impacted = new LinkedHashMap<>();
+        snapshot.featureHashes.forEach((feature, hash) -> {
+            String reason = reasonFor(baseline.get(feature), hash, snapshot);
+            if (reason != null) {
+                impacted.put(feature, reason);
+            }
+        });
+        return impacted;
+    }
+
+    /**
+     * Update the baseline from a finished run of whole features: features
+     * whose scenarios all passed are recorded with the hashes from when the
+     * run started, features with a failure are removed so they run again.
+     * Features with scenarios deferred by a time budget did not run in full,
+     * so they are only removed on a failure.
+     */
+    public synchronized void recordRun(ExecutionHistory.Execution execution, Snapshot snapshot) {
+        // An aborted run did not get to every scenario of its features
+        if (snapshot == null || execution.getScenarioResults() == null || "ABORTED".equals(execution.getStatus())) {
+            return;
+        }
+        Map<String, Boolean> passedByFeature = new HashMap<>();
+        for (ExecutionHistory.ScenarioResult result : execution.getScenarioResults()) {
+            if (result.getFeatureFile() != null) {
+                passedByFeature.merge(result.getFeatureFile(), "PASSED".equals(result.getStatus()), Boolean::logicalAnd);
+            }
+        }
+        if (passedByFeature.isEmpty()) {
+            return;
+        }
+        Set<String> deferredFeatures = new HashSet<>();
+        if (execution.getDeferredScenarios() != null) {
+            for (ExecutionHistory.DeferredScenario deferred : execution.getDeferredScenarios()) {
+                deferredFeatures.add(GherkinScenarios.featureOf(deferred.getLocation()));
+            }
+        }
+        Map<String, Set<String>> glueByFeature = execution.getGlueByFeature() != null
+                ? execution.getGlueByFeature() : Map.of();
+        Map<String, FeatureBaseline> baseline = loadBaseline();
+        passedByFeature.forEach((feature, passed) -> {
+            String featureHash = snapshot.featureHashes.get(feature);
+            if (!passed || featureHash == null) {
+                baseline.remove(feature);
+                return;
+            }
+            if (deferredFeatures.contains(feature)) {
+                return;
+            }
+            FeatureBaseline entry = new FeatureBaseline();
+            entry.setExecutionId(execution.getExecutionId());
+            entry.setFeatureHash(featureHash);
+            entry.setDataHash(snapshot.dataHash);
+            for (String glueClass : glueByFeature.getOrDefault(feature, Set.of())) {
+                entry.getGlueHashes().put(glueClass, snapshot.glueHashes.getOrDefault(glueClass, ""));
+            }
+            baseline.put(feature, entry);
+        });
+        saveBaseline(baseline);
+    }
+
+    private String reasonFor(FeatureBaseline entry, String featureHash, Snapshot snapshot) {
+        if (entry == null) {
+            return "No passing run recorded";
+        }
+        if (!featureHash.equals(entry.getFeatureHash())) {
+            return "Feature file changed";
+        }
+        if (!snapshot.dataHash.equals(entry.getDataHash())) {
+            return "Test data changed";
+        }
+        List<String> changedGlue = new ArrayList<>();
+        entry.getGlueHashes().forEach((glueClass, hash) -> {
+            if (!hash.equals(snapshot.glueHashes.get(glueClass))) {
+                changedGlue.add(glueClass.substring(glueClass.lastIndexOf('.') + 1));
+            }
+        });
+        return changedGlue.isEmpty() ? null : "Step definitions changed: " + String.join(", ", changedGlue);
+    }
+
+    private Map<String, FeatureBaseline> loadBaseline() {
+        File file = new File(baselineFile);
+        if (!file.exists()) {
+            return new TreeMap<>();
+        }
+        try {
+            return objectMapper.readValue(file, new TypeReference<TreeMap<String, FeatureBaseline>>() {
+            });
+        } catch (IOException e) {
+            logger.warn("Could not read impact baseline, treating every feature as impacted", e);
+            return new TreeMap<>();
+        }
+    }
+
+    private void saveBaseline(Map<String, FeatureBaseline> baseline) {
+        try {
+            File file = new File(baselineFile);
+            file.getParentFile().mkdirs();
+            objectMapper.writerWithDefaultPrettyPrinter().writeValue(file, baseline);
+        } catch (IOException e) {
+            logger.error("Error saving impact baseline", e);
+        }
+    }
+
+    private static String toClassName(Path source) {
+        String relative = GLUE_SOURCES.relativize(source).toString().replace(File.separatorChar, '.');
+        return relative.substring(0, relative.length() - ".java".length());
+    }
+
+    private static String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(content.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,468 @@
+package com.testautomation.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testautomation.worker.TestWorkerMain;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tests on a pool of pre-started worker JVMs ({@link TestWorkerMain})
+ * that keep the test classpath and glue loaded between runs.
+ *
+ * Jobs are sent over the worker's stdin and output is read from its stdout.
+ * Workers are recycled after a number of jobs or when their heap usage after
+ * the last garbage collection goes above the configured ratio. A worker that
+ * exits before it is ready is restarted after an exponential backoff; after
+ * {@code max-start-failures} such exits in a row the pool stops restarting
+ * workers and the engine reports itself unavailable.
+ */
+@Service
+public class WorkerPoolExecutionEngine implements ExecutionEngine {
+    private static final Logger logger = LoggerFactory.getLogger(WorkerPoolExecutionEngine.class);
+    public static final String NAME = "worker-pool";
+
+    @Value("${test.execution.worker-pool.enabled:false}")
+    private boolean enabled;
+    @Value("${test.execution.worker-pool.size:2}")
+    private int poolSize;
+    @Value("${test.execution.worker-pool.max-jobs-per-worker:20}")
+    private int maxJobsPerWorker;
+    @Value("${test.execution.worker-pool.max-heap-ratio:0.8}")
+    private double maxHeapRatio;
+    @Value("${test.execution.worker-pool.jvm-args:}")
+    private String jvmArgs;
+    @Value("${test.execution.worker-pool.classpath:}")
+    private String workerClasspath;
+    @Value("${test.execution.worker-pool.acquire-timeout-seconds:30}")
+    private int acquireTimeoutSeconds;
+    @Value("${test.execution.in-process.test-classes:target/test-classes}")
+    private String testClassesDir;
+    @Value("${test.execution.worker-pool.restart-backoff-millis:1000}")
+    private long restartBackoffMillis;
+    @Value("${test.execution.worker-pool.max-start-failures:5}")
+    private int maxStartFailures;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Worker> workers = new CopyOnWriteArrayList<>();
+    private final BlockingQueue<Worker> idleWorkers = new LinkedBlockingQueue<>();
+    private final AtomicInteger workerIds = new AtomicInteger();
+    // Workers in a row that exited before they were ready
+    private final AtomicInteger startFailures = new AtomicInteger();
+    private volatile String startFailure;
+    private ScheduledExecutorService restarter;
+    private volatile boolean shuttingDown;
+
+    @PostConstruct
+    public void startPool() {
+        if (!enabled) {
+            return;
+        }
+        restarter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "test-worker-restarter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 0; i < poolSize; i++) {
+            startWorker();
+        }
+        logger.info("Started test worker pool with {} workers", poolSize);
+    }
+
+    @PreDestroy
+    public void stopPool() {
+        shuttingDown = true;
+        if (restarter != null) {
+            restarter.shutdownNow();
+        }
+        for (Worker worker : workers) {
+            worker.kill();
+        }
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return enabled && startFailure == null && !workers.isEmpty();
+    }
+
+    @Override
+    public String getUnavailableMessage() {
+        if (!enabled) {
+            return "Worker pool is disabled. Set 'test.execution.worker-pool.enabled=true'.";
+        }
+        return startFailure != null ? startFailure
+                : "No test workers are running; check the server log for worker start-up errors.";
+    }
+
+    @Override
+    public ExecutionHandle start(ExecutionRequest request) throws Exception {
+        if (!enabled) {
+            throw new IllegalStateException(getUnavailableMessage());
+        }
+        Worker worker = idleWorkers.poll(acquireTimeoutSeconds, TimeUnit.SECONDS);
+        if (worker == null) {
+            throw new IllegalStateException("No idle test worker available within " + acquireTimeoutSeconds + "s");
+        }
+        WorkerJob job = new WorkerJob(worker);
+        worker.submit(request, job);
+        return job;
+    }
+
+    /**
+     * Pool state for the status endpoint
+     */
+    public Map<String, Object> getPoolStatus() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("enabled", enabled);
+        status.put("size", workers.size());
+        status.put("idle", idleWorkers.size());
+        status.put("consecutiveStartFailures", startFailures.get());
+        status.put("startFailure", startFailure);
+        List<Map<String, Object>> details = new ArrayList<>();
+        for (Worker worker : workers) {
+            Map<String, Object> detail = new LinkedHashMap<>();
+            detail.put("id", worker.id);
+            detail.put("pid", worker.process.pid());
+            detail.put("jobsRun", worker.jobsRun);
+            detail.put("busy", worker.job != null);
+            details.add(detail);
+        }
+        status.put("workers", details);
+        return status;
+    }
+
+    private void startWorker() {
+        int id = workerIds.incrementAndGet();
+        try {
+            List<String> command = new ArrayList<>();
+            command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            if (jvmArgs != null && !jvmArgs.isBlank()) {
+                command.addAll(List.of(jvmArgs.trim().split("\\s+")));
+            }
+            command.add("-cp");
+            command.add(resolveClasspath());
+            command.add(TestWorkerMain.class.getName());
+
+            ProcessBuilder processBuilder = new ProcessBuilder(command);
+            processBuilder.directory(new File(System.getProperty("user.dir")));
+            processBuilder.redirectErrorStream(true);
+            Worker worker = new Worker(id, processBuilder.start());
+            workers.add(worker);
+            Thread reader = new Thread(worker::readLoop, "test-worker-" + id);
+            reader.setDaemon(true);
+            reader.start();
+            logger.info("Started test worker {} (pid={})", id, worker.process.pid());
+        } catch (IOException e) {
+            logger.error("Failed to start test worker {}", id, e);
+            onStartFailure();
+        }
+    }
+
+    private String resolveClasspath() {
+        if (workerClasspath != null && !workerClasspath.isBlank()) {
+            return workerClasspath;
+        }
+        return System.getProperty("java.class.path") + File.pathSeparator + new File(testClassesDir).getAbsolutePath();
+    }
+
+    private void onWorkerExit(Worker worker) {
+        workers.remove(worker);
+        idleWorkers.remove(worker);
+        if (!worker.ready) {
+            logger.warn("Test worker {} exited before it was ready", worker.id);
+            onStartFailure();
+            return;
+        }
+        logger.info("Test worker {} exited after {} jobs", worker.id, worker.jobsRun);
+        if (!shuttingDown && enabled) {
+            startWorker();
+        }
+    }
+
+    /**
+     * Start a replacement after a backoff doubling with every failure in a
+     * row, or give up once there were too many of them
+     */
+    private void onStartFailure() {
+        int failures = startFailures.incrementAndGet();
+        if (shuttingDown || !enabled || startFailure != null) {
+            return;
+        }
+        if (failures >= maxStartFailures) {
+            startFailure = "Test workers failed to start " + failures
+                    + " times in a row; check the worker classpath and the server log, then restart the server.";
+            logger.error(startFailure);
+            return;
+        }
+        long delay = restartBackoffMillis << Math.min(failures - 1, 16);
+        logger.info("Restarting test worker in {} ms (start failure {} of {})", delay, failures, maxStartFailures);
+        try {
+            restarter.schedule(this::startWorker, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // shutting down
+        }
+    }
+
+    /**
+     * A worker JVM and the thread that reads its output
+     */
+    private class Worker {
+        private final int id;
+        private final Process process;
+        private final BufferedWriter stdin;
+        private volatile WorkerJob job;
+        private volatile int jobsRun;
+        private volatile boolean ready;
+
+        Worker(int id, Process process) {
+            this.id = id;
+            this.process = process;
+            this.stdin = new BufferedWriter(new OutputStreamWriter(process.getOutputStream(), StandardCharsets.UTF_8));
+        }
+
+        void submit(ExecutionRequest request, WorkerJob job) throws IOException {
+            this.job = job;
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("executionId", request.getExecutionId());
+            payload.put("argv", request.toCucumberArguments());
+            if (!request.getScenarioOrder().isEmpty()) {
+                payload.put("order", request.getScenarioOrder());
+            }
+            try {
+                stdin.write(objectMapper.writeValueAsString(payload));
+                stdin.newLine();
+                stdin.flush();
+            } catch (IOException e) {
+                this.job = null;
+                kill();
+                throw e;
+            }
+        }
+
+        void readLoop() {
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    int doneIndex = line.indexOf(TestWorkerMain.DONE);
+                    if (line.equals(TestWorkerMain.READY)) {
+                        ready = true;
+                        startFailures.set(0);
+                        idleWorkers.offer(this);
+                    } else if (doneIndex >= 0) {
+                        if (doneIndex > 0) {
+                            forward(line.substring(0, doneIndex));
+                        }
+                        onJobDone(line.substring(doneIndex + TestWorkerMain.DONE.length()).trim());
+                    } else {
+                        forward(line);
+                    }
+                }
+            } catch (IOException e) {
+                logger.warn("Lost output of test worker {}: {}", id, e.getMessage());
+            } catch (RuntimeException e) {
+                // Nobody reads the worker's output any more, so it cannot be used again
+                logger.error("Error reading the output of test worker {}", id, e);
+                kill();
+            }
+            WorkerJob current = job;
+            if (current != null) {
+                current.finish(-1);
+                job = null;
+            }
+            onWorkerExit(this);
+        }
+
+        private void forward(String line) {
+            WorkerJob current = job;
+            if (current != null) {
+                current.write(line);
+            } else {
+                logger.debug("[worker-{}] {}", id, line);
+            }
+        }
+
+        private void onJobDone(String summary) {
+            JobSummary done = JobSummary.parse(summary);
+            if (!done.isReadable()) {
+                logger.warn("Unreadable job summary from test worker {}: '{}'", id, summary);
+            }
+
+            WorkerJob current = job;
+            job = null;
+            jobsRun++;
+            if (current != null) {
+                current.finish(done.getExitCode());
+            }
+
+            boolean memoryPressure = (double) done.getUsedHeap() / done.getMaxHeap() > maxHeapRatio;
+            if (jobsRun >= maxJobsPerWorker || memoryPressure) {
+                logger.info("Recycling test worker {} (jobs={}, heap={}MB)", id, jobsRun,
+                        done.getUsedHeap() / (1024 * 1024));
+                retire();
+            } else {
+                idleWorkers.offer(this);
+            }
+        }
+
+        /**
+         * Closing stdin lets the worker finish and exit on its own
+         */
+        void retire() {
+            try {
+                stdin.close();
+            } catch (IOException e) {
+                kill();
+            }
+        }
+
+        void kill() {
+            process.descendants().forEach(ProcessHandle::destroyForcibly);
+            process.destroyForcibly();
+        }
+    }
+
+    /**
+     * Exit code and heap use a worker prints after {@link TestWorkerMain#DONE}.
+     * A summary that cannot be read counts as a failed run with unknown heap use.
+     */
+    static class JobSummary {
+        private int exitCode = 1;
+        // Heap in use after the worker's last garbage collection, so garbage is not counted
+        private long usedHeap;
+        private long maxHeap = Long.MAX_VALUE;
+        private boolean readable;
+
+        static JobSummary parse(String summary) {
+            JobSummary done = new JobSummary();
+            String[] parts = summary.trim().split("\\s+");
+            try {
+                int exitCode = Integer.parseInt(parts[0]);
+                if (parts.length > 2) {
+                    long usedHeap = Long.parseLong(parts[1]);
+                    long maxHeap = Long.parseLong(parts[2]);
+                    if (maxHeap > 0) {
+                        done.usedHeap = usedHeap;
+                        done.maxHeap = maxHeap;
+                    }
+                }
+                done.exitCode = exitCode;
+                done.readable = true;
+            } catch (NumberFormatException e) {
+                // Keep the defaults
+            }
+            return done;
+        }
+
+        int getExitCode() {
+            return exitCode;
+        }
+
+        long getUsedHeap() {
+            return usedHeap;
+        }
+
+        long getMaxHeap() {
+            return maxHeap;
+        }
+
+        boolean isReadable() {
+            return readable;
+        }
+    }
+
+    /**
+     * One run on a worker; output ends when the worker reports the job done
+     */
+    private static class WorkerJob implements ExecutionHandle {
+        private final Worker worker;
+        private final PipedInputStream output;
+        private final PipedOutputStream sink;
+        private final CountDownLatch finished = new CountDownLatch(1);
+        private volatile int exitCode = -1;
+
+        WorkerJob(Worker worker) throws IOException {
+            this.worker = worker;
+            this.output = new PipedInputStream(64 * 1024);
+            this.sink = new PipedOutputStream(output);
+        }
+
+        void write(String line) {
+            try {
+                sink.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+            } catch (IOException ignored) {
+                // nobody is reading any more, e.g. after a cancel
+            }
+        }
+
+        void finish(int exitCode) {
+            this.exitCode = exitCode;
+            try {
+                sink.close();
+            } catch (IOException ignored) {
+            }
+            finished.countDown();
+        }
+
+        @Override
+        public InputStream getOutput() {
+            return output;
+        }
+
+        @Override
+        public boolean isAlive() {
+            return finished.getCount() > 0;
+        }
+
+        @Override
+        public int waitFor() throws InterruptedException {
+            finished.await();
+            return exitCode;
+        }
+
+        @Override
+        public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+            return finished.await(timeout, unit);
+        }
+
+        @Override
+        public void destroy() {
+            // The run cannot be stopped inside the worker, so the worker is
+            // killed and the pool starts a replacement
+            worker.kill();
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package com.testautomation.worker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.testautomation.service.ExecutionRequest;
+import com.testautomation.service.InProcessConsolePlugin;
+import com.testautomation.service.ScenarioOrder;
+import io.cucumber.core.cli.Main;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Entry point of a long-lived test worker JVM started by the worker pool.
+ *
+ * Protocol (one line each, UTF-8):
+ * - worker prints {@link #READY} once the glue is loaded
+ * - pool writes a job as JSON: {"executionId": "...", "argv": ["--glue", ...]},
+ * optionally with "order": ["login.feature:12", ...] to run those scenarios first
+ * - worker streams the run output, then prints {@link #DONE} followed by the
+ * exit code, heap bytes in use after the last garbage collection and max heap bytes
+ * - closing stdin shuts the worker down
+ */
+public final class TestWorkerMain {
+    public static final String READY = "##worker-ready##";
+    public static final String DONE = "##worker-done##";
+
+    private TestWorkerMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        PrintStream out = System.out;
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        warmUp(classLoader);
+        out.println(READY);
+        out.flush();
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        BufferedReader in = new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            int exitCode = 1;
+            String executionId = null;
+            try {
+                JsonNode job = objectMapper.readTree(line);
+                executionId = job.path("executionId").asText();
+                String[] argv = objectMapper.convertValue(job.get("argv"), String[].class);
+                List<String> order = job.has("order")
+                        ? List.of(objectMapper.convertValue(job.get("order"), String[].class)) : List.of();
+                InProcessConsolePlugin.register(executionId, out);
+                exitCode = ScenarioOrder.run(argv, order, classLoader);
+            } catch (Throwable t) {
+                out.println("Worker job failed: " + t);
+            } finally {
+                if (executionId != null) {
+                    InProcessConsolePlugin.unregister(executionId);
+                }
+            }
+            out.println(DONE + " " + exitCode + " " + liveHeapBytes() + " " + Runtime.getRuntime().maxMemory());
+            out.flush();
+        }
+    }
+
+    /**
+     * Heap still in use after the last garbage collection of each heap pool;
+     * unlike total minus free memory this does not count garbage
+     */
+    private static long liveHeapBytes() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            MemoryUsage afterGc = pool.getCollectionUsage();
+            if (pool.getType() == MemoryType.HEAP && afterGc != null) {
+                used += afterGc.getUsed();
+            }
+        }
+        return used;
+    }
+
+    /**
+     * Dry run over the features so glue scanning and class loading happen
+     * before the first job arrives
+     */
+    private static void warmUp(ClassLoader classLoader) {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            Main.run(new String[] { "--dry-run", "--glue", ExecutionRequest.GLUE_PACKAGE,
+                    "--object-factory", io.cucumber.core.backend.DefaultObjectFactory.class.getName(),
+                    ExecutionRequest.FEATURES_DIR }, classLoader);
+        } catch (Throwable ignored) {
+            // a broken feature must not keep the worker from serving jobs
+        } finally {
+            System.setOut(original);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.testautomation.runners;
 
+import io.cucumber.core.backend.DefaultObjectFactory;
 import io.cucumber.junit.Cucumber;
 import io.cucumber.junit.CucumberOptions;
 import org.junit.runner.RunWith;
@@ -18,13 +19,11 @@ import org.junit.runner.RunWith;
                 // Location of step definition classes
                 glue = { "com.testautomation.stepdefinitions" },
 
-                // Report plugins
-                plugin = {
-                                "pretty",
-                                "html:target/cucumber-reports/cucumber-report.html",
-                                "json:target/cucumber-reports/cucumber-report.json",
-                                "junit:target/cucumber-reports/cucumber-report.xml"
-                },
+                // The glue has no Spring context configuration, so bypass cucumber-spring
+                objectFactory = DefaultObjectFactory.class,
+
+                // Report plugins are set by surefire in pom.xml (cucumber.plugin), so
+                // each run can write them to its own ${cucumber.reports.dir}
 
                 // Note: 'strict' option removed in newer Cucumber versions; undefined steps
                 // will fail by default using configuration
@@ -49,27 +48,30 @@ public class TestRunner {
 /**
  * Usage Examples:
  * 
- * 1. Run all tests:
- * mvn test
+ * 1. Run all features:
+ * mvn test -Dtest=TestRunner
  * 
  * 2. Run tests with specific tag:
- * mvn test -Dcucumber.filter.tags="@smoke"
+ * mvn test -Dtest=TestRunner -Dcucumber.filter.tags="@smoke"
  * 
  * 3. Run tests with AND logic:
- * mvn test -Dcucumber.filter.tags="@smoke and @api"
+ * mvn test -Dtest=TestRunner -Dcucumber.filter.tags="@smoke and @api"
  * 
  * 4. Run tests with OR logic:
- * mvn test -Dcucumber.filter.tags="@smoke or @regression"
+ * mvn test -Dtest=TestRunner -Dcucumber.filter.tags="@smoke or @regression"
  * 
  * 5. Run tests excluding certain tags:
- * mvn test -Dcucumber.filter.tags="not @wip"
+ * mvn test -Dtest=TestRunner -Dcucumber.filter.tags="not @wip"
  * 
  * 6. Complex tag expressions:
- * mvn test -Dcucumber.filter.tags="(@smoke or @regression) and not @slow"
+ * mvn test -Dtest=TestRunner -Dcucumber.filter.tags="(@smoke or @regression) and not @slow"
  * 
  * 7. Run specific feature file:
- * mvn test -Dcucumber.features="src/test/resources/features/login.feature"
+ * mvn test -Dtest=TestRunner -Dcucumber.features="src/test/resources/features/login.feature"
  * 
  * 8. Dry run to check feature files:
- * mvn test -Dcucumber.execution.dry-run=true
+ * mvn test -Dtest=TestRunner -Dcucumber.execution.dry-run=true
+ *
+ * 9. Write the reports somewhere else:
+ * mvn test -Dtest=TestRunner -Dcucumber.reports.dir=target/my-reports
  */
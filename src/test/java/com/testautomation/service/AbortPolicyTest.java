@@ -0,0 +1,83 @@
+package com.testautomation.service;
+
+import com.testautomation.model.ExecutionHistory;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AbortPolicyTest {
+    private final List<String> aborts = new ArrayList<>();
+
+    @Test
+    void abortsOnceTheFailureLimitIsReached() {
+        AbortPolicy policy = new AbortPolicy(2, 0, 0, aborts::add);
+
+        policy.onScenarioFinished(result("FAILED"));
+        policy.onScenarioFinished(result("PASSED"));
+        assertThat(policy.isTripped()).isFalse();
+
+        policy.onScenarioFinished(result("UNDEFINED"));
+        assertThat(policy.isTripped()).isTrue();
+        assertThat(policy.getReason()).isEqualTo("Aborted after 2 failed scenarios (limit 2)");
+        assertThat(aborts).containsExactly(policy.getReason());
+    }
+
+    @Test
+    void checksTheFailureRateOnlyAfterTheMinimumScenarios() {
+        AbortPolicy policy = new AbortPolicy(0, 50, 4, aborts::add);
+
+        policy.onScenarioFinished(result("FAILED"));
+        policy.onScenarioFinished(result("FAILED"));
+        policy.onScenarioFinished(result("PASSED"));
+        assertThat(policy.isTripped()).isFalse();
+
+        // 2 of 4 is not more than 50%
+        policy.onScenarioFinished(result("PASSED"));
+        assertThat(policy.isTripped()).isFalse();
+
+        policy.onScenarioFinished(result("FAILED"));
+        assertThat(policy.getReason()).isEqualTo("Aborted: 3 of 5 scenarios failed (limit 50% after 4)");
+        assertThat(aborts).hasSize(1);
+    }
+
+    @Test
+    void skippedScenariosAreNotFailures() {
+        AbortPolicy policy = new AbortPolicy(1, 0, 0, aborts::add);
+
+        policy.onScenarioFinished(result("SKIPPED"));
+        policy.onScenarioFinished(result("PASSED"));
+
+        assertThat(policy.isTripped()).isFalse();
+    }
+
+    @Test
+    void marksScenariosFinishingAfterTheAbortSkippedAndFiresOnce() {
+        AbortPolicy policy = new AbortPolicy(1, 0, 0, aborts::add);
+        policy.onScenarioFinished(result("FAILED"));
+
+        ExecutionHistory.ScenarioResult late = result("FAILED");
+        policy.onScenarioFinished(late);
+
+        assertThat(late.getStatus()).isEqualTo("SKIPPED");
+        assertThat(aborts).hasSize(1);
+    }
+
+    @Test
+    void isInactiveWithoutLimits() {
+        AbortPolicy policy = new AbortPolicy(0, 0, 10, aborts::add);
+
+        policy.onScenarioFinished(result("FAILED"));
+
+        assertThat(policy.isActive()).isFalse();
+        assertThat(policy.isTripped()).isFalse();
+    }
+
+    private static ExecutionHistory.ScenarioResult result(String status) {
+        ExecutionHistory.ScenarioResult result = new ExecutionHistory.ScenarioResult();
+        result.setStatus(status);
+        return result;
+    }
+}
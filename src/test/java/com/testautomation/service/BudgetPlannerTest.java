@@ -0,0 +1,117 @@
+package com.testautomation.service;
+
+import com.testautomation.model.ExecutionHistory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Plans login.feature (scenarios on lines 12, 22 and 31; 22 and 31 tagged
+ * {@code @negative}) against a history in which line 12 always passed in
+ * 20s, line 22 always failed in 10s and line 31 never ran.
+ */
+class BudgetPlannerTest {
+    private final BudgetPlanner planner = new BudgetPlanner();
+
+    @BeforeEach
+    void setUp() {
+        List<ExecutionHistory.Execution> history = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            history.add(execution(result(12, "PASSED", 20_000L), i < 2 ? result(22, "FAILED", 10_000L) : null));
+        }
+        ExecutionHistoryService historyService = mock(ExecutionHistoryService.class);
+        when(historyService.getRecentExecutions(anyInt())).thenReturn(history);
+        ScenarioStatistics statistics = new ScenarioStatistics();
+        ReflectionTestUtils.setField(statistics, "executionHistoryService", historyService);
+        ReflectionTestUtils.setField(planner, "scenarioStatistics", statistics);
+        ReflectionTestUtils.setField(planner, "historyRuns", 20);
+        ReflectionTestUtils.setField(planner, "defaultScenarioMillis", 30_000L);
+    }
+
+    @Test
+    void takesScenariosByFailureChancePerSecondUntilTheBudgetIsUsed() {
+        BudgetPlanner.Plan plan = planner.plan(List.of("login.feature"), null, 45_000);
+
+        assertThat(plan.getSelected()).containsExactly("login.feature:22:31");
+        assertThat(plan.getSelectedScenarios()).isEqualTo(2);
+        assertThat(plan.getPlannedMillis()).isEqualTo(40_000);
+        assertThat(plan.getDeferred())
+                .extracting(ExecutionHistory.DeferredScenario::getLocation,
+                        ExecutionHistory.DeferredScenario::getEstimatedMillis,
+                        ExecutionHistory.DeferredScenario::getReason)
+                .containsExactly(tuple("login.feature:12", 20_000L,
+                        "Lower expected value per second than the selected scenarios; 5s of budget left"));
+        // (0 failures + 1) / (4 runs + 2)
+        assertThat(plan.getDeferred().get(0).getFailureRate()).isEqualTo(0.167);
+    }
+
+    @Test
+    void keepsTheWholeFeatureWhenEverythingFits() {
+        BudgetPlanner.Plan plan = planner.plan(List.of("login.feature"), null, 60_000);
+
+        assertThat(plan.getSelected()).containsExactly("login.feature");
+        assertThat(plan.getSelectedScenarios()).isEqualTo(3);
+        assertThat(plan.getDeferred()).isEmpty();
+    }
+
+    @Test
+    void defersScenariosLongerThanTheWholeBudget() {
+        BudgetPlanner.Plan plan = planner.plan(List.of("login.feature"), null, 15_000);
+
+        assertThat(plan.getSelected()).containsExactly("login.feature:22");
+        assertThat(plan.getDeferred())
+                .extracting(ExecutionHistory.DeferredScenario::getLocation,
+                        ExecutionHistory.DeferredScenario::getReason)
+                .containsExactly(
+                        tuple("login.feature:31", "Longer than the whole budget"),
+                        tuple("login.feature:12", "Longer than the whole budget"));
+    }
+
+    @Test
+    void plansOnlyScenariosMatchingTheTagExpression() {
+        BudgetPlanner.Plan plan = planner.plan(List.of("login.feature"), "@negative", 60_000);
+
+        // Every matching scenario fits, so the run keeps the feature and its tag expression
+        assertThat(plan.getSelected()).containsExactly("login.feature");
+        assertThat(plan.getSelectedScenarios()).isEqualTo(2);
+        assertThat(plan.getPlannedMillis()).isEqualTo(40_000);
+    }
+
+    @Test
+    void plansAFeatureThatCannotBeParsedAsAWhole() {
+        BudgetPlanner.Plan plan = planner.plan(List.of("missing.feature"), null, 60_000);
+
+        assertThat(plan.getSelected()).containsExactly("missing.feature");
+        assertThat(plan.getPlannedMillis()).isEqualTo(30_000);
+    }
+
+    private static ExecutionHistory.Execution execution(ExecutionHistory.ScenarioResult... results) {
+        ExecutionHistory.Execution execution = new ExecutionHistory.Execution();
+        List<ExecutionHistory.ScenarioResult> scenarioResults = new ArrayList<>();
+        for (ExecutionHistory.ScenarioResult result : results) {
+            if (result != null) {
+                scenarioResults.add(result);
+            }
+        }
+        execution.setScenarioResults(scenarioResults);
+        return execution;
+    }
+
+    private static ExecutionHistory.ScenarioResult result(int line, String status, long durationMillis) {
+        ExecutionHistory.ScenarioResult result = new ExecutionHistory.ScenarioResult();
+        result.setFeatureFile("login.feature");
+        result.setLine(line);
+        result.setStatus(status);
+        result.setDurationMillis(durationMillis);
+        return result;
+    }
+}
@@ -0,0 +1,129 @@
+package com.testautomation.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExecutionLogServiceTest {
+    private final ExecutionLogService service = new ExecutionLogService();
+
+    @TempDir
+    Path dir;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(service, "logDir", dir.toString());
+        ReflectionTestUtils.setField(service, "tailLines", 200);
+        ReflectionTestUtils.setField(service, "compress", true);
+        ReflectionTestUtils.setField(service, "queueCapacity", 1000);
+        ReflectionTestUtils.setField(service, "backpressureMillis", 100L);
+        ReflectionTestUtils.invokeMethod(service, "start");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(service, "stop");
+    }
+
+    @Test
+    void pagesThroughARunningLogInOrder() throws IOException {
+        StringBuilder read = new StringBuilder();
+        long offset = 0;
+        try (ExecutionLog log = service.open("e1")) {
+            for (int i = 1; i <= 50; i++) {
+                log.append("line " + i);
+                Map<String, Object> range = service.readRange("e1", offset, 16);
+                assertThat(range.get("offset")).isEqualTo(offset);
+                read.append(range.get("content"));
+                offset = (Long) range.get("nextOffset");
+            }
+        }
+        offset = readToEnd(read, offset);
+
+        assertThat(read.toString()).isEqualTo(lines(1, 50));
+        assertThat(offset).isEqualTo(lines(1, 50).length());
+    }
+
+    @Test
+    void continuesAcrossReopensOfTheLog() throws IOException {
+        try (ExecutionLog log = service.open("e1")) {
+            log.append("line 1");
+        }
+        StringBuilder read = new StringBuilder();
+        long offset = readToEnd(read, 0);
+
+        // A retry appends another gzip member to the closed log
+        try (ExecutionLog log = service.open("e1")) {
+            log.append("line 2");
+        }
+        offset = readToEnd(read, offset);
+
+        assertThat(read.toString()).isEqualTo(lines(1, 2));
+        assertThat(service.readRange("e1", 0, 100)).containsEntry("size", (long) lines(1, 2).length());
+        assertThat(service.readRange("e1", 7, 100)).containsEntry("content", "line 2\n");
+    }
+
+    @Test
+    void readsAnEarlierRangeAgain() throws IOException {
+        try (ExecutionLog log = service.open("e1")) {
+            log.append("line 1");
+            log.append("line 2");
+        }
+
+        assertThat(service.readRange("e1", 7, 100)).containsEntry("content", "line 2\n");
+        assertThat(service.readRange("e1", 0, 7)).containsEntry("content", "line 1\n")
+                .containsEntry("nextOffset", 7L);
+    }
+
+    @Test
+    void servesTheTailOfARunningLogFromMemory() throws IOException {
+        try (ExecutionLog log = service.open("e1")) {
+            log.append("line 1");
+            log.append("line 2");
+
+            assertThat(service.isOpen("e1")).isTrue();
+            assertThat(service.tail("e1", 1)).containsExactly("line 2");
+        }
+        assertThat(service.isOpen("e1")).isFalse();
+        assertThat(service.tail("e1", 5)).containsExactly("line 1", "line 2");
+    }
+
+    @Test
+    void keepsTheLogOpenUntilEveryWriterClosedIt() throws IOException {
+        ExecutionLog shard1 = service.open("e1");
+        ExecutionLog shard2 = service.open("e1");
+        assertThat(shard2).isSameAs(shard1);
+
+        shard1.close();
+        assertThat(service.isOpen("e1")).isTrue();
+        shard2.close();
+        assertThat(service.isOpen("e1")).isFalse();
+    }
+
+    private long readToEnd(StringBuilder read, long offset) throws IOException {
+        while (true) {
+            Map<String, Object> range = service.readRange("e1", offset, 16);
+            read.append(range.get("content"));
+            offset = (Long) range.get("nextOffset");
+            if (offset >= (Long) range.get("size")) {
+                return offset;
+            }
+        }
+    }
+
+    private static String lines(int from, int to) {
+        StringBuilder text = new StringBuilder();
+        for (int i = from; i <= to; i++) {
+            text.append("line ").append(i).append('\n');
+        }
+        return text.toString();
+    }
+}
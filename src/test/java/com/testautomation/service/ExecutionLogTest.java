@@ -0,0 +1,112 @@
+package com.testautomation.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExecutionLogTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void dropsLinesThatDoNotFitInTheQueueAndNotesThemAtTheEnd() throws IOException {
+        ExecutionLog log = newLog(10, 2, 0);
+        log.retain();
+
+        for (int i = 1; i <= 5; i++) {
+            log.append("line " + i);
+        }
+
+        assertThat(log.getDroppedLines()).isEqualTo(3);
+        // The in-memory tail keeps every line
+        assertThat(log.tail(10)).containsExactly("line 1", "line 2", "line 3", "line 4", "line 5");
+        assertThat(log.release()).isTrue();
+        assertThat(Files.readAllLines(dir.resolve("e1.log"))).containsExactly("line 1", "line 2",
+                "[3 line(s) dropped: the log writer fell behind]");
+    }
+
+    @Test
+    void waitsForRoomBeforeDroppingALine() throws Exception {
+        ExecutionLog log = newLog(10, 1, 5000);
+        log.retain();
+        log.append("line 1");
+
+        Thread writer = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+                log.flush();
+            } catch (Exception ignored) {
+            }
+        });
+        writer.start();
+        long started = System.currentTimeMillis();
+        log.append("line 2");
+        writer.join();
+
+        assertThat(System.currentTimeMillis() - started).isGreaterThanOrEqualTo(50);
+        assertThat(log.getDroppedLines()).isZero();
+        log.release();
+        assertThat(Files.readAllLines(dir.resolve("e1.log"))).containsExactly("line 1", "line 2");
+    }
+
+    @Test
+    void keepsOnlyTheLatestLinesInMemory() throws IOException {
+        ExecutionLog log = newLog(3, 100, 0);
+
+        for (int i = 1; i <= 5; i++) {
+            log.append("line " + i);
+        }
+
+        assertThat(log.tail(10)).containsExactly("line 3", "line 4", "line 5");
+        assertThat(log.tail(2)).containsExactly("line 4", "line 5");
+    }
+
+    @Test
+    void closesTheFileWhenTheLastWriterReleasesIt() throws IOException {
+        ExecutionLog log = newLog(10, 100, 0);
+        log.retain();
+        log.retain();
+        log.append("line 1");
+
+        assertThat(log.release()).isFalse();
+        assertThat(log.release()).isTrue();
+        assertThat(log.drain()).isFalse();
+        assertThat(Files.readAllLines(dir.resolve("e1.log"))).containsExactly("line 1");
+    }
+
+    @Test
+    void countsUncompressedBytesOnTopOfTheInitialSize() throws IOException {
+        ExecutionLog log = new ExecutionLog("e1", dir.resolve("e1.log.gz"), true, 100, 10, 10, 0, closed -> {
+        });
+        log.retain();
+        log.append("abc");
+        log.append("é");
+        log.flush();
+
+        assertThat(log.getSize()).isEqualTo(100 + "abc\n".length() + "é\n".getBytes("UTF-8").length);
+        log.release();
+    }
+
+    @Test
+    void closeHandsTheLogBackToItsOwner() throws IOException {
+        AtomicInteger closes = new AtomicInteger();
+        ExecutionLog log = new ExecutionLog("e1", dir.resolve("e1.log"), false, 0, 10, 10, 0,
+                closed -> closes.incrementAndGet());
+
+        log.close();
+
+        assertThat(closes).hasValue(1);
+    }
+
+    private ExecutionLog newLog(int capacity, int queueCapacity, long backpressureMillis) throws IOException {
+        return new ExecutionLog("e1", dir.resolve("e1.log"), false, 0, capacity, queueCapacity, backpressureMillis,
+                closed -> {
+                });
+    }
+}
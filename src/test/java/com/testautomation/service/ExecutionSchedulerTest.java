@@ -0,0 +1,191 @@
+package com.testautomation.service;
+
+import com.testautomation.exception.ExecutionPreemptedException;
+import com.testautomation.exception.ExecutionRejectedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExecutionSchedulerTest {
+    private final ExecutionScheduler scheduler = new ExecutionScheduler();
+    private final List<String> started = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Test
+    void startsQueuedExecutionsByPriorityThenInSubmissionOrder() throws Exception {
+        init(1, 10, false);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> blocker = scheduler.submit("blocker", ExecutionPriority.LOW,
+                () -> run("blocker", release));
+        awaitStarted("blocker");
+
+        CompletableFuture<?> low = scheduler.submit("low", ExecutionPriority.LOW, () -> run("low", null));
+        CompletableFuture<?> normal1 = scheduler.submit("normal-1", () -> run("normal-1", null));
+        CompletableFuture<?> high = scheduler.submit("high", ExecutionPriority.HIGH, () -> run("high", null));
+        CompletableFuture<?> normal2 = scheduler.submit("normal-2", () -> run("normal-2", null));
+        assertThat(scheduler.getExecutionState("low")).containsEntry("state", "QUEUED")
+                .containsEntry("queuePosition", 4);
+        assertThat(scheduler.getExecutionState("high")).containsEntry("queuePosition", 1);
+
+        release.countDown();
+        CompletableFuture.allOf(blocker, low, normal1, high, normal2).get(5, TimeUnit.SECONDS);
+
+        assertThat(started).containsExactly("blocker", "high", "normal-1", "normal-2", "low");
+        await(() -> scheduler.getExecutionState("low") == null);
+    }
+
+    @Test
+    void rejectsSubmissionsBeyondTheQueue() throws Exception {
+        init(1, 1, false);
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.submit("running", () -> run("running", release));
+        awaitStarted("running");
+        scheduler.submit("queued", () -> run("queued", null));
+
+        assertThatThrownBy(() -> scheduler.submit("rejected", () -> run("rejected", null)))
+                .isInstanceOf(ExecutionRejectedException.class);
+        release.countDown();
+    }
+
+    @Test
+    void rejectsAnIdThatIsAlreadyQueuedOrRunning() throws Exception {
+        init(1, 10, false);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> running = scheduler.submit("running", () -> run("running", release));
+        awaitStarted("running");
+        CompletableFuture<String> queued = scheduler.submit("queued", () -> run("queued", null));
+
+        assertThatThrownBy(() -> scheduler.submit("running", () -> run("running-again", null)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> scheduler.submit("queued", ExecutionPriority.HIGH, () -> run("queued-again", null)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(scheduler.getExecutionState("queued")).containsEntry("state", "QUEUED");
+
+        release.countDown();
+        CompletableFuture.allOf(running, queued).get(5, TimeUnit.SECONDS);
+        assertThat(started).containsExactly("running", "queued");
+
+        // Once finished, the id can be used again
+        await(() -> scheduler.getExecutionState("running") == null);
+        assertThat(scheduler.submit("running", () -> "again").get(5, TimeUnit.SECONDS)).isEqualTo("again");
+    }
+
+    @Test
+    void preemptsALowerPriorityExecutionAndRunsItAgainAfterwards() throws Exception {
+        init(1, 10, true);
+        CountDownLatch stop = new CountDownLatch(1);
+        List<String> preempted = new CopyOnWriteArrayList<>();
+        List<String> completed = new CopyOnWriteArrayList<>();
+        scheduler.setPreemptionHandler(executionId -> {
+            preempted.add(executionId);
+            stop.countDown();
+        }, completed::add);
+
+        CompletableFuture<String> low = scheduler.submit("low", ExecutionPriority.LOW, () -> {
+            boolean firstAttempt = !started.contains("low");
+            run("low", firstAttempt ? stop : null);
+            if (firstAttempt) {
+                throw new ExecutionPreemptedException("preempted");
+            }
+            return "low";
+        });
+        awaitStarted("low");
+        CompletableFuture<String> high = scheduler.submit("high", ExecutionPriority.HIGH, () -> run("high", null));
+
+        assertThat(high.get(5, TimeUnit.SECONDS)).isEqualTo("high");
+        assertThat(low.get(5, TimeUnit.SECONDS)).isEqualTo("low");
+        assertThat(preempted).containsExactly("low");
+        assertThat(started).containsExactly("low", "high", "low");
+        await(() -> completed.size() == 2);
+        assertThat(completed).containsExactlyInAnyOrder("high", "low");
+        assertThat(scheduler.getStatus()).containsEntry("preemptions", 1);
+    }
+
+    @Test
+    void doesNotPreemptExecutionsOfTheSameClass() throws Exception {
+        init(1, 10, true);
+        List<String> preempted = new CopyOnWriteArrayList<>();
+        scheduler.setPreemptionHandler(preempted::add, executionId -> {
+        });
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> first = scheduler.submit("first", () -> run("first", release));
+        awaitStarted("first");
+        CompletableFuture<String> second = scheduler.submit("second", () -> run("second", null));
+
+        release.countDown();
+        CompletableFuture.allOf(first, second).get(5, TimeUnit.SECONDS);
+
+        assertThat(preempted).isEmpty();
+        assertThat(started).containsExactly("first", "second");
+    }
+
+    @Test
+    void stopsPreemptingAnExecutionAfterTheLimit() throws Exception {
+        init(1, 10, true);
+        ReflectionTestUtils.setField(scheduler, "maxPreemptions", 0);
+        List<String> preempted = new CopyOnWriteArrayList<>();
+        scheduler.setPreemptionHandler(preempted::add, executionId -> {
+        });
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<String> low = scheduler.submit("low", ExecutionPriority.LOW, () -> run("low", release));
+        awaitStarted("low");
+        CompletableFuture<String> high = scheduler.submit("high", ExecutionPriority.HIGH, () -> run("high", null));
+
+        release.countDown();
+        CompletableFuture.allOf(low, high).get(5, TimeUnit.SECONDS);
+
+        assertThat(preempted).isEmpty();
+    }
+
+    private void init(int maxConcurrent, int queueCapacity, boolean preemptionEnabled) {
+        ReflectionTestUtils.setField(scheduler, "maxConcurrent", maxConcurrent);
+        ReflectionTestUtils.setField(scheduler, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(scheduler, "preemptionEnabled", preemptionEnabled);
+        ReflectionTestUtils.setField(scheduler, "maxPreemptions", 3);
+        scheduler.init();
+    }
+
+    /**
+     * Record the start of an execution and wait for the latch, if any
+     */
+    private String run(String executionId, CountDownLatch latch) {
+        started.add(executionId);
+        if (latch != null) {
+            try {
+                assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return executionId;
+    }
+
+    private void awaitStarted(String executionId) throws InterruptedException {
+        await(() -> started.contains(executionId));
+    }
+
+    /**
+     * Wait up to 5s for the condition; a future completes before the scheduler forgets its execution
+     */
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+}
@@ -0,0 +1,101 @@
+package com.testautomation.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class GherkinScenariosTest {
+    private static final String FEATURE = """
+            @checkout
+            Feature: Checkout
+
+              Background:
+                Given a basket with 2 items
+
+              @card
+              Scenario: Pay by card
+                When I pay by card
+                  | number           |
+                  | 4111111111111111 |
+
+              Scenario Outline: Pay in <currency>
+                When I pay in <currency>
+
+                @euro
+                Examples: Euro
+                  | currency |
+                  | EUR      |
+
+                Examples: Others
+                  | currency |
+                  | USD      |
+                  | GBP      |
+
+              Rule: Vouchers
+                Scenario: Pay by voucher
+                  When I pay by voucher
+            """;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readsEveryScenarioAndExampleRowWithItsLine() throws Exception {
+        List<GherkinScenarios.Definition> scenarios = GherkinScenarios.parse(write(FEATURE));
+
+        assertThat(scenarios)
+                .extracting(GherkinScenarios.Definition::getLine, GherkinScenarios.Definition::getName)
+                .containsExactly(
+                        tuple(8, "Pay by card"),
+                        tuple(19, "Pay in EUR"),
+                        tuple(23, "Pay in USD"),
+                        tuple(24, "Pay in GBP"),
+                        tuple(27, "Pay by voucher"));
+    }
+
+    @Test
+    void includesInheritedTags() throws Exception {
+        List<GherkinScenarios.Definition> scenarios = GherkinScenarios.parse(write(FEATURE));
+
+        assertThat(scenarios).extracting(GherkinScenarios.Definition::getTags).containsExactly(
+                List.of("@checkout", "@card"),
+                List.of("@checkout", "@euro"),
+                List.of("@checkout"),
+                List.of("@checkout"),
+                List.of("@checkout"));
+    }
+
+    @Test
+    void fillsInBackgroundStepsArgumentsAndExampleValues() throws Exception {
+        List<GherkinScenarios.Definition> scenarios = GherkinScenarios.parse(write(FEATURE));
+
+        assertThat(scenarios.get(0).getText()).isEqualTo(
+                "Pay by card\na basket with 2 items\nI pay by card\n|number\n|4111111111111111\n");
+        assertThat(scenarios.get(3).getText()).isEqualTo("Pay in GBP\na basket with 2 items\nI pay in GBP\n");
+    }
+
+    @Test
+    void splitsFeatureLineEntries() {
+        assertThat(GherkinScenarios.featureOf("ui/checkout.feature")).isEqualTo("ui/checkout.feature");
+        assertThat(GherkinScenarios.featureOf("ui/checkout.feature:8:22")).isEqualTo("ui/checkout.feature");
+        assertThat(GherkinScenarios.linesOf("ui/checkout.feature")).isEmpty();
+        assertThat(GherkinScenarios.linesOf("ui/checkout.feature:8:22")).containsExactly(8, 22);
+    }
+
+    @Test
+    void splitsEntriesOfFeaturesInADirectoryNamedLikeAFeature() {
+        assertThat(GherkinScenarios.featureOf("old.feature/checkout.feature:8"))
+                .isEqualTo("old.feature/checkout.feature");
+        assertThat(GherkinScenarios.linesOf("old.feature/checkout.feature:8")).containsExactly(8);
+    }
+
+    private Path write(String content) throws Exception {
+        return Files.writeString(dir.resolve("checkout.feature"), content);
+    }
+}
@@ -0,0 +1,55 @@
+package com.testautomation.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MavenExecutionEngineTest {
+    private final MavenExecutionEngine engine = new MavenExecutionEngine();
+    private final BuildFingerprintService buildCache = mock(BuildFingerprintService.class);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(engine, "buildCache", buildCache);
+    }
+
+    @Test
+    void runsOnlyTheCucumberRunnerWithTheRequestOptions() {
+        when(buildCache.isEnabled()).thenReturn(true);
+        when(buildCache.isOffline()).thenReturn(true);
+        ExecutionRequest request = new ExecutionRequest("e1")
+                .addFeature("src/test/resources/features/login.feature:12")
+                .setTagExpression("@smoke and not @wip")
+                .addPlugin("message:target/executions/e1/messages.ndjson");
+
+        List<String> arguments = engine.buildArguments(request, new MavenExecutionEngine.CompiledClasses(engine, 0, null));
+
+        assertThat(arguments).containsExactly(
+                "-o",
+                "surefire:test",
+                "-Dtest=TestRunner",
+                "-Dsurefire.reports.dir=" + Paths.get("target/executions/e1/surefire-reports"),
+                "-Dcucumber.reports.dir=" + Paths.get("target/executions/e1/cucumber-reports"),
+                "-Dcucumber.features=src/test/resources/features/login.feature:12",
+                "-Dcucumber.filter.tags=@smoke and not @wip",
+                "-Dcucumber.plugin=pretty,message:target/executions/e1/messages.ndjson");
+    }
+
+    @Test
+    void resolvesDependenciesOnlineWithoutTheBuildCache() {
+        ExecutionRequest request = new ExecutionRequest("e1");
+
+        List<String> arguments = engine.buildArguments(request, new MavenExecutionEngine.CompiledClasses(engine, 0, null));
+
+        assertThat(arguments).doesNotContain("-o").startsWith("surefire:test", "-Dtest=TestRunner");
+        assertThat(arguments).noneMatch(argument -> argument.startsWith("-Dcucumber.features")
+                || argument.startsWith("-Dbuild.dir"));
+    }
+}
@@ -0,0 +1,76 @@
+package com.testautomation.service;
+
+import com.testautomation.model.ExecutionHistory;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class MessageResultCollectorTest {
+
+    @Test
+    void countsOnlyTheLastAttemptOfARetriedScenario() throws Exception {
+        List<ExecutionHistory.ScenarioResult> finished = new ArrayList<>();
+        MessageResultCollector collector = new MessageResultCollector(
+                Paths.get("src/test/resources/messages/retried-run.ndjson"), finished::add);
+        collector.start();
+        collector.finish();
+
+        ExecutionHistory.Execution execution = new ExecutionHistory.Execution();
+        collector.applyTo(execution);
+
+        assertThat(execution.getScenarioResults())
+                .extracting(ExecutionHistory.ScenarioResult::getFeatureFile, ExecutionHistory.ScenarioResult::getLine,
+                        ExecutionHistory.ScenarioResult::getName, ExecutionHistory.ScenarioResult::getStatus,
+                        ExecutionHistory.ScenarioResult::getDurationMillis)
+                .containsExactly(
+                        tuple("checkout.feature", 3, "Pay by card", "PASSED", 1500L),
+                        tuple("checkout.feature", 11, "Pay in EUR", "PASSED", 250L),
+                        tuple("checkout.feature", 12, "Pay in USD", "UNDEFINED", 100L));
+        assertThat(finished).hasSize(3);
+        assertThat(execution.getTotalScenarios()).isEqualTo(3);
+        assertThat(execution.getPassedScenarios()).isEqualTo(2);
+        assertThat(execution.getFailedScenarios()).isEqualTo(1);
+        assertThat(execution.getSkippedScenarios()).isZero();
+        // Hook steps and the failed first attempt are not counted
+        assertThat(execution.getTotalSteps()).isEqualTo(3);
+        assertThat(execution.getPassedSteps()).isEqualTo(2);
+        assertThat(execution.getFailedSteps()).isEqualTo(1);
+    }
+
+    @Test
+    void recordsTheGlueEachFeatureUsed() throws Exception {
+        MessageResultCollector collector = new MessageResultCollector(
+                Paths.get("src/test/resources/messages/retried-run.ndjson"), null);
+        collector.start();
+        collector.finish();
+
+        ExecutionHistory.Execution execution = new ExecutionHistory.Execution();
+        collector.applyTo(execution);
+
+        assertThat(execution.getGlueByFeature()).isEqualTo(Map.of("checkout.feature", Set.of(
+                "com.testautomation.stepdefinitions.CommonSteps",
+                "com.testautomation.stepdefinitions.PaymentSteps",
+                "com.testautomation.stepdefinitions.CurrencySteps")));
+    }
+
+    @Test
+    void collectsNothingWhenTheFileNeverAppears() throws Exception {
+        MessageResultCollector collector = new MessageResultCollector(
+                Paths.get("target/no-such-messages.ndjson"), null);
+        collector.start();
+        collector.finish();
+
+        ExecutionHistory.Execution execution = new ExecutionHistory.Execution();
+        collector.applyTo(execution);
+
+        assertThat(execution.getScenarioResults()).isEmpty();
+        assertThat(execution.getTotalScenarios()).isZero();
+    }
+}
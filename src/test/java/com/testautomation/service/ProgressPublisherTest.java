@@ -0,0 +1,77 @@
+package com.testautomation.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProgressPublisherTest {
+    private final ProgressPublisher publisher = new ProgressPublisher();
+
+    @BeforeEach
+    void setUp() {
+        // No flusher: updates are sent at once, and with no subscribers nothing is sent
+        ReflectionTestUtils.setField(publisher, "maxFramesPerSecond", 0);
+        ReflectionTestUtils.setField(publisher, "replaySize", 3);
+        ReflectionTestUtils.setField(publisher, "replayExecutions", 2);
+        ReflectionTestUtils.invokeMethod(publisher, "start");
+    }
+
+    @Test
+    void replaysTheEventsAfterTheGivenSequence() {
+        publishUpdates("e1", 3);
+
+        ProgressPublisher.Replay replay = publisher.replay("e1", 1);
+
+        assertThat(replay.getEvents()).extracting(event -> event.get("sequence")).containsExactly(2L, 3L);
+        assertThat(replay.getLastSequence()).isEqualTo(3);
+        assertThat(replay.isTruncated()).isFalse();
+    }
+
+    @Test
+    void reportsAGapWhenEventsAfterTheSequenceWereDropped() {
+        publishUpdates("e1", 5);
+
+        ProgressPublisher.Replay replay = publisher.replay("e1", 1);
+
+        // Event 2 fell out of the ring of 3
+        assertThat(replay.getEvents()).extracting(event -> event.get("sequence")).containsExactly(3L, 4L, 5L);
+        assertThat(replay.isTruncated()).isTrue();
+        assertThat(publisher.replay("e1", 2).isTruncated()).isFalse();
+    }
+
+    @Test
+    void replaysNothingForAClientThatIsUpToDate() {
+        publishUpdates("e1", 5);
+
+        ProgressPublisher.Replay replay = publisher.replay("e1", 5);
+
+        assertThat(replay.getEvents()).isEmpty();
+        assertThat(replay.isTruncated()).isFalse();
+    }
+
+    @Test
+    void numbersEachExecutionSeparatelyAndForgetsTheLeastRecentOnes() {
+        publishUpdates("e1", 2);
+        publishUpdates("e2", 1);
+        publishUpdates("e3", 1);
+
+        assertThat(publisher.replay("e2", 0).getEvents()).extracting(event -> event.get("sequence"))
+                .containsExactly(1L);
+        assertThat(publisher.replay("e1", 0).getEvents()).isEmpty();
+        assertThat(publisher.replay("e1", 0).getLastSequence()).isZero();
+    }
+
+    private void publishUpdates(String executionId, int count) {
+        for (int i = 1; i <= count; i++) {
+            Map<String, Object> update = new HashMap<>();
+            update.put("executionId", executionId);
+            update.put("progress", i * 10);
+            publisher.publish(executionId, update);
+        }
+    }
+}
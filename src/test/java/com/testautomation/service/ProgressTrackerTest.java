@@ -0,0 +1,77 @@
+package com.testautomation.service;
+
+import com.testautomation.model.ExecutionHistory;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProgressTrackerTest {
+    private static final Map<String, Long> ESTIMATES = Map.of(
+            "a.feature:3", 10_000L,
+            "a.feature:8", 10_000L,
+            "b.feature:5", 20_000L);
+
+    @Test
+    void spreadsTheEstimatedWorkOverTheLanes() {
+        ProgressTracker tracker = new ProgressTracker(ESTIMATES, 2, 25, 90);
+
+        assertThat(tracker.getEtaMillis()).isEqualTo(20_000);
+        assertThat(tracker.getProgress()).isEqualTo(25);
+        assertThat(tracker.getPlannedScenarios()).isEqualTo(3);
+    }
+
+    @Test
+    void scalesTheEtaByThePaceOfFinishedScenarios() {
+        ProgressTracker tracker = new ProgressTracker(ESTIMATES, 1, 0, 100);
+
+        // Twice as slow as estimated: the remaining 30s are expected to take 60s
+        tracker.onScenarioFinished(result("a.feature", 3, 20_000L));
+
+        assertThat(tracker.getEtaMillis()).isEqualTo(60_000);
+        assertThat(tracker.getProgress()).isEqualTo(25);
+    }
+
+    @Test
+    void countsTheEstimateOfAScenarioWithoutDurationAsItsDuration() {
+        ProgressTracker tracker = new ProgressTracker(ESTIMATES, 1, 0, 100);
+
+        tracker.onScenarioFinished(result("b.feature", 5, null));
+
+        assertThat(tracker.getEtaMillis()).isEqualTo(20_000);
+        assertThat(tracker.getProgress()).isEqualTo(50);
+    }
+
+    @Test
+    void countsARetriedScenarioOnceTowardsTheEstimate() {
+        ProgressTracker tracker = new ProgressTracker(ESTIMATES, 1, 0, 100);
+
+        tracker.onScenarioFinished(result("a.feature", 3, 10_000L));
+        tracker.onScenarioFinished(result("a.feature", 3, 10_000L));
+
+        assertThat(tracker.getFinishedScenarios()).isEqualTo(2);
+        assertThat(tracker.getEtaMillis()).isEqualTo(30_000);
+        assertThat(tracker.getProgress()).isEqualTo(25);
+    }
+
+    @Test
+    void growsThePlanWhenUnplannedScenariosFinish() {
+        ProgressTracker tracker = new ProgressTracker(Map.of(), 1, 0, 100);
+
+        tracker.onScenarioFinished(result("c.feature", 1, 1_000L));
+
+        assertThat(tracker.getPlannedScenarios()).isEqualTo(1);
+        assertThat(tracker.getProgress()).isEqualTo(100);
+        assertThat(tracker.getEtaMillis()).isZero();
+    }
+
+    private static ExecutionHistory.ScenarioResult result(String feature, int line, Long durationMillis) {
+        ExecutionHistory.ScenarioResult result = new ExecutionHistory.ScenarioResult();
+        result.setFeatureFile(feature);
+        result.setLine(line);
+        result.setStatus("PASSED");
+        result.setDurationMillis(durationMillis);
+        return result;
+    }
+}
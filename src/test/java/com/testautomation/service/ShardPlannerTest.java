@@ -0,0 +1,90 @@
+package com.testautomation.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Plans login.feature (scenarios on lines 12, 22 and 31; 22 and 31 tagged
+ * {@code @negative}). Its hash never matches recorded timings, so every
+ * scenario gets the same estimate.
+ */
+class ShardPlannerTest {
+    private final ShardPlanner planner = new ShardPlanner();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        BuildFingerprintService fingerprints = mock(BuildFingerprintService.class);
+        when(fingerprints.contentHash(any(Path.class))).thenReturn("not-a-recorded-hash");
+        ReflectionTestUtils.setField(planner, "buildFingerprintService", fingerprints);
+        ReflectionTestUtils.setField(planner, "defaultScenarioMillis", 30_000L);
+    }
+
+    @Test
+    void splitsAFeatureLongerThanItsShareOverTheShards() {
+        List<ShardPlanner.Shard> shards = planner.plan(List.of("login.feature"), null, 2);
+
+        assertThat(shards).extracting(ShardPlanner.Shard::getFeatures).containsExactly(
+                List.of("login.feature:12:31"),
+                List.of("login.feature:22"));
+        assertThat(shards.get(0).getPlannedMillis()).isEqualTo(2 * shards.get(1).getPlannedMillis());
+    }
+
+    @Test
+    void givesEveryScenarioItsOwnShardWhenThereAreEnough() {
+        List<ShardPlanner.Shard> shards = planner.plan(List.of("login.feature"), null, 5);
+
+        assertThat(shards).extracting(ShardPlanner.Shard::getFeatures).containsExactly(
+                List.of("login.feature:12"),
+                List.of("login.feature:22"),
+                List.of("login.feature:31"));
+    }
+
+    @Test
+    void keepsTheFeatureWholeOnASingleShard() {
+        List<ShardPlanner.Shard> shards = planner.plan(List.of("login.feature"), null, 1);
+
+        assertThat(shards).extracting(ShardPlanner.Shard::getFeatures)
+                .containsExactly(List.of("login.feature"));
+    }
+
+    @Test
+    void weighsOnlyScenariosMatchingTheTagExpression() {
+        List<ShardPlanner.Shard> shards = planner.plan(List.of("login.feature"), "@negative", 3);
+
+        assertThat(shards).extracting(ShardPlanner.Shard::getFeatures).containsExactly(
+                List.of("login.feature:22"),
+                List.of("login.feature:31"));
+        assertThat(shards.get(0).getPlannedMillis()).isEqualTo(shards.get(1).getPlannedMillis());
+    }
+
+    @Test
+    void leavesOutEntriesWithoutMatchingScenarios() {
+        assertThat(planner.plan(List.of("login.feature"), "@nothing", 2)).isEmpty();
+    }
+
+    @Test
+    void plansOnlyTheLinesOfAFeatureLineEntry() {
+        List<ShardPlanner.Shard> shards = planner.plan(List.of("login.feature:12:22"), null, 3);
+
+        assertThat(shards).extracting(ShardPlanner.Shard::getFeatures).containsExactly(
+                List.of("login.feature:12"),
+                List.of("login.feature:22"));
+    }
+
+    @Test
+    void plansAFeatureThatCannotBeParsedAsAWhole() {
+        List<ShardPlanner.Shard> shards = planner.plan(List.of("missing.feature", "login.feature"), null, 2);
+
+        assertThat(shards).hasSize(2);
+        assertThat(shards).flatExtracting(ShardPlanner.Shard::getFeatures).contains("missing.feature");
+    }
+}
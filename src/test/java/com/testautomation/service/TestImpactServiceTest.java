@@ -0,0 +1,103 @@
+package com.testautomation.service;
+
+import com.testautomation.model.ExecutionHistory;
+import com.testautomation.model.FeatureFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TestImpactServiceTest {
+    private final TestImpactService service = new TestImpactService();
+
+    @TempDir
+    Path dir;
+
+    private TestImpactService.Snapshot snapshot;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        FeatureFileService featureFileService = mock(FeatureFileService.class);
+        when(featureFileService.getAllFeatures()).thenReturn(List.of(feature("cart.feature"), feature("login.feature")));
+        BuildFingerprintService fingerprints = mock(BuildFingerprintService.class);
+        when(fingerprints.contentHash(any(Path.class))).thenReturn("unchanged");
+        ReflectionTestUtils.setField(service, "featureFileService", featureFileService);
+        ReflectionTestUtils.setField(service, "buildFingerprintService", fingerprints);
+        ReflectionTestUtils.setField(service, "baselineFile", dir.resolve("impact-baseline.json").toString());
+        snapshot = service.snapshot();
+    }
+
+    @Test
+    void recordsFeaturesWhoseScenariosAllPassed() {
+        service.recordRun(execution(List.of(), result("cart.feature", 3, "PASSED"),
+                result("login.feature", 12, "PASSED")), snapshot);
+
+        assertThat(service.findImpacted(snapshot)).isEmpty();
+    }
+
+    @Test
+    void doesNotRecordAFeatureWithScenariosDeferredByTheBudget() {
+        service.recordRun(execution(List.of("login.feature:22"), result("cart.feature", 3, "PASSED"),
+                result("login.feature", 12, "PASSED")), snapshot);
+
+        assertThat(service.findImpacted(snapshot)).containsOnlyKeys("login.feature")
+                .containsEntry("login.feature", "No passing run recorded");
+    }
+
+    @Test
+    void keepsTheLastFullPassOfAFeatureWithDeferredScenarios() {
+        service.recordRun(execution(List.of(), result("login.feature", 12, "PASSED")), snapshot);
+
+        service.recordRun(execution(List.of("login.feature:22"), result("login.feature", 12, "PASSED")), snapshot);
+
+        assertThat(service.findImpacted(snapshot)).doesNotContainKey("login.feature");
+    }
+
+    @Test
+    void removesAFeatureWithDeferredScenariosThatFailed() {
+        service.recordRun(execution(List.of(), result("login.feature", 12, "PASSED")), snapshot);
+
+        service.recordRun(execution(List.of("login.feature:22"), result("login.feature", 12, "FAILED")), snapshot);
+
+        assertThat(service.findImpacted(snapshot)).containsKey("login.feature");
+    }
+
+    private static FeatureFile feature(String fileName) {
+        FeatureFile feature = new FeatureFile();
+        feature.setFileName(fileName);
+        feature.setContent("Feature: " + fileName);
+        return feature;
+    }
+
+    private static ExecutionHistory.Execution execution(List<String> deferredLocations,
+                                                        ExecutionHistory.ScenarioResult... results) {
+        ExecutionHistory.Execution execution = new ExecutionHistory.Execution();
+        execution.setExecutionId("e1");
+        execution.setScenarioResults(new ArrayList<>(List.of(results)));
+        List<ExecutionHistory.DeferredScenario> deferred = new ArrayList<>();
+        for (String location : deferredLocations) {
+            ExecutionHistory.DeferredScenario scenario = new ExecutionHistory.DeferredScenario();
+            scenario.setLocation(location);
+            deferred.add(scenario);
+        }
+        execution.setDeferredScenarios(deferred);
+        return execution;
+    }
+
+    private static ExecutionHistory.ScenarioResult result(String featureFile, int line, String status) {
+        ExecutionHistory.ScenarioResult result = new ExecutionHistory.ScenarioResult();
+        result.setFeatureFile(featureFile);
+        result.setLine(line);
+        result.setStatus(status);
+        return result;
+    }
+}
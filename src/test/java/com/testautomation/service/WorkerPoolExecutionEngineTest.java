@@ -0,0 +1,39 @@
+package com.testautomation.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WorkerPoolExecutionEngineTest {
+
+    @Test
+    void readsExitCodeAndHeapFromTheJobSummary() {
+        WorkerPoolExecutionEngine.JobSummary done = WorkerPoolExecutionEngine.JobSummary.parse(" 0 1024 4096 ");
+
+        assertThat(done.isReadable()).isTrue();
+        assertThat(done.getExitCode()).isZero();
+        assertThat(done.getUsedHeap()).isEqualTo(1024);
+        assertThat(done.getMaxHeap()).isEqualTo(4096);
+    }
+
+    @Test
+    void treatsAnUnreadableSummaryAsAFailedRunWithUnknownHeap() {
+        for (String summary : new String[] {"", "done", "0 lots 4096", "99999999999 1 2"}) {
+            WorkerPoolExecutionEngine.JobSummary done = WorkerPoolExecutionEngine.JobSummary.parse(summary);
+
+            assertThat(done.isReadable()).as(summary).isFalse();
+            assertThat(done.getExitCode()).as(summary).isEqualTo(1);
+            assertThat(done.getUsedHeap()).as(summary).isZero();
+            assertThat(done.getMaxHeap()).as(summary).isEqualTo(Long.MAX_VALUE);
+        }
+    }
+
+    @Test
+    void keepsTheExitCodeOfASummaryWithoutHeap() {
+        WorkerPoolExecutionEngine.JobSummary done = WorkerPoolExecutionEngine.JobSummary.parse("1");
+
+        assertThat(done.isReadable()).isTrue();
+        assertThat(done.getExitCode()).isEqualTo(1);
+        assertThat(done.getMaxHeap()).isEqualTo(Long.MAX_VALUE);
+    }
+}